@@ -0,0 +1,463 @@
+package com.ironledger.wallet.archive;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * One archived month of ledger rows in a compressed, column-oriented file.
+ *
+ * Rows are sorted by (account_id, created_at, id) and cut into blocks of up to {@code blockRows}
+ * rows. Inside a block every column is stored and deflated on its own, account_id and created_at
+ * first, so a lookup inflates the other columns only for blocks that actually hold matching rows.
+ * A footer indexes every block with its offset, CRC32C and the min/max account_id and created_at it
+ * contains; readers load only the footer up front.
+ *
+ * Layout: {@code [block]* [footer] [long footerOffset] [int MAGIC]}.
+ */
+final class ArchiveSegment implements Closeable {
+
+    static final String SUFFIX = ".seg";
+
+    private static final int MAGIC = 0x494C4152; // "ILAR"
+    private static final int VERSION = 1;
+    private static final int TRAILER_BYTES = 12;
+
+    private final YearMonth month;
+    private final Path path;
+    private final FileChannel channel;
+    private final List<Block> blocks;
+    private final long rowCount;
+
+    /**
+     * Index entry of one block. Account bounds are the first and last row's account, as rows are sorted.
+     */
+    record Block(long offset, int length, int crc, int rows, UUID minAccount, UUID maxAccount,
+                 long minMicros, long maxMicros) {
+
+        boolean mayContain(UUID accountId) {
+            return compareIds(minAccount, accountId) <= 0 && compareIds(accountId, maxAccount) <= 0;
+        }
+
+        boolean overlaps(long fromMicros, long toMicros) {
+            return minMicros < toMicros && maxMicros >= fromMicros;
+        }
+    }
+
+    private ArchiveSegment(YearMonth month, Path path, FileChannel channel, List<Block> blocks, long rowCount) {
+        this.month = month;
+        this.path = path;
+        this.channel = channel;
+        this.blocks = blocks;
+        this.rowCount = rowCount;
+    }
+
+    static String fileName(YearMonth month) {
+        return String.format("ledger-%04d%02d%s", month.getYear(), month.getMonthValue(), SUFFIX);
+    }
+
+    static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith("ledger-") && name.endsWith(SUFFIX);
+    }
+
+    static ArchiveSegment open(Path path) {
+        try {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                long size = channel.size();
+                if (size < TRAILER_BYTES) throw new IllegalStateException("Archive segment " + path + " is truncated");
+
+                ByteBuffer trailer = readFully(channel, size - TRAILER_BYTES, TRAILER_BYTES);
+                long footerOffset = trailer.getLong();
+                if (trailer.getInt() != MAGIC) throw new IllegalStateException("Archive segment " + path + " is not sealed");
+
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+                        readFully(channel, footerOffset, (int) (size - TRAILER_BYTES - footerOffset)).array()));
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    throw new IllegalStateException("Archive segment " + path + " has an unknown format");
+                }
+                int yyyymm = in.readInt();
+                int blockCount = in.readInt();
+                List<Block> blocks = new ArrayList<>(blockCount);
+                for (int i = 0; i < blockCount; i++) {
+                    blocks.add(new Block(in.readLong(), in.readInt(), in.readInt(), in.readInt(),
+                            readId(in), readId(in), in.readLong(), in.readLong()));
+                }
+                long rowCount = in.readLong();
+                return new ArchiveSegment(YearMonth.of(yyyymm / 100, yyyymm % 100), path, channel, blocks, rowCount);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open archive segment " + path, e);
+        }
+    }
+
+    YearMonth month() {
+        return month;
+    }
+
+    long rowCount() {
+        return rowCount;
+    }
+
+    List<Block> blocks() {
+        return blocks;
+    }
+
+    /**
+     * Rows of one account in a block with created_at in [fromMicros, toMicros), in (created_at, id) order.
+     * Columns other than account_id and created_at are only inflated when some row matches.
+     */
+    List<ArchivedRow> read(Block block, UUID accountId, long fromMicros, long toMicros) {
+        try {
+            ByteBuffer bytes = readFully(channel, block.offset(), block.length());
+            if (checksum(bytes.array()) != block.crc()) {
+                throw new IllegalStateException("Corrupt block at offset " + block.offset() + " in " + path);
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.array()));
+            int rows = in.readInt();
+
+            DataInputStream accounts = column(in);
+            DataInputStream created = column(in);
+            int[] match = new int[rows];
+            long[] micros = new long[rows];
+            int matches = 0;
+            long previous = 0;
+            for (int i = 0; i < rows; i++) {
+                micros[i] = previous + created.readLong();
+                previous = micros[i];
+                if (readId(accounts).equals(accountId) && micros[i] >= fromMicros && micros[i] < toMicros) {
+                    match[matches++] = i;
+                }
+            }
+            if (matches == 0) return List.of();
+
+            UUID[] ids = new UUID[rows];
+            UUID[] userIds = new UUID[rows];
+            long[] amount = new long[rows], balanceBefore = new long[rows], balanceAfter = new long[rows];
+            long[] pendingBefore = new long[rows], pendingAfter = new long[rows];
+            int[] status = new int[rows];
+            String[] currency = new String[rows], type = new String[rows], referenceId = new String[rows];
+            String[] externalRef = new String[rows], meta = new String[rows];
+
+            DataInputStream c = column(in);
+            for (int i = 0; i < rows; i++) ids[i] = readId(c);
+            c = column(in);
+            for (int i = 0; i < rows; i++) userIds[i] = readId(c);
+            readLongs(column(in), amount);
+            readLongs(column(in), balanceBefore);
+            readLongs(column(in), balanceAfter);
+            readLongs(column(in), pendingBefore);
+            readLongs(column(in), pendingAfter);
+            c = column(in);
+            for (int i = 0; i < rows; i++) status[i] = c.readInt();
+            readStrings(column(in), currency);
+            readStrings(column(in), type);
+            readStrings(column(in), referenceId);
+            readStrings(column(in), externalRef);
+            readStrings(column(in), meta);
+
+            List<ArchivedRow> result = new ArrayList<>(matches);
+            for (int m = 0; m < matches; m++) {
+                int i = match[m];
+                result.add(new ArchivedRow(ids[i], accountId, userIds[i], amount[i], currency[i], type[i], status[i],
+                        balanceBefore[i], balanceAfter[i], pendingBefore[i], pendingAfter[i],
+                        referenceId[i], externalRef[i], meta[i], fromMicros(micros[i])));
+            }
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read archive segment " + path, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to close archive segment " + path, e);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // WRITER
+    // -------------------------------------------------------------------------
+
+    /**
+     * Writes a segment to a temporary file; {@link #seal(Path)} makes it durable and moves it into place.
+     * Rows must be added in (account_id, created_at, id) order.
+     */
+    static final class Writer implements Closeable {
+
+        private final YearMonth month;
+        private final Path tmp;
+        private final int blockRows;
+        private final FileOutputStream file;
+        private final DataOutputStream out;
+        private final List<ArchivedRow> pending;
+        private final List<Block> blocks = new ArrayList<>();
+        private long position;
+        private long rowCount;
+
+        Writer(Path tmp, YearMonth month, int blockRows) {
+            this.month = month;
+            this.tmp = tmp;
+            this.blockRows = blockRows;
+            this.pending = new ArrayList<>(blockRows);
+            try {
+                this.file = new FileOutputStream(tmp.toFile());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to create archive segment " + tmp, e);
+            }
+            this.out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16));
+        }
+
+        void add(ArchivedRow row) {
+            pending.add(row);
+            rowCount++;
+            if (pending.size() == blockRows) writeBlock();
+        }
+
+        long rowCount() {
+            return rowCount;
+        }
+
+        ArchiveSegment seal(Path target) {
+            try {
+                if (!pending.isEmpty()) writeBlock();
+
+                long footerOffset = position;
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(month.getYear() * 100 + month.getMonthValue());
+                out.writeInt(blocks.size());
+                for (Block b : blocks) {
+                    out.writeLong(b.offset());
+                    out.writeInt(b.length());
+                    out.writeInt(b.crc());
+                    out.writeInt(b.rows());
+                    writeId(out, b.minAccount());
+                    writeId(out, b.maxAccount());
+                    out.writeLong(b.minMicros());
+                    out.writeLong(b.maxMicros());
+                }
+                out.writeLong(rowCount);
+                out.writeLong(footerOffset);
+                out.writeInt(MAGIC);
+                out.flush();
+                file.getChannel().force(true);
+                out.close();
+
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+                // The rename is only durable once the directory is; the partition is dropped right after
+                try (FileChannel dir = FileChannel.open(target.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+                    dir.force(true);
+                }
+                return open(target);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to seal archive segment " + target, e);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                out.close();
+                Files.deleteIfExists(tmp);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to discard archive segment " + tmp, e);
+            }
+        }
+
+        private void writeBlock() {
+            try {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                DataOutputStream block = new DataOutputStream(buffer);
+                int rows = pending.size();
+                block.writeInt(rows);
+
+                writeColumn(block, c -> { for (ArchivedRow r : pending) writeId(c, r.accountId()); });
+                writeColumn(block, c -> {
+                    // Sorted per account, so deltas are small and compress well
+                    long previous = 0;
+                    for (ArchivedRow r : pending) {
+                        long micros = toMicros(r.createdAt());
+                        c.writeLong(micros - previous);
+                        previous = micros;
+                    }
+                });
+                writeColumn(block, c -> { for (ArchivedRow r : pending) writeId(c, r.id()); });
+                writeColumn(block, c -> { for (ArchivedRow r : pending) writeId(c, r.userId()); });
+                writeColumn(block, c -> { for (ArchivedRow r : pending) c.writeLong(r.amount()); });
+                writeColumn(block, c -> { for (ArchivedRow r : pending) c.writeLong(r.balanceBefore()); });
+                writeColumn(block, c -> { for (ArchivedRow r : pending) c.writeLong(r.balanceAfter()); });
+                writeColumn(block, c -> { for (ArchivedRow r : pending) c.writeLong(r.pendingBefore()); });
+                writeColumn(block, c -> { for (ArchivedRow r : pending) c.writeLong(r.pendingAfter()); });
+                writeColumn(block, c -> { for (ArchivedRow r : pending) c.writeInt(r.status()); });
+                writeColumn(block, c -> { for (ArchivedRow r : pending) writeString(c, r.currency()); });
+                writeColumn(block, c -> { for (ArchivedRow r : pending) writeString(c, r.type()); });
+                writeColumn(block, c -> { for (ArchivedRow r : pending) writeString(c, r.referenceId()); });
+                writeColumn(block, c -> { for (ArchivedRow r : pending) writeString(c, r.externalRef()); });
+                writeColumn(block, c -> { for (ArchivedRow r : pending) writeString(c, r.meta()); });
+                block.flush();
+
+                long minMicros = Long.MAX_VALUE;
+                long maxMicros = Long.MIN_VALUE;
+                for (ArchivedRow r : pending) {
+                    long micros = toMicros(r.createdAt());
+                    minMicros = Math.min(minMicros, micros);
+                    maxMicros = Math.max(maxMicros, micros);
+                }
+
+                byte[] bytes = buffer.toByteArray();
+                out.write(bytes);
+                blocks.add(new Block(position, bytes.length, checksum(bytes), rows,
+                        pending.get(0).accountId(), pending.get(rows - 1).accountId(), minMicros, maxMicros));
+                position += bytes.length;
+                pending.clear();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to write archive segment " + tmp, e);
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // ENCODING
+    // -------------------------------------------------------------------------
+
+    private interface ColumnEncoder {
+        void encode(DataOutputStream column) throws IOException;
+    }
+
+    // Column layout: [int rawLength][int compressedLength][deflated bytes]
+    private static void writeColumn(DataOutputStream block, ColumnEncoder encoder) throws IOException {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        DataOutputStream column = new DataOutputStream(raw);
+        encoder.encode(column);
+        column.flush();
+        byte[] input = raw.toByteArray();
+
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, input.length / 4));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                compressed.write(chunk, 0, deflater.deflate(chunk));
+            }
+            block.writeInt(input.length);
+            block.writeInt(compressed.size());
+            compressed.writeTo(block);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static DataInputStream column(DataInputStream block) throws IOException {
+        int rawLength = block.readInt();
+        byte[] compressed = new byte[block.readInt()];
+        block.readFully(compressed);
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int read = 0;
+            while (read < rawLength && !inflater.finished()) {
+                read += inflater.inflate(raw, read, rawLength - read);
+            }
+            return new DataInputStream(new ByteArrayInputStream(raw));
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt archive column", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void readLongs(DataInputStream column, long[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) values[i] = column.readLong();
+    }
+
+    private static void readStrings(DataInputStream column, String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            int length = column.readInt();
+            if (length < 0) continue;
+            byte[] bytes = new byte[length];
+            column.readFully(bytes);
+            values[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void writeString(DataOutputStream column, String value) throws IOException {
+        if (value == null) {
+            column.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        column.writeInt(bytes.length);
+        column.write(bytes);
+    }
+
+    private static void writeId(DataOutputStream out, UUID id) throws IOException {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    private static UUID readId(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    /**
+     * Orders UUIDs the way PostgreSQL does (unsigned, byte by byte), unlike {@link UUID#compareTo}.
+     */
+    static int compareIds(UUID a, UUID b) {
+        int c = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return c != 0 ? c : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    static long toMicros(OffsetDateTime time) {
+        Instant instant = time.toInstant();
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1000);
+    }
+
+    static OffsetDateTime fromMicros(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1000L)
+                .atOffset(ZoneOffset.UTC);
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of archive segment");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static int checksum(byte[] bytes) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,28 @@
+package com.ironledger.wallet.archive;
+
+import com.ironledger.wallet.dto.Ledger.LedgerEntryResponse;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * One ledger row as stored in an archive segment: every column of core_ledger_transaction,
+ * with meta kept as its JSON text.
+ */
+public record ArchivedRow(UUID id, UUID accountId, UUID userId, long amount, String currency, String type,
+                          int status, long balanceBefore, long balanceAfter, long pendingBefore, long pendingAfter,
+                          String referenceId, String externalRef, String meta, OffsetDateTime createdAt) {
+
+    /**
+     * Bucket credits are archived with {@code "bucket_credit": true} folded into meta, in PostgreSQL's
+     * jsonb text form (see {@code LedgerPartitionRepository.forEachRow}).
+     */
+    public boolean bucketCredit() {
+        return meta != null && meta.contains("\"bucket_credit\": true");
+    }
+
+    public LedgerEntryResponse toEntry() {
+        return new LedgerEntryResponse(id, referenceId, type, status, amount, currency,
+                balanceBefore, balanceAfter, pendingBefore, pendingAfter, createdAt, bucketCredit());
+    }
+}
@@ -0,0 +1,197 @@
+package com.ironledger.wallet.archive;
+
+import com.ironledger.wallet.repository.LedgerPartitionRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Cold tier for ledger rows: one compressed, column-oriented segment file per archived month.
+ *
+ * Archived months are always older than anything still served from PostgreSQL, so
+ * {@link #horizon()} splits every read in two: rows before it come from the archive, rows at or
+ * after it from the database. Segment footers (block offsets plus min/max account and created_at)
+ * are kept in memory; blocks are read from disk on demand.
+ */
+@Slf4j
+public class LedgerArchive {
+
+    private final Path directory;
+    private final int blockRows;
+    private final ConcurrentSkipListMap<YearMonth, ArchiveSegment> segments = new ConcurrentSkipListMap<>();
+
+    public LedgerArchive(Path directory, int blockRows) {
+        this.directory = directory;
+        this.blockRows = blockRows;
+    }
+
+    /**
+     * Open the existing segments. Temporary files left by an interrupted archive run are deleted.
+     */
+    public void start() {
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> listing = Files.list(directory)) {
+                for (Path file : listing.toList()) {
+                    if (file.getFileName().toString().endsWith(".tmp")) {
+                        Files.deleteIfExists(file);
+                    } else if (ArchiveSegment.isSegment(file)) {
+                        ArchiveSegment segment = ArchiveSegment.open(file);
+                        segments.put(segment.month(), segment);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open ledger archive " + directory, e);
+        }
+        log.info("Ledger archive opened with {} segment(s)", segments.size());
+    }
+
+    public void shutdown() {
+        segments.values().forEach(ArchiveSegment::close);
+        segments.clear();
+    }
+
+    public boolean contains(YearMonth month) {
+        return segments.containsKey(month);
+    }
+
+    /**
+     * End of the newest archived month; rows created before it are read from the archive.
+     */
+    public Optional<OffsetDateTime> horizon() {
+        return segments.isEmpty()
+                ? Optional.empty()
+                : Optional.of(LedgerPartitionRepository.upperBound(segments.lastKey()));
+    }
+
+    /**
+     * Write one month into a new segment and start serving it.
+     *
+     * @param expectedRows the number of rows the month has; the segment is discarded if the source delivers
+     *                     a different number
+     * @param source       pushes the month's rows, in (account_id, created_at, id) order, into the given consumer
+     * @return the number of rows archived
+     */
+    public long archive(YearMonth month, long expectedRows, Consumer<Consumer<ArchivedRow>> source) {
+        if (segments.containsKey(month)) throw new IllegalStateException("Month " + month + " is already archived");
+
+        Path target = directory.resolve(ArchiveSegment.fileName(month));
+        try (ArchiveSegment.Writer writer = new ArchiveSegment.Writer(
+                directory.resolve(ArchiveSegment.fileName(month) + ".tmp"), month, blockRows)) {
+            source.accept(writer::add);
+            if (writer.rowCount() != expectedRows) {
+                throw new IllegalStateException("Archive of " + month + " received " + writer.rowCount() +
+                        " rows, expected " + expectedRows);
+            }
+            ArchiveSegment segment = writer.seal(target);
+            segments.put(month, segment);
+            return segment.rowCount();
+        }
+    }
+
+    /**
+     * Archived rows of an account strictly before a (created_at, id) position, newest first.
+     *
+     * @param beforeCreatedAt position to start below, or null to start at the newest archived row
+     */
+    public List<ArchivedRow> history(UUID accountId, OffsetDateTime beforeCreatedAt, UUID beforeId, int limit) {
+        long toMicros = beforeCreatedAt == null ? Long.MAX_VALUE : ArchiveSegment.toMicros(beforeCreatedAt) + 1;
+        List<ArchivedRow> result = new ArrayList<>(limit);
+
+        for (ArchiveSegment segment : segments.descendingMap().values()) {
+            List<ArchiveSegment.Block> blocks = segment.blocks();
+            // An account's blocks are contiguous and in time order: walk them backwards
+            for (int b = blocks.size() - 1; b >= 0; b--) {
+                ArchiveSegment.Block block = blocks.get(b);
+                if (!block.mayContain(accountId) || !block.overlaps(Long.MIN_VALUE, toMicros)) continue;
+
+                List<ArchivedRow> rows = segment.read(block, accountId, Long.MIN_VALUE, toMicros);
+                for (int i = rows.size() - 1; i >= 0; i--) {
+                    ArchivedRow row = rows.get(i);
+                    if (beforeCreatedAt != null && !isBefore(row, beforeCreatedAt, beforeId)) continue;
+                    result.add(row);
+                    if (result.size() == limit) return result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The last archived row of an account created at or before an instant.
+     */
+    public Optional<ArchivedRow> lastRow(UUID accountId, OffsetDateTime atOrBefore) {
+        long toMicros = ArchiveSegment.toMicros(atOrBefore) + 1;
+
+        for (ArchiveSegment segment : segments.descendingMap().values()) {
+            List<ArchiveSegment.Block> blocks = segment.blocks();
+            for (int b = blocks.size() - 1; b >= 0; b--) {
+                ArchiveSegment.Block block = blocks.get(b);
+                if (!block.mayContain(accountId) || !block.overlaps(Long.MIN_VALUE, toMicros)) continue;
+
+                List<ArchivedRow> rows = segment.read(block, accountId, Long.MIN_VALUE, toMicros);
+                if (!rows.isEmpty()) return Optional.of(rows.get(rows.size() - 1));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Whether any archived row of an account created at or before an instant is a bucket credit.
+     */
+    public boolean anyBucketCredit(UUID accountId, OffsetDateTime atOrBefore) {
+        long toMicros = ArchiveSegment.toMicros(atOrBefore) + 1;
+
+        for (ArchiveSegment segment : segments.values()) {
+            for (ArchiveSegment.Block block : segment.blocks()) {
+                if (!block.mayContain(accountId) || !block.overlaps(Long.MIN_VALUE, toMicros)) continue;
+                if (segment.read(block, accountId, Long.MIN_VALUE, toMicros).stream().anyMatch(ArchivedRow::bucketCredit)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Feed the archived rows of an account strictly after a (created_at, id) position and created
+     * before {@code to} to the consumer, oldest first.
+     */
+    public void scanAfter(UUID accountId, OffsetDateTime afterCreatedAt, UUID afterId, OffsetDateTime to,
+                          Consumer<ArchivedRow> consumer) {
+        scan(accountId, afterCreatedAt, to, row -> {
+            int c = Long.compare(ArchiveSegment.toMicros(row.createdAt()), ArchiveSegment.toMicros(afterCreatedAt));
+            if (c > 0 || (c == 0 && ArchiveSegment.compareIds(row.id(), afterId) > 0)) consumer.accept(row);
+        });
+    }
+
+    /**
+     * Feed the archived rows of an account with created_at in [from, to) to the consumer, oldest first.
+     */
+    public void scan(UUID accountId, OffsetDateTime from, OffsetDateTime to, Consumer<ArchivedRow> consumer) {
+        long fromMicros = ArchiveSegment.toMicros(from);
+        long toMicros = ArchiveSegment.toMicros(to);
+
+        for (ArchiveSegment segment : segments.values()) {
+            for (ArchiveSegment.Block block : segment.blocks()) {
+                if (!block.mayContain(accountId) || !block.overlaps(fromMicros, toMicros)) continue;
+                segment.read(block, accountId, fromMicros, toMicros).forEach(consumer);
+            }
+        }
+    }
+
+    private static boolean isBefore(ArchivedRow row, OffsetDateTime createdAt, UUID id) {
+        int c = Long.compare(ArchiveSegment.toMicros(row.createdAt()), ArchiveSegment.toMicros(createdAt));
+        return c < 0 || (c == 0 && ArchiveSegment.compareIds(row.id(), id) < 0);
+    }
+}
@@ -0,0 +1,28 @@
+package com.ironledger.wallet.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Timeout of asynchronous MVC requests that do not set their own.
+ *
+ * Transfer event streams give their SseEmitter an explicit timeout; the streamed statement export
+ * (StreamingResponseBody) does not, and would otherwise be cut off by the servlet container's default
+ * of 30 seconds, well before a large statement is written. A value of -1 disables the timeout.
+ */
+@Configuration
+public class AsyncRequestConfig implements WebMvcConfigurer {
+
+    private final long timeoutMs;
+
+    public AsyncRequestConfig(@Value("${ironledger.export.timeout-ms:1800000}") long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(timeoutMs);
+    }
+}
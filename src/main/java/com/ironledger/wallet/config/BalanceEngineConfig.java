@@ -0,0 +1,44 @@
+package com.ironledger.wallet.config;
+
+import com.ironledger.wallet.engine.AccountState;
+import com.ironledger.wallet.engine.BalanceEngine;
+import com.ironledger.wallet.engine.JdbcPostingSink;
+import com.ironledger.wallet.repository.AccountBatchRepository;
+import com.ironledger.wallet.repository.AccountRepository;
+import com.ironledger.wallet.repository.IdempotencyKeyBatchRepository;
+import com.ironledger.wallet.repository.LedgerBatchRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Enables the single-writer balance engine for LedgerService when
+ * {@code ironledger.ledger.engine.mode=sharded}. The JPA/row-lock path stays the default.
+ */
+@Configuration
+@ConditionalOnProperty(name = "ironledger.ledger.engine.mode", havingValue = "sharded")
+public class BalanceEngineConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public BalanceEngine balanceEngine(
+            AccountRepository accountRepository,
+            AccountBatchRepository accountBatchRepository,
+            LedgerBatchRepository ledgerBatchRepository,
+            IdempotencyKeyBatchRepository idempotencyKeyBatchRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${ironledger.ledger.engine.shards:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int shards,
+            @Value("${ironledger.ledger.engine.max-batch:256}") int maxBatch,
+            @Value("${ironledger.ledger.engine.queue-capacity:16384}") int queueCapacity,
+            @Value("${ironledger.ledger.engine.max-cached-accounts:100000}") int maxCachedAccounts
+    ) {
+        return new BalanceEngine(shards, maxBatch, queueCapacity, maxCachedAccounts,
+                accountId -> accountRepository.findById(accountId)
+                        .map(a -> new AccountState(a.getId(), a.getUserId(), a.getCurrency(), a.isActive(),
+                                a.getBalanceAvailable(), a.getBalancePending(), a.getLastPostedAt()))
+                        .orElse(null),
+                new JdbcPostingSink(transactionTemplate, accountBatchRepository, ledgerBatchRepository,
+                        idempotencyKeyBatchRepository));
+    }
+}
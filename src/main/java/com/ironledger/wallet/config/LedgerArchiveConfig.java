@@ -0,0 +1,35 @@
+package com.ironledger.wallet.config;
+
+import com.ironledger.wallet.archive.LedgerArchive;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * Enables the cold-tier ledger archive when {@code ironledger.archive.enabled=true}.
+ * LedgerPartitionManager then moves months older than {@code ironledger.archive.after-months}
+ * from their partitions into segment files, and history and export read through to them.
+ *
+ * Segments are files in {@code ironledger.archive.dir}, while dropping a partition affects every node.
+ * Months are therefore only archived (and dropped) with {@code ironledger.archive.shared=true}, which
+ * states that this directory is the same storage on every node (a shared volume), or that the
+ * application runs on a single node. Otherwise the other nodes would lose the month from history,
+ * export and as-of reads.
+ */
+@Configuration
+@ConditionalOnProperty(name = "ironledger.archive.enabled", havingValue = "true")
+public class LedgerArchiveConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public LedgerArchive ledgerArchive(
+            @Value("${ironledger.archive.dir:archive}") String directory,
+            @Value("${ironledger.archive.block-rows:4096}") int blockRows
+    ) {
+        LedgerArchive archive = new LedgerArchive(Path.of(directory), blockRows);
+        archive.start();
+        return archive;
+    }
+}
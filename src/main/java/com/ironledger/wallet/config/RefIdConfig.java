@@ -0,0 +1,16 @@
+package com.ironledger.wallet.config;
+
+import com.ironledger.wallet.utils.MonotonicUlidGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RefIdConfig {
+
+    // Every running instance must be given a distinct node ID (0-65535)
+    @Bean
+    public MonotonicUlidGenerator refIdGenerator(@Value("${ironledger.refid.node-id:0}") int nodeId) {
+        return new MonotonicUlidGenerator(nodeId);
+    }
+}
@@ -1,12 +1,16 @@
 package com.ironledger.wallet.context;
 
+import com.ironledger.wallet.entity.LedgerMeta;
+
 public class RequestContextHolder {
     private static final ThreadLocal<String> ipHolder = new ThreadLocal<>();
     private static final ThreadLocal<String> uaHolder = new ThreadLocal<>();
+    private static final ThreadLocal<LedgerMeta> metaHolder = new ThreadLocal<>();
 
     public static void set(String ip, String userAgent) {
         ipHolder.set(ip);
         uaHolder.set(userAgent);
+        metaHolder.remove();
     }
 
     public static String getIp() {
@@ -17,8 +21,19 @@ public class RequestContextHolder {
         return uaHolder.get();
     }
 
+    // Built once per request and shared by every ledger row the request writes
+    public static LedgerMeta getLedgerMeta() {
+        LedgerMeta meta = metaHolder.get();
+        if (meta == null) {
+            meta = LedgerMeta.of(ipHolder.get(), uaHolder.get());
+            if (meta != null) metaHolder.set(meta);
+        }
+        return meta;
+    }
+
     public static void clear() {
         ipHolder.remove();
         uaHolder.remove();
+        metaHolder.remove();
     }
 }
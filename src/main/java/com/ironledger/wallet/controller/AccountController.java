@@ -1,15 +1,24 @@
 package com.ironledger.wallet.controller;
 
+import com.ironledger.wallet.dto.Account.AccountBalanceAsOfResponse;
 import com.ironledger.wallet.dto.Account.AccountCreateRequest;
 import com.ironledger.wallet.dto.Account.AccountResponse;
+import com.ironledger.wallet.dto.Account.AccountRollupResponse;
+import com.ironledger.wallet.dto.Account.AccountVerificationResponse;
+import com.ironledger.wallet.dto.Account.StripingRequest;
+import com.ironledger.wallet.service.AccountRollupService;
 import com.ironledger.wallet.service.AccountService;
+import com.ironledger.wallet.service.LedgerCheckpointService;
 import com.ironledger.wallet.utils.AuthenticationUtils;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -18,6 +27,8 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class AccountController {
     private final AccountService accountService;
+    private final LedgerCheckpointService ledgerCheckpointService;
+    private final AccountRollupService accountRollupService;
 
     private UUID userId(Authentication authentication) {
         return AuthenticationUtils.resolveUserIdFromAuthentication(authentication);
@@ -42,6 +53,18 @@ public class AccountController {
         return ResponseEntity.ok(accountService.listAccounts(userId(auth)));
     }
 
+    // -------------------------------------------------------------------------
+    // BALANCES AS OF A POINT IN TIME (e.g. month-end)
+    // -------------------------------------------------------------------------
+    @GetMapping("/balances")
+    public ResponseEntity<List<AccountBalanceAsOfResponse>> getBalancesAsOf(
+            Authentication auth,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime asOf,
+            @RequestParam(name = "accountId", required = false) List<UUID> accountIds
+    ) {
+        return ResponseEntity.ok(accountService.balancesAsOf(userId(auth), accountIds, asOf));
+    }
+
     // -------------------------------------------------------------------------
     // GET SINGLE ACCOUNT
     // -------------------------------------------------------------------------
@@ -52,4 +75,40 @@ public class AccountController {
     ) {
         return ResponseEntity.ok(accountService.getAccount(userId(auth), accountId));
     }
+
+    // -------------------------------------------------------------------------
+    // CONFIGURE STRIPING (HOT RECEIVING ACCOUNTS)
+    // -------------------------------------------------------------------------
+    @PutMapping("/{accountId}/striping")
+    public ResponseEntity<AccountResponse> configureStriping(
+            Authentication auth,
+            @PathVariable UUID accountId,
+            @Valid @RequestBody StripingRequest req
+    ) {
+        return ResponseEntity.ok(accountService.configureStriping(userId(auth), accountId, req.getStripes()));
+    }
+
+    // -------------------------------------------------------------------------
+    // VERIFY BALANCE AGAINST LEDGER (latest checkpoint + recent rows)
+    // -------------------------------------------------------------------------
+    @GetMapping("/{accountId}/verify")
+    public ResponseEntity<AccountVerificationResponse> verifyAccount(
+            Authentication auth,
+            @PathVariable UUID accountId
+    ) {
+        return ResponseEntity.ok(ledgerCheckpointService.verify(userId(auth), accountId));
+    }
+
+    // -------------------------------------------------------------------------
+    // DAILY ROLLUPS (credits, debits, count, closing balance per day)
+    // -------------------------------------------------------------------------
+    @GetMapping("/{accountId}/rollups")
+    public ResponseEntity<AccountRollupResponse> getRollups(
+            Authentication auth,
+            @PathVariable UUID accountId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        return ResponseEntity.ok(accountRollupService.summary(userId(auth), accountId, from, to));
+    }
 }
@@ -1,15 +1,27 @@
 package com.ironledger.wallet.controller;
 
 import com.ironledger.wallet.dto.Ledger.AmountRequest;
+import com.ironledger.wallet.dto.Ledger.BatchPostingRequest;
+import com.ironledger.wallet.dto.Ledger.BatchPostingResponse;
+import com.ironledger.wallet.dto.Ledger.HoldResponse;
+import com.ironledger.wallet.dto.Ledger.LedgerHistoryResponse;
 import com.ironledger.wallet.dto.Ledger.LedgerResponse;
+import com.ironledger.wallet.service.HoldService;
+import com.ironledger.wallet.service.IdempotencyService;
+import com.ironledger.wallet.service.LedgerHistoryService;
 import com.ironledger.wallet.service.LedgerService;
 import com.ironledger.wallet.utils.AuthenticationUtils;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @RestController
@@ -17,6 +29,8 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class LedgerController {
     private final LedgerService ledgerService;
+    private final LedgerHistoryService ledgerHistoryService;
+    private final HoldService holdService;
 
     private UUID userId(Authentication authentication) {
         return AuthenticationUtils.resolveUserIdFromAuthentication(authentication);
@@ -29,9 +43,10 @@ public class LedgerController {
     public ResponseEntity<LedgerResponse> creditAccount(
             Authentication auth,
             @PathVariable UUID accountId,
-            @Valid @RequestBody AmountRequest creditRequest
+            @Valid @RequestBody AmountRequest creditRequest,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey
             ) {
-        LedgerResponse response = ledgerService.credit(userId(auth), accountId, creditRequest);
+        LedgerResponse response = ledgerService.credit(userId(auth), accountId, creditRequest, idempotencyKey);
         return ResponseEntity.ok(response);
     }
 
@@ -42,9 +57,10 @@ public class LedgerController {
     public ResponseEntity<LedgerResponse> debitAccount(
             Authentication auth,
             @PathVariable UUID accountId,
-            @Valid @RequestBody AmountRequest debitRequest
+            @Valid @RequestBody AmountRequest debitRequest,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey
             ) {
-        LedgerResponse response = ledgerService.debit(userId(auth), accountId, debitRequest);
+        LedgerResponse response = ledgerService.debit(userId(auth), accountId, debitRequest, idempotencyKey);
         return ResponseEntity.ok(response);
     }
 
@@ -55,35 +71,120 @@ public class LedgerController {
     public ResponseEntity<LedgerResponse> pendingDebitAccount(
             Authentication auth,
             @PathVariable UUID accountId,
-            @Valid @RequestBody AmountRequest debitRequest
+            @Valid @RequestBody AmountRequest debitRequest,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey
     ) {
-        LedgerResponse response = ledgerService.pendingDebit(userId(auth), accountId, debitRequest);
+        LedgerResponse response = ledgerService.pendingDebit(userId(auth), accountId, debitRequest, idempotencyKey);
         return ResponseEntity.ok(response);
     }
 
+    // ----------------------------------------
+    // HOLDS (opened by PENDING DEBIT)
+    // ----------------------------------------
+    @GetMapping("/holds/{holdId}")
+    public ResponseEntity<HoldResponse> getHold(Authentication auth, @PathVariable UUID holdId) {
+        return ResponseEntity.ok(holdService.get(userId(auth), holdId));
+    }
+
+    // Without a body, captures everything that remains
+    @PostMapping("/holds/{holdId}/capture")
+    public ResponseEntity<LedgerResponse> captureHold(
+            Authentication auth,
+            @PathVariable UUID holdId,
+            @Valid @RequestBody(required = false) AmountRequest captureRequest,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey
+    ) {
+        return ResponseEntity.ok(holdService.capture(userId(auth), holdId, captureRequest, idempotencyKey));
+    }
+
+    @PostMapping("/holds/{holdId}/release")
+    public ResponseEntity<LedgerResponse> releaseHold(Authentication auth, @PathVariable UUID holdId) {
+        return ResponseEntity.ok(holdService.release(userId(auth), holdId));
+    }
+
     // ----------------------------------------
     // CAPTURE (SETTLE PENDING)
+    // Amount-only, for pending debits without a hold; funds held by an active hold are refused.
+    // Use /holds/{holdId}/capture
     // ----------------------------------------
+    @Deprecated
     @PostMapping("/capture/{accountId}")
     public ResponseEntity<LedgerResponse> captureAccount(
             Authentication auth,
             @PathVariable UUID accountId,
-            @Valid @RequestBody AmountRequest captureRequest
+            @Valid @RequestBody AmountRequest captureRequest,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey
     ) {
-        LedgerResponse response = ledgerService.capture(userId(auth), accountId, captureRequest);
+        LedgerResponse response = ledgerService.capture(userId(auth), accountId, captureRequest, idempotencyKey);
         return ResponseEntity.ok(response);
     }
 
     // ----------------------------------------
     // RELEASE (VOID PENDING)
+    // Amount-only, for pending debits without a hold; funds held by an active hold are refused.
+    // Use /holds/{holdId}/release
     // ----------------------------------------
+    @Deprecated
     @PostMapping("/release/{accountId}")
     public ResponseEntity<LedgerResponse> releaseAccount(
             Authentication auth,
             @PathVariable UUID accountId,
-            @Valid @RequestBody AmountRequest releaseRequest
+            @Valid @RequestBody AmountRequest releaseRequest,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey
+    ) {
+        LedgerResponse response = ledgerService.release(userId(auth), accountId, releaseRequest, idempotencyKey);
+        return ResponseEntity.ok(response);
+    }
+
+    // ----------------------------------------
+    // BATCH POSTING (CREDITS / DEBITS)
+    // ----------------------------------------
+    @PostMapping("/batch")
+    public ResponseEntity<BatchPostingResponse> postBatch(
+            Authentication auth,
+            @Valid @RequestBody BatchPostingRequest batchRequest,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey
+    ) {
+        BatchPostingResponse response = ledgerService.postBatch(userId(auth), batchRequest, idempotencyKey);
+        return ResponseEntity.ok(response);
+    }
+
+    // ----------------------------------------
+    // TRANSACTION HISTORY (KEYSET PAGINATION)
+    // ----------------------------------------
+    @GetMapping("/{accountId}/transactions")
+    public ResponseEntity<LedgerHistoryResponse> transactions(
+            Authentication auth,
+            @PathVariable UUID accountId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit
     ) {
-        LedgerResponse response = ledgerService.release(userId(auth), accountId, releaseRequest);
+        LedgerHistoryResponse response = ledgerHistoryService.history(userId(auth), accountId, cursor, limit);
         return ResponseEntity.ok(response);
     }
+
+    // ----------------------------------------
+    // STATEMENT EXPORT (CSV / NDJSON, STREAMED)
+    // ----------------------------------------
+    @GetMapping("/{accountId}/export")
+    public ResponseEntity<StreamingResponseBody> exportStatement(
+            Authentication auth,
+            @PathVariable UUID accountId,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        LedgerHistoryService.ExportFormat exportFormat = LedgerHistoryService.ExportFormat.parse(format);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+
+        StreamingResponseBody body = ledgerHistoryService.export(userId(auth), accountId, from, to, exportFormat, gzip);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"statement-" + accountId + "."
+                        + exportFormat.name().toLowerCase() + "\"");
+        if (gzip) response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return response.body(body);
+    }
 }
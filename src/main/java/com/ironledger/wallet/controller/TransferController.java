@@ -1,13 +1,19 @@
 package com.ironledger.wallet.controller;
 
 import com.ironledger.wallet.dto.Transfer.*;
+import com.ironledger.wallet.service.IdempotencyService;
+import com.ironledger.wallet.service.PayoutService;
 import com.ironledger.wallet.service.TransferService;
 import com.ironledger.wallet.utils.AuthenticationUtils;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.net.URI;
 import java.util.UUID;
 
 @RestController
@@ -15,14 +21,31 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class TransferController {
     private final TransferService transferService;
+    private final PayoutService payoutService;
 
     private UUID userId(Authentication authentication) {
         return AuthenticationUtils.resolveUserIdFromAuthentication(authentication);
     }
 
+    // 202 Accepted while the transfer is still PENDING (async mode); poll or subscribe for the outcome
     @PostMapping
-    public TransferResponse createTransfer(Authentication auth, @Valid @RequestBody TransferRequest request) {
-        return transferService.transfer(userId(auth), request);
+    public ResponseEntity<TransferResponse> createTransfer(Authentication auth, @Valid @RequestBody TransferRequest request) {
+        TransferResponse response = transferService.transfer(userId(auth), request);
+        if (!"PENDING".equals(response.getTransferStatus())) return ResponseEntity.ok(response);
+
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/transfers/" + response.getTransferId()))
+                .body(response);
+    }
+
+    // One sender, many receivers; per-leg status in the response. Retry with the same Idempotency-Key
+    @PostMapping("/payouts")
+    public PayoutResponse createPayout(
+            Authentication auth,
+            @Valid @RequestBody PayoutRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey
+    ) {
+        return payoutService.payout(userId(auth), request, idempotencyKey);
     }
 
     @GetMapping("/{transferId}")
@@ -30,6 +53,11 @@ public class TransferController {
         return transferService.transferGet(transferId);
     }
 
+    @GetMapping(value = "/{transferId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeTransfer(Authentication auth, @PathVariable UUID transferId) {
+        return transferService.subscribe(userId(auth), transferId);
+    }
+
     @PostMapping("/reversal")
     public ReversalResponse transferReversal(Authentication auth, @RequestBody ReversalRequest request) {
         return transferService.transferReversal(request, userId(auth));
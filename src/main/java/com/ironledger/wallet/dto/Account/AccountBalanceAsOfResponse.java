@@ -0,0 +1,24 @@
+package com.ironledger.wallet.dto.Account;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Getter
+@Builder
+public class AccountBalanceAsOfResponse {
+
+    private UUID accountId;
+    private String currency;
+    private OffsetDateTime asOf;
+    private Long balanceAvailable;
+    private Long balancePending;
+    // Last ledger row at or before asOf; null when the account had no activity yet
+    private UUID lastTransactionId;
+    private OffsetDateTime lastTransactionAt;
+    // LEDGER_ROW: read from the last row; ARCHIVE: same, from the ledger archive;
+    // REPLAY: rebuilt from a checkpoint (striped accounts); NONE: no activity
+    private String source;
+}
@@ -0,0 +1,31 @@
+package com.ironledger.wallet.dto.Account;
+
+import com.ironledger.wallet.entity.AccountDailyRollup;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+@Getter
+@Builder
+public class AccountDailyRollupResponse {
+
+    private LocalDate day;
+    private Long creditTotal;
+    private Long debitTotal;
+    private Long transactionCount;
+    // Null when the day's last row was a striped bucket credit
+    private Long closingBalance;
+    private Long closingPending;
+
+    public static AccountDailyRollupResponse from(AccountDailyRollup r) {
+        return AccountDailyRollupResponse.builder()
+                .day(r.getDay())
+                .creditTotal(r.getCreditTotal())
+                .debitTotal(r.getDebitTotal())
+                .transactionCount(r.getTxnCount())
+                .closingBalance(r.getClosingBalance())
+                .closingPending(r.getClosingPending())
+                .build();
+    }
+}
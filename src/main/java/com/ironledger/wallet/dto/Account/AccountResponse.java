@@ -17,15 +17,22 @@ public class AccountResponse {
     private Integer status;
     private Long balanceAvailable;
     private Long balancePending;
+    private Integer stripeCount;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
     public static AccountResponse from(Account a) {
+        return from(a, 0L);
+    }
+
+    // bucketBalance: the part of a striped account's available balance held in its buckets
+    public static AccountResponse from(Account a, long bucketBalance) {
         return AccountResponse.builder()
                 .id(a.getId())
                 .currency(a.getCurrency())
                 .status(a.getStatus())
-                .balanceAvailable(a.getBalanceAvailable())
+                .balanceAvailable(a.getBalanceAvailable() + bucketBalance)
+                .stripeCount(a.getStripeCount())
                 .balancePending(a.getBalancePending())
                 .createdAt(a.getCreatedAt())
                 .updatedAt(a.getUpdatedAt())
@@ -0,0 +1,29 @@
+package com.ironledger.wallet.dto.Account;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Builder
+public class AccountRollupResponse {
+
+    private UUID accountId;
+    private LocalDate from;
+    private LocalDate to;
+    private Long creditTotal;
+    private Long debitTotal;
+    private Long transactionCount;
+    // From the last day in the range with activity and a known closing balance; null if none.
+    // For a striped account it excludes the funds held in its buckets.
+    private Long closingBalance;
+    private Long closingPending;
+    // Ledger rows created up to this instant are included
+    private OffsetDateTime includedThrough;
+    // Days without activity are omitted
+    private List<AccountDailyRollupResponse> days;
+}
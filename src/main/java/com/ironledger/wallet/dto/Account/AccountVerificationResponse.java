@@ -0,0 +1,22 @@
+package com.ironledger.wallet.dto.Account;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.UUID;
+
+@Getter
+@Builder
+public class AccountVerificationResponse {
+
+    private UUID accountId;
+    // 0 when no checkpoint exists yet and the full history was replayed
+    private Long checkpointSequence;
+    private Long replayedRows;
+    private Long unknownRows;
+    private Long expectedAvailable;
+    private Long expectedPending;
+    private Long actualAvailable;
+    private Long actualPending;
+    private Boolean consistent;
+}
@@ -0,0 +1,17 @@
+package com.ironledger.wallet.dto.Account;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class StripingRequest {
+    // 1 turns striping off
+    @NotNull(message = "Stripe count is required")
+    @Min(value = 1, message = "Stripe count must be at least 1")
+    @Max(value = 64, message = "Stripe count must be at most 64")
+    private Integer stripes;
+}
@@ -0,0 +1,29 @@
+package com.ironledger.wallet.dto.Ledger;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+public class BatchPostingItem {
+    @NotNull(message = "Account is required!")
+    private UUID accountId;
+
+    @NotNull(message = "Operation is required!")
+    @Pattern(regexp = "^(CREDIT|DEBIT)$", message = "Operation must be CREDIT or DEBIT")
+    private String operation;
+
+    @NotNull(message = "Amount is required!")
+    @Positive(message = "Amount must be positive!")
+    @Max(value = 10_000_000_000L, message = "Amount too large")
+    private Long amount;   // minor units
+
+    @NotNull(message = "Currency is required!")
+    @Pattern(regexp = "^[A-Z]{3}$",
+            message = "Invalid currency format (must be 3-letter ISO code)")
+    private String currency;
+}
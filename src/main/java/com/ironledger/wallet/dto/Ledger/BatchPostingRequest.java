@@ -0,0 +1,15 @@
+package com.ironledger.wallet.dto.Ledger;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchPostingRequest {
+    @NotEmpty(message = "At least one posting is required!")
+    @Size(max = 5_000, message = "A batch may contain at most 5000 postings")
+    private List<@Valid BatchPostingItem> items;
+}
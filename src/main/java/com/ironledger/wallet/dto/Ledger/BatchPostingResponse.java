@@ -0,0 +1,16 @@
+package com.ironledger.wallet.dto.Ledger;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchPostingResponse {
+    private int posted;
+    private int rejected;
+    private List<BatchPostingResult> results;
+}
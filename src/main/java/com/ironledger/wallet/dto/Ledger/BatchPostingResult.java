@@ -0,0 +1,30 @@
+package com.ironledger.wallet.dto.Ledger;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchPostingResult {
+    public static final String POSTED = "POSTED";
+    public static final String REJECTED = "REJECTED";
+
+    private int index;
+    private UUID accountId;
+    private String status;
+    private UUID transactionId;
+    private String referenceId;
+    private String error;
+
+    public static BatchPostingResult posted(int index, UUID accountId, UUID transactionId, String referenceId) {
+        return new BatchPostingResult(index, accountId, POSTED, transactionId, referenceId, null);
+    }
+
+    public static BatchPostingResult rejected(int index, UUID accountId, String error) {
+        return new BatchPostingResult(index, accountId, REJECTED, null, null, error);
+    }
+}
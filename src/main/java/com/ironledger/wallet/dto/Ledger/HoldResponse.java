@@ -0,0 +1,41 @@
+package com.ironledger.wallet.dto.Ledger;
+
+import com.ironledger.wallet.entity.Hold;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Getter
+@Builder
+public class HoldResponse {
+
+    private UUID holdId;
+    private UUID accountId;
+    private String referenceId;
+    private String currency;
+    private Long amount;
+    private Long remaining;
+    private Long captured;
+    private String status;
+    private OffsetDateTime expiresAt;
+    private OffsetDateTime createdAt;
+    private OffsetDateTime updatedAt;
+
+    public static HoldResponse from(Hold h) {
+        return HoldResponse.builder()
+                .holdId(h.getId())
+                .accountId(h.getAccountId())
+                .referenceId(h.getReferenceId())
+                .currency(h.getCurrency())
+                .amount(h.getAmount())
+                .remaining(h.getRemaining())
+                .captured(h.getCaptured())
+                .status(Hold.statusName(h.getStatus()))
+                .expiresAt(h.getExpiresAt())
+                .createdAt(h.getCreatedAt())
+                .updatedAt(h.getUpdatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,42 @@
+package com.ironledger.wallet.dto.Ledger;
+
+import lombok.Data;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+// One ledger row as shown in history pages; the jsonb meta is deliberately not loaded
+@Data
+public class LedgerEntryResponse {
+    private UUID transactionId;
+    private String referenceId;
+    private String type;
+    private Integer status;
+    private Long amount;
+    private String currency;
+    private Long balanceBefore;
+    private Long balanceAfter;
+    private Long pendingBefore;
+    private Long pendingAfter;
+    private OffsetDateTime createdAt;
+    private Boolean bucketCredit;
+
+    // A bucket credit's balances are its bucket's, not the account's, so they are left out
+    public LedgerEntryResponse(UUID transactionId, String referenceId, String type, Integer status, Long amount,
+                               String currency, Long balanceBefore, Long balanceAfter, Long pendingBefore,
+                               Long pendingAfter, OffsetDateTime createdAt, Boolean bucketCredit) {
+        boolean bucket = Boolean.TRUE.equals(bucketCredit);
+        this.transactionId = transactionId;
+        this.referenceId = referenceId;
+        this.type = type;
+        this.status = status;
+        this.amount = amount;
+        this.currency = currency;
+        this.balanceBefore = bucket ? null : balanceBefore;
+        this.balanceAfter = bucket ? null : balanceAfter;
+        this.pendingBefore = pendingBefore;
+        this.pendingAfter = pendingAfter;
+        this.createdAt = createdAt;
+        this.bucketCredit = bucket;
+    }
+}
@@ -0,0 +1,14 @@
+package com.ironledger.wallet.dto.Ledger;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class LedgerHistoryResponse {
+    private List<LedgerEntryResponse> items;
+    // Pass back as ?cursor= for the next (older) page; null on the last page
+    private String nextCursor;
+}
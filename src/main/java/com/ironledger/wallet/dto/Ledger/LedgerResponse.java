@@ -14,4 +14,6 @@ public class LedgerResponse {
     private String type;
     private Long amount;
     private OffsetDateTime createdAt;
+    // Set for operations on authorization holds
+    private UUID holdId;
 }
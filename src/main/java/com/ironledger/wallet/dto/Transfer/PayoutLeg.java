@@ -0,0 +1,24 @@
+package com.ironledger.wallet.dto.Transfer;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+public class PayoutLeg {
+    @NotNull(message = "Receiver account is required!")
+    private UUID toAccount;
+
+    @NotNull(message = "Amount is required!")
+    @Positive(message = "Amount must be positive!")
+    @Max(value = 10_000_000_000L, message = "Amount too large")
+    private Long amount;   // minor units
+
+    // Caller's own reference (payslip, order, ...), stored in the transfer's meta
+    @Size(max = 128, message = "Reference must be at most 128 characters")
+    private String reference;
+}
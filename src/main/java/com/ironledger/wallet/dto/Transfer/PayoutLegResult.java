@@ -0,0 +1,37 @@
+package com.ironledger.wallet.dto.Transfer;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PayoutLegResult {
+    public static final String COMPLETED = "COMPLETED";
+    public static final String REJECTED = "REJECTED";
+    // Not attempted because an earlier chunk failed; resubmit the payout with the same Idempotency-Key
+    public static final String NOT_PROCESSED = "NOT_PROCESSED";
+
+    private int index;
+    private UUID toAccount;
+    private long amount;
+    private String status;
+    private UUID transferId;
+    private String referenceId;
+    private String error;
+
+    public static PayoutLegResult completed(int index, PayoutLeg leg, UUID transferId, String referenceId) {
+        return new PayoutLegResult(index, leg.getToAccount(), leg.getAmount(), COMPLETED, transferId, referenceId, null);
+    }
+
+    public static PayoutLegResult rejected(int index, PayoutLeg leg, String error) {
+        return new PayoutLegResult(index, leg.getToAccount(), leg.getAmount(), REJECTED, null, null, error);
+    }
+
+    public static PayoutLegResult notProcessed(int index, PayoutLeg leg, String error) {
+        return new PayoutLegResult(index, leg.getToAccount(), leg.getAmount(), NOT_PROCESSED, null, null, error);
+    }
+}
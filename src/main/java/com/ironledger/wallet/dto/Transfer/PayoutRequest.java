@@ -0,0 +1,29 @@
+package com.ironledger.wallet.dto.Transfer;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Data
+public class PayoutRequest {
+    @NotNull(message = "Sender account is required!")
+    private UUID fromAccount;
+
+    @NotNull(message = "Currency is required!")
+    @Pattern(regexp = "^[A-Z]{3}$", message = "Currency must be a 3-letter ISO code")
+    private String currency;
+
+    // Large files are settled in chunks (ironledger.payouts.chunk-size); see PayoutService
+    @NotEmpty(message = "At least one payout is required!")
+    @Size(max = 100_000, message = "A payout may contain at most 100000 legs")
+    private List<@Valid PayoutLeg> legs;
+
+    private Map<String, Object> metadata;
+}
@@ -0,0 +1,18 @@
+package com.ironledger.wallet.dto.Transfer;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+public class PayoutResponse {
+    private UUID payoutId;
+    private int completed;
+    private int rejected;
+    private int notProcessed;
+    private long totalPaid;
+    private List<PayoutLegResult> legs;
+}
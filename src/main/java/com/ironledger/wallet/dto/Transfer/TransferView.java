@@ -15,4 +15,5 @@ public class TransferView {
     private String transferStatus;
     private OffsetDateTime createdAt;
     private OffsetDateTime completedAt;
+    private String failureReason;
 }
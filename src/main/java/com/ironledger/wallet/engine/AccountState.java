@@ -0,0 +1,60 @@
+package com.ironledger.wallet.engine;
+
+import com.ironledger.wallet.entity.Account;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * In-memory balance of one account, owned by exactly one shard thread.
+ * Tracks the last values known to be in the database so that the shard can detect
+ * rows changed behind its back (by the JPA path, transfers or batch postings).
+ */
+@Getter
+public class AccountState {
+    private final UUID accountId;
+    private final UUID userId;
+    private final String currency;
+    private final boolean active;
+
+    @Setter
+    private long available;
+    @Setter
+    private long pending;
+    // created_at of the account's latest ledger row (Account#stampPosting), null before the first
+    private OffsetDateTime lastPostedAt;
+
+    private long persistedAvailable;
+    private long persistedPending;
+    private OffsetDateTime persistedLastPostedAt;
+
+    public AccountState(UUID accountId, UUID userId, String currency, boolean active, long available, long pending,
+                        OffsetDateTime lastPostedAt) {
+        this.accountId = accountId;
+        this.userId = userId;
+        this.currency = currency;
+        this.active = active;
+        this.available = available;
+        this.pending = pending;
+        this.lastPostedAt = lastPostedAt;
+        this.persistedAvailable = available;
+        this.persistedPending = pending;
+        this.persistedLastPostedAt = lastPostedAt;
+    }
+
+    /**
+     * created_at for the next ledger row of this account, after every earlier one; see Account#stampPosting.
+     */
+    OffsetDateTime stampPosting(OffsetDateTime now) {
+        lastPostedAt = Account.nextPostedAt(lastPostedAt, now);
+        return lastPostedAt;
+    }
+
+    void markPersisted() {
+        this.persistedAvailable = available;
+        this.persistedPending = pending;
+        this.persistedLastPostedAt = lastPostedAt;
+    }
+}
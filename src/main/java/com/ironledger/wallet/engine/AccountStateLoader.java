@@ -0,0 +1,15 @@
+package com.ironledger.wallet.engine;
+
+import java.util.UUID;
+
+@FunctionalInterface
+public interface AccountStateLoader {
+
+    /**
+     * Load the current balance of an account from durable storage.
+     *
+     * @param accountId the account ID
+     * @return the account state, or null if the account does not exist
+     */
+    AccountState load(UUID accountId);
+}
@@ -0,0 +1,287 @@
+package com.ironledger.wallet.engine;
+
+import com.ironledger.wallet.entity.LedgerMeta;
+import com.ironledger.wallet.entity.LedgerTransaction;
+import com.ironledger.wallet.exception.InvalidRequestException;
+import com.ironledger.wallet.exception.ResourceNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-writer balance engine (LMAX-style).
+ *
+ * Accounts are hash-partitioned onto shards. Each shard is one thread that owns the in-memory
+ * balances of its accounts and applies commands strictly in arrival order, so no database
+ * row lock is needed. Commands that arrive while a batch is being persisted queue up and are
+ * applied and persisted together in the next batch; callers are acknowledged only after the
+ * batch containing their command has been committed by the {@link PostingSink}.
+ *
+ * Account rows may still be changed by other code paths (transfers, batch postings). The sink
+ * updates rows conditionally on the last persisted balance and on the account still being active;
+ * on a mismatch the shard drops its cached state, reloads from the database and re-applies the batch once.
+ *
+ * Only plain credits and debits run here; every other operation opens or closes a hold and takes the
+ * locking path.
+ *
+ * A command's idempotency key is recorded by the sink in the batch's transaction, so a posting and
+ * its key commit together. Commands whose key was already used are dropped from the batch.
+ */
+@Slf4j
+public class BalanceEngine {
+
+    private static final ZoneId SG_ZONE = ZoneId.of("Asia/Singapore");
+    private static final int MAX_APPLY_ATTEMPTS = 2;
+
+    private final Shard[] shards;
+
+    public BalanceEngine(int shardCount, int maxBatch, int queueCapacity, int maxCachedAccounts,
+                         AccountStateLoader loader, PostingSink sink) {
+        if (shardCount <= 0) throw new IllegalArgumentException("Shard count must be positive");
+
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, maxBatch, queueCapacity, maxCachedAccounts, loader, sink);
+            shards[i].start();
+        }
+    }
+
+    /**
+     * Queue a command on the shard owning its account.
+     * Blocks the caller while the shard queue is full.
+     */
+    public CompletableFuture<LedgerTransaction> submit(EngineOperation operation, UUID userId, UUID accountId,
+                                                       long amount, String currency, String referenceId,
+                                                       LedgerMeta meta, EngineIdempotencyKey idempotencyKey) {
+        CompletableFuture<LedgerTransaction> result = new CompletableFuture<>();
+        EngineCommand command = new EngineCommand(operation, userId, accountId, amount, currency, referenceId, meta,
+                idempotencyKey, result);
+        shardFor(accountId).enqueue(command);
+        return result;
+    }
+
+    /**
+     * Submit a command and wait for it to be persisted.
+     * Business errors raised on the shard are rethrown unchanged, as is a
+     * {@link DuplicateIdempotencyKeyException} if the command's key was already used.
+     */
+    public LedgerTransaction execute(EngineOperation operation, UUID userId, UUID accountId,
+                                     long amount, String currency, String referenceId,
+                                     LedgerMeta meta, EngineIdempotencyKey idempotencyKey) {
+        try {
+            return submit(operation, userId, accountId, amount, currency, referenceId, meta, idempotencyKey).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Stop accepting work, let every shard drain its queue and wait for the threads to exit.
+     */
+    public void shutdown() {
+        for (Shard shard : shards) shard.running = false;
+        for (Shard shard : shards) {
+            try {
+                shard.thread.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private Shard shardFor(UUID accountId) {
+        return shards[Math.floorMod(accountId.hashCode(), shards.length)];
+    }
+
+    private static final class Shard implements Runnable {
+        private final int maxBatch;
+        private final BlockingQueue<EngineCommand> queue;
+        private final Map<UUID, AccountState> accounts;
+        private final AccountStateLoader loader;
+        private final PostingSink sink;
+        private final Thread thread;
+
+        private volatile boolean running = true;
+
+        Shard(int index, int maxBatch, int queueCapacity, int maxCachedAccounts,
+              AccountStateLoader loader, PostingSink sink) {
+            this.maxBatch = maxBatch;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.loader = loader;
+            this.sink = sink;
+            // LRU: evicting is always safe, since every cached balance is also persisted
+            this.accounts = new LinkedHashMap<>(1024, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<UUID, AccountState> eldest) {
+                    return size() > maxCachedAccounts;
+                }
+            };
+            this.thread = new Thread(this, "balance-engine-shard-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        void start() {
+            thread.start();
+        }
+
+        void enqueue(EngineCommand command) {
+            if (!running) throw new IllegalStateException("Balance engine is shutting down");
+            try {
+                queue.put(command);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while queueing ledger command", e);
+            }
+        }
+
+        @Override
+        public void run() {
+            List<EngineCommand> batch = new ArrayList<>(maxBatch);
+            while (running || !queue.isEmpty()) {
+                try {
+                    EngineCommand first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) continue;
+
+                    batch.add(first);
+                    queue.drainTo(batch, maxBatch - 1);
+                    process(batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    running = false;
+                } catch (RuntimeException e) {
+                    log.error("Balance engine shard failed to process batch", e);
+                    for (EngineCommand command : batch) command.result().completeExceptionally(e);
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+
+        private void process(List<EngineCommand> batch) {
+            List<EngineCommand> commands = new ArrayList<>(batch);
+            List<EngineCommand> duplicates = new ArrayList<>();
+            DuplicateIdempotencyKeyException duplicate = null;
+
+            for (int attempt = 1; ; ) {
+                Map<UUID, AccountState> touched = new LinkedHashMap<>();
+                List<LedgerTransaction> rows = new ArrayList<>(commands.size());
+                List<EngineIdempotencyKey> keys = new ArrayList<>(commands.size());
+                List<EngineCommand> posted = new ArrayList<>(commands.size());
+                Object[] outcomes = new Object[commands.size()];
+
+                for (int i = 0; i < commands.size(); i++) {
+                    try {
+                        LedgerTransaction row = apply(commands.get(i), touched);
+                        rows.add(row);
+                        keys.add(commands.get(i).idempotencyKey());
+                        posted.add(commands.get(i));
+                        outcomes[i] = row;
+                    } catch (RuntimeException e) {
+                        outcomes[i] = e;
+                    }
+                }
+
+                try {
+                    if (!rows.isEmpty()) sink.persist(rows, keys, touched.values());
+                } catch (DuplicateIdempotencyKeyException e) {
+                    // Re-apply without the commands whose key was already used; this always shrinks the batch
+                    touched.keySet().forEach(accounts::remove);
+                    Set<EngineCommand> dropped = Collections.newSetFromMap(new IdentityHashMap<>());
+                    for (int row : e.rows()) dropped.add(posted.get(row));
+                    commands.removeIf(dropped::contains);
+                    duplicates.addAll(dropped);
+                    duplicate = e;
+                    continue;
+                } catch (StaleAccountStateException e) {
+                    touched.keySet().forEach(accounts::remove);
+                    if (++attempt <= MAX_APPLY_ATTEMPTS) {
+                        log.debug("Balance engine reloading stale accounts: {}", e.getMessage());
+                        continue;
+                    }
+                    failAll(batch, e);
+                    return;
+                } catch (RuntimeException e) {
+                    touched.keySet().forEach(accounts::remove);
+                    failAll(batch, e);
+                    return;
+                }
+
+                touched.values().forEach(AccountState::markPersisted);
+                for (int i = 0; i < commands.size(); i++) {
+                    if (outcomes[i] instanceof LedgerTransaction row) {
+                        commands.get(i).result().complete(row);
+                    } else {
+                        commands.get(i).result().completeExceptionally((RuntimeException) outcomes[i]);
+                    }
+                }
+                // Only now: a duplicate of a key in this batch can replay the response just committed
+                for (EngineCommand command : duplicates) command.result().completeExceptionally(duplicate);
+                return;
+            }
+        }
+
+        private void failAll(List<EngineCommand> batch, RuntimeException e) {
+            for (EngineCommand command : batch) command.result().completeExceptionally(e);
+        }
+
+        private LedgerTransaction apply(EngineCommand command, Map<UUID, AccountState> touched) {
+            AccountState account = accounts.get(command.accountId());
+            if (account == null) {
+                account = loader.load(command.accountId());
+                if (account == null) throw new ResourceNotFoundException("Account not found");
+                accounts.put(command.accountId(), account);
+            }
+
+            if (!account.getUserId().equals(command.userId())) {
+                throw new ResourceNotFoundException("Account not found");
+            }
+            if (!account.isActive()) {
+                throw new InvalidRequestException("Account is not active");
+            }
+            if (!account.getCurrency().equals(command.currency())) {
+                throw new InvalidRequestException("Currency mismatch");
+            }
+
+            long amount = command.amount();
+            long availBefore = account.getAvailable();
+            long pendingBefore = account.getPending();
+
+            long signedAmount = switch (command.operation()) {
+                case CREDIT -> amount;
+                case DEBIT -> {
+                    if (availBefore < amount) throw new InvalidRequestException("Insufficient funds");
+                    yield -amount;
+                }
+            };
+            account.setAvailable(availBefore + signedAmount);
+
+            touched.put(account.getAccountId(), account);
+
+            return LedgerTransaction.builder()
+                    .id(UUID.randomUUID())
+                    .accountId(account.getAccountId())
+                    .userId(account.getUserId())
+                    .amount(signedAmount)
+                    .type(command.operation().name())
+                    .status(1)
+                    .referenceId(command.referenceId())
+                    .balanceBefore(availBefore)
+                    .balanceAfter(account.getAvailable())
+                    .pendingBefore(pendingBefore)
+                    .pendingAfter(account.getPending())
+                    .createdAt(account.stampPosting(OffsetDateTime.now(SG_ZONE)))
+                    .meta(command.meta())
+                    .currency(account.getCurrency())
+                    .build();
+        }
+    }
+}
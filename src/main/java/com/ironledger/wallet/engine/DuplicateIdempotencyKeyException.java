@@ -0,0 +1,25 @@
+package com.ironledger.wallet.engine;
+
+import java.util.List;
+
+/**
+ * Thrown by a {@link PostingSink} when the idempotency key of one or more rows was already recorded.
+ * The batch is rolled back; the shard re-applies it without those commands and fails them with this
+ * exception once the rest has been persisted, so the caller can replay the stored response.
+ */
+public class DuplicateIdempotencyKeyException extends RuntimeException {
+
+    private final List<Integer> rows;
+
+    public DuplicateIdempotencyKeyException(List<Integer> rows) {
+        super(rows.size() + " idempotency key(s) already used");
+        this.rows = rows;
+    }
+
+    /**
+     * Indexes, into the persisted rows, of the postings whose key was already used.
+     */
+    public List<Integer> rows() {
+        return rows;
+    }
+}
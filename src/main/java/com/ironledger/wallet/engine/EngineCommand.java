@@ -0,0 +1,27 @@
+package com.ironledger.wallet.engine;
+
+import com.ironledger.wallet.entity.LedgerMeta;
+import com.ironledger.wallet.entity.LedgerTransaction;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A single balance operation queued on a shard.
+ * Request-scoped data (meta, reference ID) is captured on the caller's thread,
+ * because shard threads have no request context.
+ *
+ * @param idempotencyKey recorded with the posting in the sink's transaction; null if the request has none
+ */
+public record EngineCommand(
+        EngineOperation operation,
+        UUID userId,
+        UUID accountId,
+        long amount,
+        String currency,
+        String referenceId,
+        LedgerMeta meta,
+        EngineIdempotencyKey idempotencyKey,
+        CompletableFuture<LedgerTransaction> result
+) {
+}
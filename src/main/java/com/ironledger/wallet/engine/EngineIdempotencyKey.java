@@ -0,0 +1,16 @@
+package com.ironledger.wallet.engine;
+
+import java.util.UUID;
+
+/**
+ * Idempotency key carried by an engine command. The sink records it as completed in the same
+ * transaction as the command's posting, so the posting and its key always commit together.
+ *
+ * @param fingerprint identifies the request the key was first used for
+ */
+public record EngineIdempotencyKey(
+        UUID userId,
+        String key,
+        String fingerprint
+) {
+}
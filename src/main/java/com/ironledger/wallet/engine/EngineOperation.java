@@ -0,0 +1,6 @@
+package com.ironledger.wallet.engine;
+
+public enum EngineOperation {
+    CREDIT,
+    DEBIT
+}
@@ -0,0 +1,72 @@
+package com.ironledger.wallet.engine;
+
+import com.ironledger.wallet.entity.LedgerTransaction;
+import com.ironledger.wallet.repository.AccountBatchRepository;
+import com.ironledger.wallet.repository.AccountBatchRepository.BalanceChange;
+import com.ironledger.wallet.repository.IdempotencyKeyBatchRepository;
+import com.ironledger.wallet.repository.IdempotencyKeyBatchRepository.CompletedKey;
+import com.ironledger.wallet.repository.LedgerBatchRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Persists a shard batch in one database transaction:
+ * one batched INSERT for the idempotency keys, one batched compare-and-set UPDATE for the touched accounts
+ * and one batched INSERT for the ledger rows.
+ */
+@RequiredArgsConstructor
+public class JdbcPostingSink implements PostingSink {
+
+    // PostgreSQL orders UUIDs unsigned, byte by byte, unlike UUID#compareTo
+    private static final Comparator<BalanceChange> ACCOUNT_ID_ORDER =
+            Comparator.comparing((BalanceChange c) -> c.accountId().getMostSignificantBits(), Long::compareUnsigned)
+                    .thenComparing(c -> c.accountId().getLeastSignificantBits(), Long::compareUnsigned);
+
+    private final TransactionTemplate transactionTemplate;
+    private final AccountBatchRepository accountBatchRepository;
+    private final LedgerBatchRepository ledgerBatchRepository;
+    private final IdempotencyKeyBatchRepository idempotencyKeyBatchRepository;
+
+    @Override
+    public void persist(List<LedgerTransaction> rows, List<EngineIdempotencyKey> keys, Collection<AccountState> touched) {
+        // Accounts in ascending ID order, the order every locking path takes its row locks in
+        // (ORDER BY id), so a shard batch cannot deadlock with a transfer, payout or batch posting
+        List<BalanceChange> changes = touched.stream()
+                .map(a -> new BalanceChange(a.getAccountId(),
+                        a.getPersistedAvailable(), a.getPersistedPending(), a.getPersistedLastPostedAt(),
+                        a.getAvailable(), a.getPending(), a.getLastPostedAt()))
+                .sorted(ACCOUNT_ID_ORDER)
+                .toList();
+
+        // Keys in a fixed order, so that two shards inserting the same keys cannot deadlock
+        List<Integer> keyed = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            if (keys.get(i) != null) keyed.add(i);
+        }
+        keyed.sort(Comparator.comparing((Integer i) -> keys.get(i).userId()).thenComparing(i -> keys.get(i).key()));
+        List<CompletedKey> completed = keyed.stream()
+                .map(i -> new CompletedKey(keys.get(i).userId(), keys.get(i).key(), keys.get(i).fingerprint(), rows.get(i)))
+                .toList();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Integer> existing = idempotencyKeyBatchRepository.insertCompleted(completed);
+            if (!existing.isEmpty()) {
+                // Rolls back the whole batch
+                throw new DuplicateIdempotencyKeyException(existing.stream().map(keyed::get).toList());
+            }
+
+            List<BalanceChange> stale = accountBatchRepository.compareAndSetBalances(changes);
+            if (!stale.isEmpty()) {
+                // Rolls back the whole batch
+                // Also a deactivated account: reloading it rejects its postings
+                throw new StaleAccountStateException(stale.size() + " account(s) changed outside the balance engine");
+            }
+            ledgerBatchRepository.insertAll(rows);
+        });
+    }
+}
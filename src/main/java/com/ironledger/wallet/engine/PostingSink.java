@@ -0,0 +1,22 @@
+package com.ironledger.wallet.engine;
+
+import com.ironledger.wallet.entity.LedgerTransaction;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Durable destination for the results of one shard batch.
+ * Implementations must write everything atomically and throw
+ * {@link StaleAccountStateException} if any account no longer holds the balance the shard last persisted
+ * or is no longer active,
+ * or {@link DuplicateIdempotencyKeyException} if an idempotency key was already recorded.
+ */
+@FunctionalInterface
+public interface PostingSink {
+
+    /**
+     * @param keys idempotency key of each row, by index; null entries for rows without one
+     */
+    void persist(List<LedgerTransaction> rows, List<EngineIdempotencyKey> keys, Collection<AccountState> touched);
+}
@@ -0,0 +1,11 @@
+package com.ironledger.wallet.engine;
+
+/**
+ * Thrown by a {@link PostingSink} when an account row was modified outside the engine
+ * since the shard last persisted it. The shard reloads the account and re-applies the batch.
+ */
+public class StaleAccountStateException extends RuntimeException {
+    public StaleAccountStateException(String message) {
+        super(message);
+    }
+}
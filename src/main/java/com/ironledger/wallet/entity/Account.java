@@ -14,6 +14,8 @@ import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.UUID;
 
 @Entity
@@ -23,6 +25,7 @@ import java.util.UUID;
                 @Index(name = "idx_account_user_id", columnList = "user_id"),
                 @Index(name = "idx_account_currency", columnList = "currency"),
                 @Index(name = "idx_account_status", columnList = "status"),
+                @Index(name = "idx_account_stripe_count", columnList = "stripe_count"),
         },
         uniqueConstraints = {
                 @UniqueConstraint(name = "unique_user_currency", columnNames = {"user_id", "currency"})
@@ -71,6 +74,21 @@ public class Account {
     @Builder.Default
     private Long balancePending = 0L;
 
+    // > 1 when part of balance_available is spread over core_account_bucket rows
+    @Column(name = "stripe_count", nullable = false, columnDefinition = "integer default 0")
+    @Builder.Default
+    private Integer stripeCount = 0;
+
+    // Bumped on every balance change; optimistic posting uses it as a compare-and-set guard
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    @Builder.Default
+    private Long version = 0L;
+
+    // created_at of the account's latest ledger row written under its lock; see stampPosting
+    @Column(name = "last_posted_at")
+    private OffsetDateTime lastPostedAt;
+
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -93,6 +111,7 @@ public class Account {
         }
         if (balanceAvailable == null) balanceAvailable = 0L;
         if (balancePending == null) balancePending = 0L;
+        if (stripeCount == null) stripeCount = 0;
     }
 
     // ---------------------------------------------------------------------
@@ -111,6 +130,37 @@ public class Account {
         return status != null && status == CLOSED;
     }
 
+    public boolean isStriped() {
+        return stripeCount != null && stripeCount > 1;
+    }
+
+    // ---------------------------------------------------------------------
+    // LEDGER ORDER
+    // ---------------------------------------------------------------------
+
+    /**
+     * created_at for the next ledger row of this account, which the caller holds locked (or version-checks
+     * on commit): {@code now}, or one microsecond after the account's previous row if the clock has not
+     * moved past it. The rows of an account are thus stamped strictly increasing in the order they are
+     * posted, even within one microsecond or across a clock step back, so (created_at, id) is posting order.
+     */
+    public OffsetDateTime stampPosting(OffsetDateTime now) {
+        lastPostedAt = nextPostedAt(lastPostedAt, now);
+        return lastPostedAt;
+    }
+
+    /**
+     * {@code now} at the database's microsecond precision, or one microsecond after {@code lastPostedAt}
+     * (null for none) if that is not earlier.
+     */
+    public static OffsetDateTime nextPostedAt(OffsetDateTime lastPostedAt, OffsetDateTime now) {
+        OffsetDateTime at = now.truncatedTo(ChronoUnit.MICROS);
+        if (lastPostedAt != null && !at.isAfter(lastPostedAt)) {
+            at = lastPostedAt.plus(1, ChronoUnit.MICROS).withOffsetSameInstant(now.getOffset());
+        }
+        return at;
+    }
+
     // ---------------------------------------------------------------------
     // LEDGER GUARDS (NO ACTUAL BALANCE OPERATIONS IN ENTITY)
     // ---------------------------------------------------------------------
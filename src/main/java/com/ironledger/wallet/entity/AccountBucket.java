@@ -0,0 +1,43 @@
+package com.ironledger.wallet.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One stripe of a striped account's available balance.
+ * Inbound credits land on a random bucket so they only lock that bucket row, not core_account.
+ * The logical available balance is core_account.balance_available plus the sum of all buckets.
+ */
+@Entity
+@Table(name = "core_account_bucket",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "unique_account_bucket", columnNames = {"account_id", "bucket_no"})
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccountBucket {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "account_id", nullable = false)
+    private UUID accountId;
+
+    @Column(name = "bucket_no", nullable = false)
+    private Integer bucketNo;
+
+    @Column(name = "balance_available", nullable = false)
+    @Builder.Default
+    private Long balanceAvailable = 0L;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
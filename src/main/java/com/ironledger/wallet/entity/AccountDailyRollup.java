@@ -0,0 +1,71 @@
+package com.ironledger.wallet.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Daily totals of one account, maintained from core_ledger_transaction by AccountRollupService.
+ *
+ * Days are Asia/Singapore calendar days. Credits and debits are the positive and negative changes
+ * to the available balance (the same rules as ledger replay), so a pending debit counts as a debit
+ * when it is placed and a release as a credit; captures only move pending funds and count only
+ * towards the transaction count. The closing balances are those of the day's last ledger row that is
+ * not a striped bucket credit, which records the bucket's balance, not the account's; they are null when
+ * the day only has bucket credits. For a striped account the closing balance is therefore the main row's
+ * balance and excludes the funds held in its buckets.
+ */
+@Entity
+@Table(name = "core_account_daily_rollup")
+@IdClass(AccountDailyRollup.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccountDailyRollup {
+
+    @Id
+    @Column(name = "account_id", nullable = false)
+    private UUID accountId;
+
+    @Id
+    @Column(nullable = false)
+    private LocalDate day;
+
+    @Column(name = "credit_total", nullable = false)
+    private Long creditTotal;
+
+    @Column(name = "debit_total", nullable = false)
+    private Long debitTotal;
+
+    @Column(name = "txn_count", nullable = false)
+    private Long txnCount;
+
+    @Column(name = "closing_balance")
+    private Long closingBalance;
+
+    @Column(name = "closing_pending")
+    private Long closingPending;
+
+    // created_at of the last ledger row included
+    @Column(name = "last_created_at", nullable = false)
+    private OffsetDateTime lastCreatedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private UUID accountId;
+        private LocalDate day;
+    }
+}
@@ -0,0 +1,37 @@
+package com.ironledger.wallet.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+
+/**
+ * Progress of AccountRollupService through the ledger; a single row (id 1).
+ *
+ * Updated in the same transaction as the rollups it describes, under that row's lock, so rows are
+ * added exactly once however many nodes run the job and across restarts.
+ */
+@Entity
+@Table(name = "core_account_rollup_state")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccountRollupState {
+
+    @Id
+    private Short id;
+
+    // Ledger rows created up to and including this instant have been added to the rollups
+    @Column(name = "included_through", nullable = false)
+    private OffsetDateTime includedThrough;
+
+    // Days up to and including this one have been recomputed from all their rows
+    @Column(name = "recomputed_through", nullable = false)
+    private LocalDate recomputedThrough;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+}
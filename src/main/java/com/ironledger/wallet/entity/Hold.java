@@ -0,0 +1,95 @@
+package com.ironledger.wallet.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Authorization hold: funds moved from balance_available to balance_pending by a PENDING_DEBIT,
+ * waiting to be captured or released. Ledger rows of a hold carry its ID in external_ref.
+ *
+ * A hold can be captured in several parts until nothing remains; releasing it returns the rest.
+ *
+ * An active hold that reaches expires_at is released automatically (HoldService).
+ */
+@Entity
+@Table(name = "core_hold",
+        indexes = {
+                @Index(name = "idx_hold_account_id", columnList = "account_id"),
+                // Loading the active holds into the expiry wheel on startup
+                @Index(name = "idx_hold_status_id", columnList = "status, id")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Hold {
+
+    // ---------------------------------------------------------------------
+    // STATUS CONSTANTS
+    // ---------------------------------------------------------------------
+    public static final int ACTIVE = 0;
+    public static final int CAPTURED = 1;
+    public static final int RELEASED = 2;
+    public static final int EXPIRED = 3;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "account_id", nullable = false)
+    private UUID accountId;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(nullable = false, length = 3)
+    private String currency;
+
+    // Amount originally held
+    @Column(nullable = false)
+    private Long amount;
+
+    // Still held in balance_pending; 0 once the hold is closed
+    @Column(nullable = false)
+    private Long remaining;
+
+    // Sum of the captures so far; a hold can be captured in several parts
+    @Column(nullable = false)
+    @Builder.Default
+    private Long captured = 0L;
+
+    @Column(nullable = false)
+    private Integer status;
+
+    // Reference ID of the PENDING_DEBIT that opened the hold
+    @Column(name = "reference_id", nullable = false)
+    private String referenceId;
+
+    @Column(name = "expires_at", nullable = false)
+    private OffsetDateTime expiresAt;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+
+    public boolean isActive() {
+        return status != null && status == ACTIVE;
+    }
+
+    public static String statusName(int status) {
+        return switch (status) {
+            case ACTIVE -> "ACTIVE";
+            case CAPTURED -> "CAPTURED";
+            case RELEASED -> "RELEASED";
+            case EXPIRED -> "EXPIRED";
+            default -> "UNKNOWN";
+        };
+    }
+}
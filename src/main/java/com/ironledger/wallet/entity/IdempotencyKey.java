@@ -0,0 +1,66 @@
+package com.ironledger.wallet.entity;
+
+import com.ironledger.wallet.dto.Ledger.BatchPostingResponse;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "core_idempotency_key",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "unique_user_idempotency_key", columnNames = {"user_id", "idempotency_key"})
+        },
+        indexes = {
+                @Index(name = "idx_idempotency_created_at", columnList = "created_at")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyKey {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "idempotency_key", nullable = false, length = 128)
+    private String idempotencyKey;
+
+    // operation|account|amount|currency of the first request that used this key (BATCH|sha-256 for batches)
+    @Column(nullable = false)
+    private String fingerprint;
+
+    // Stored LedgerResponse, filled in once the posting has been written
+    @Column(name = "transaction_id")
+    private UUID transactionId;
+
+    @Column(name = "reference_id")
+    private String referenceId;
+
+    private String type;
+
+    private Long amount;
+
+    @Column(name = "transaction_created_at")
+    private OffsetDateTime transactionCreatedAt;
+
+    // Stored response of a batch posting instead, which has no single transaction
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "batch_response", columnDefinition = "jsonb")
+    private BatchPostingResponse batchResponse;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+    public boolean isCompleted() {
+        return transactionId != null || batchResponse != null;
+    }
+}
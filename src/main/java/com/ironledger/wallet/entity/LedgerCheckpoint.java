@@ -0,0 +1,56 @@
+package com.ironledger.wallet.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Balance of an account as implied by its ledger rows up to a position.
+ * The position is the (created_at, id) of the last ledger row covered, in the ledger's natural order.
+ * Rebuilding an account only needs the latest checkpoint plus the rows after it.
+ */
+@Entity
+@Table(name = "core_ledger_checkpoint",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "unique_checkpoint_account_sequence", columnNames = {"account_id", "sequence"})
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LedgerCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "account_id", nullable = false)
+    private UUID accountId;
+
+    // 1, 2, 3, ... per account
+    @Column(nullable = false)
+    private Long sequence;
+
+    @Column(name = "last_created_at", nullable = false)
+    private OffsetDateTime lastCreatedAt;
+
+    @Column(name = "last_ledger_id", nullable = false)
+    private UUID lastLedgerId;
+
+    @Column(name = "balance_available", nullable = false)
+    private Long balanceAvailable;
+
+    @Column(name = "balance_pending", nullable = false)
+    private Long balancePending;
+
+    // Ledger rows covered since the account was opened
+    @Column(name = "row_count", nullable = false)
+    private Long rowCount;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+}
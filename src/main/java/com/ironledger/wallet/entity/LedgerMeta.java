@@ -0,0 +1,29 @@
+package com.ironledger.wallet.entity;
+
+/**
+ * Request metadata stored with a ledger row (core_ledger_transaction.meta).
+ *
+ * Only what no column already records: the action is the row's type, the reference ID and
+ * timestamp have their own columns, and flags that queries filter on (bucket_credit) are columns too.
+ * Serialized by {@link com.ironledger.wallet.utils.LedgerMetaCodec}.
+ */
+public record LedgerMeta(String ipAddress, String userAgent) {
+
+    public static final int MAX_USER_AGENT_LENGTH = 256;
+
+    public LedgerMeta {
+        if (userAgent != null && userAgent.length() > MAX_USER_AGENT_LENGTH) {
+            // Never split a surrogate pair: a lone high surrogate is not valid in jsonb
+            int end = Character.isHighSurrogate(userAgent.charAt(MAX_USER_AGENT_LENGTH - 1))
+                    ? MAX_USER_AGENT_LENGTH - 1 : MAX_USER_AGENT_LENGTH;
+            userAgent = userAgent.substring(0, end);
+        }
+    }
+
+    /**
+     * @return the metadata, or null when there is nothing to record (no row-level jsonb at all)
+     */
+    public static LedgerMeta of(String ipAddress, String userAgent) {
+        return ipAddress == null && userAgent == null ? null : new LedgerMeta(ipAddress, userAgent);
+    }
+}
@@ -0,0 +1,19 @@
+package com.ironledger.wallet.entity;
+
+import com.ironledger.wallet.utils.LedgerMetaCodec;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+@Converter
+public class LedgerMetaConverter implements AttributeConverter<LedgerMeta, String> {
+
+    @Override
+    public String convertToDatabaseColumn(LedgerMeta meta) {
+        return LedgerMetaCodec.encode(meta);
+    }
+
+    @Override
+    public LedgerMeta convertToEntityAttribute(String json) {
+        return LedgerMetaCodec.decode(json);
+    }
+}
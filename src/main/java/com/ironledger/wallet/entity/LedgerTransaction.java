@@ -2,21 +2,25 @@ package com.ironledger.wallet.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
-import org.hibernate.annotations.JdbcTypeCode;
-import org.hibernate.annotations.Type;
-import org.hibernate.type.SqlTypes;
+import org.hibernate.annotations.ColumnTransformer;
 
 import java.time.OffsetDateTime;
-import java.util.Map;
 import java.util.UUID;
 
+// Range-partitioned by month on created_at (db/ledger_partitioning.sql, LedgerPartitionManager);
+// the database primary key is (id, created_at)
 @Entity
 @Table(name = "core_ledger_transaction",
         indexes = {
-                @Index(name = "idx_ledger_account_id", columnList = "account_id"),
+                // Per-account replay, checkpoints and history scans in (created_at, id) order
+                @Index(name = "idx_ledger_account_created_id", columnList = "account_id, created_at, id"),
                 @Index(name = "idx_ledger_user_id", columnList = "user_id"),
-                @Index(name = "idx_ledger_reference_id", columnList = "reference_id"),
                 @Index(name = "idx_ledger_created_at", columnList = "created_at")
+        },
+        uniqueConstraints = {
+                // A reference ID is shared by the legs of one operation, never by two rows of the same type.
+                // Once partitioned, enforced through core_ledger_reference (db/ledger_partitioning.sql).
+                @UniqueConstraint(name = "unique_ledger_reference_type", columnNames = {"reference_id", "type"})
         }
 )
 @Getter
@@ -66,10 +70,17 @@ public class LedgerTransaction {
     @Column(name = "external_ref")
     private String externalRef;
 
-    @JdbcTypeCode(SqlTypes.JSON)
+    // Striped credit: the balances are the bucket's, not the account's (db/ledger_meta.sql)
+    @Column(name = "bucket_credit", nullable = false)
+    private boolean bucketCredit;
+
+    @Convert(converter = LedgerMetaConverter.class)
+    @ColumnTransformer(write = "CAST(? AS jsonb)")
     @Column(columnDefinition = "jsonb")
-    private Map<String, Object> meta;
+    private LedgerMeta meta;
 
+    // Strictly increasing per account in posting order for rows written under the account's lock
+    // (Account#stampPosting); bucket credits take the current time
     @Column(name = "created_at", nullable = false)
     private OffsetDateTime createdAt;
 }
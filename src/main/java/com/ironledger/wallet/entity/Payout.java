@@ -0,0 +1,42 @@
+package com.ironledger.wallet.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * A payout request, claimed under its client's Idempotency-Key before any leg is paid.
+ * A retry with the same key finds this row and resumes after the chunks already settled
+ * (core_payout_chunk) instead of paying again.
+ */
+@Entity
+@Table(name = "core_payout",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "unique_user_payout_key", columnNames = {"user_id", "idempotency_key"})
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Payout {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "idempotency_key", nullable = false, length = 128)
+    private String idempotencyKey;
+
+    // SHA-256 of the sender, currency and legs of the first request that used this key
+    @Column(nullable = false)
+    private String fingerprint;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+}
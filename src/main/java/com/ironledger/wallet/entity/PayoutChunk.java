@@ -0,0 +1,54 @@
+package com.ironledger.wallet.entity;
+
+import com.ironledger.wallet.dto.Transfer.PayoutLegResult;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Outcome of one settled chunk of a payout, written in the chunk's own transaction.
+ * Only chunks that committed have a row; a retry settles the others.
+ */
+@Entity
+@Table(name = "core_payout_chunk")
+@IdClass(PayoutChunk.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PayoutChunk {
+
+    @Id
+    @Column(name = "payout_id", nullable = false)
+    private UUID payoutId;
+
+    // Index of the chunk's first leg in the request
+    @Id
+    @Column(name = "first_leg", nullable = false)
+    private Integer firstLeg;
+
+    // COMPLETED and REJECTED results of the chunk's legs, in request order
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(nullable = false, columnDefinition = "jsonb")
+    private List<PayoutLegResult> results;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private UUID payoutId;
+        private Integer firstLeg;
+    }
+}
@@ -0,0 +1,66 @@
+package com.ironledger.wallet.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * A mismatch found by reconciliation: a break in an account's ledger chain, or a stored balance
+ * that differs from the one its ledger implies.
+ */
+@Entity
+@Table(name = "core_reconciliation_discrepancy",
+        indexes = {
+                @Index(name = "idx_reconciliation_discrepancy_run_id", columnList = "run_id"),
+                @Index(name = "idx_reconciliation_discrepancy_account_id", columnList = "account_id")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReconciliationDiscrepancy {
+
+    // ---------------------------------------------------------------------
+    // KINDS
+    // ---------------------------------------------------------------------
+    // balance_before / pending_before differs from the previous row's balance_after / pending_after
+    public static final String CHAIN_AVAILABLE = "CHAIN_AVAILABLE";
+    public static final String CHAIN_PENDING = "CHAIN_PENDING";
+    // core_account differs from the last ledger row, or from the balance rebuilt from the ledger
+    public static final String BALANCE_AVAILABLE = "BALANCE_AVAILABLE";
+    public static final String BALANCE_PENDING = "BALANCE_PENDING";
+    // Ledger rows whose type has no replay rule
+    public static final String UNKNOWN_ROWS = "UNKNOWN_ROWS";
+    // The account could not be checked (its batch failed); counted in the run's failed_accounts
+    public static final String CHECK_FAILED = "CHECK_FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "run_id", nullable = false)
+    private UUID runId;
+
+    @Column(name = "account_id", nullable = false)
+    private UUID accountId;
+
+    // The offending ledger row, for chain breaks
+    @Column(name = "ledger_id")
+    private UUID ledgerId;
+
+    @Column(nullable = false, length = 32)
+    private String kind;
+
+    @Column(nullable = false)
+    private Long expected;
+
+    @Column(nullable = false)
+    private Long actual;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+}
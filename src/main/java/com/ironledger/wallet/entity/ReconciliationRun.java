@@ -0,0 +1,70 @@
+package com.ironledger.wallet.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * One pass of the ledger/balance reconciliation and its totals.
+ * The discrepancies it found are in core_reconciliation_discrepancy.
+ */
+@Entity
+@Table(name = "core_reconciliation_run",
+        indexes = {
+                @Index(name = "idx_reconciliation_run_mode_started_at", columnList = "mode, started_at")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReconciliationRun {
+
+    // ---------------------------------------------------------------------
+    // STATUS CONSTANTS
+    // ---------------------------------------------------------------------
+    public static final int RUNNING = 0;
+    public static final int COMPLETED = 1;
+    public static final int FAILED = -1;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    // FULL or INCREMENTAL
+    @Column(nullable = false, length = 16)
+    private String mode;
+
+    @Column(nullable = false)
+    private Integer status;
+
+    @Column(name = "accounts_checked", nullable = false)
+    @Builder.Default
+    private Long accountsChecked = 0L;
+
+    @Column(name = "rows_checked", nullable = false)
+    @Builder.Default
+    private Long rowsChecked = 0L;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long discrepancies = 0L;
+
+    // Accounts whose check failed; each has a CHECK_FAILED discrepancy
+    @Column(name = "failed_accounts")
+    @Builder.Default
+    private Long failedAccounts = 0L;
+
+    // INCREMENTAL only: ledger rows created up to this instant have been checked
+    @Column(name = "watermark")
+    private OffsetDateTime watermark;
+
+    @Column(name = "started_at", nullable = false)
+    private OffsetDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private OffsetDateTime finishedAt;
+}
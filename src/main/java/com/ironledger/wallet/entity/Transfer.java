@@ -51,4 +51,8 @@ public class Transfer {
 
     @Column(name="original_transfer_id")
     private UUID originalTransferId;
+
+    // Why an asynchronous transfer ended FAILED
+    @Column(name = "failure_reason")
+    private String failureReason;
 }
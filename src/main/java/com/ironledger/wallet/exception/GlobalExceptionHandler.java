@@ -18,6 +18,8 @@ import java.util.Objects;
  *
  * - {@code ResourceNotFoundException}: Thrown when the requested resource cannot be found.
  *   Results in a 404 Not Found response.
+ * - {@code ServiceUnavailableException}: Thrown when a request cannot be queued because the server is saturated.
+ *   Results in a 503 Service Unavailable response.
  * - {@code MethodArgumentNotValidException}: Thrown when validation for method arguments fails.
  *   Results in a 400 Bad Request response with details about validation errors.
  * - {@code Exception}: A generic exception handler for all other unhandled exceptions.
@@ -77,6 +79,17 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.LOCKED);
     }
 
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ApiErrorResponse> handleUnavailable(ServiceUnavailableException ex, HttpServletRequest request) {
+        ApiErrorResponse error = new ApiErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Service Unavailable",
+                ex.getMessage(),
+                request.getRequestURI()
+        );
+        return new ResponseEntity<>(error, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ApiErrorResponse> handleValidation(MethodArgumentNotValidException ex, HttpServletRequest request) {
         String errorMessage = Objects.requireNonNull(ex.getBindingResult().getFieldError()).getDefaultMessage();
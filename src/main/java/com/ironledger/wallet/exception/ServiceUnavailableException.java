@@ -0,0 +1,13 @@
+package com.ironledger.wallet.exception;
+
+/**
+ * Exception thrown when a request cannot be queued because the server is saturated.
+ *
+ * The global exception handler will catch this and return an HTTP 503 Service Unavailable response;
+ * the client may retry later.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
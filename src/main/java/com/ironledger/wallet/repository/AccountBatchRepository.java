@@ -0,0 +1,66 @@
+package com.ironledger.wallet.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * JDBC batch writer for account balances.
+ * Used by write paths that keep balances outside the JPA persistence context.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AccountBatchRepository {
+
+    private static final String COMPARE_AND_SET_SQL =
+            "UPDATE core_account SET balance_available = ?, balance_pending = ?, last_posted_at = ?, " +
+            "version = version + 1, updated_at = ? " +
+            "WHERE id = ? AND status = 1 AND balance_available = ? AND balance_pending = ? " +
+            "AND last_posted_at IS NOT DISTINCT FROM ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * A balance change expected to apply on top of a known previous balance and latest posting time
+     * (core_account.last_posted_at).
+     */
+    public record BalanceChange(UUID accountId,
+                                long expectedAvailable, long expectedPending, OffsetDateTime expectedLastPostedAt,
+                                long newAvailable, long newPending, OffsetDateTime newLastPostedAt) {
+    }
+
+    /**
+     * Apply all balance changes in one JDBC batch.
+     * Each row is only updated if the account is still active and holds the expected balance and latest
+     * posting time.
+     *
+     * @return the changes that did not apply because the row had been modified or deactivated concurrently
+     */
+    public List<BalanceChange> compareAndSetBalances(List<BalanceChange> changes) {
+        if (changes.isEmpty()) return List.of();
+
+        LocalDateTime now = LocalDateTime.now();
+        int[][] counts = jdbcTemplate.batchUpdate(COMPARE_AND_SET_SQL, changes, changes.size(), (ps, change) -> {
+            ps.setLong(1, change.newAvailable());
+            ps.setLong(2, change.newPending());
+            ps.setObject(3, change.newLastPostedAt(), Types.TIMESTAMP_WITH_TIMEZONE);
+            ps.setObject(4, now);
+            ps.setObject(5, change.accountId());
+            ps.setLong(6, change.expectedAvailable());
+            ps.setLong(7, change.expectedPending());
+            ps.setObject(8, change.expectedLastPostedAt(), Types.TIMESTAMP_WITH_TIMEZONE);
+        });
+
+        return IntStream.range(0, changes.size())
+                .filter(i -> counts[0][i] == 0)
+                .mapToObj(changes::get)
+                .toList();
+    }
+}
@@ -0,0 +1,93 @@
+package com.ironledger.wallet.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Balance operations on core_account_bucket (striped sub-balances).
+ * Written with JDBC because every operation needs UPDATE ... RETURNING.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AccountBucketRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    /**
+     * Result of crediting a bucket: the bucket balance around the credit and the
+     * account's pending balance, read without locking core_account.
+     */
+    public record BucketCredit(long bucketBefore, long bucketAfter, long accountPending) {
+    }
+
+    /**
+     * Add an amount to one bucket of an active account. Only the bucket row is locked.
+     *
+     * @return the credit result, or empty if the bucket does not exist or the account is not active
+     */
+    public Optional<BucketCredit> credit(UUID accountId, int bucketNo, long amount) {
+        List<BucketCredit> rows = jdbcTemplate.query(
+                "UPDATE core_account_bucket b SET balance_available = b.balance_available + ?, updated_at = ? " +
+                "FROM core_account a " +
+                "WHERE b.account_id = ? AND b.bucket_no = ? AND a.id = b.account_id AND a.status = 1 " +
+                "RETURNING b.balance_available, a.balance_pending",
+                (rs, i) -> new BucketCredit(rs.getLong(1) - amount, rs.getLong(1), rs.getLong(2)),
+                amount, LocalDateTime.now(), accountId, bucketNo);
+        return rows.stream().findFirst();
+    }
+
+    /**
+     * Move every bucket balance to zero, locking the buckets in bucket order.
+     * The caller must hold the core_account row lock and add the result to balance_available.
+     *
+     * @return the total amount drained from the buckets
+     */
+    public long drain(UUID accountId) {
+        List<Long> drained = jdbcTemplate.queryForList(
+                "UPDATE core_account_bucket b SET balance_available = 0, updated_at = ? " +
+                "FROM (SELECT id, balance_available AS drained FROM core_account_bucket " +
+                "      WHERE account_id = ? ORDER BY bucket_no FOR UPDATE) d " +
+                "WHERE b.id = d.id RETURNING d.drained",
+                Long.class, LocalDateTime.now(), accountId);
+        return drained.stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * Sum of bucket balances per account, for accounts that have buckets.
+     */
+    public Map<UUID, Long> totals(Collection<UUID> accountIds) {
+        if (accountIds.isEmpty()) return Map.of();
+
+        Map<UUID, Long> totals = new HashMap<>();
+        namedJdbcTemplate.query(
+                "SELECT account_id, SUM(balance_available) FROM core_account_bucket " +
+                "WHERE account_id IN (:ids) GROUP BY account_id",
+                new MapSqlParameterSource("ids", accountIds),
+                rs -> {
+                    totals.put(rs.getObject(1, UUID.class), rs.getLong(2));
+                });
+        return totals;
+    }
+
+    public void create(UUID accountId, int count) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> args = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) args.add(new Object[]{UUID.randomUUID(), accountId, i, now});
+
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO core_account_bucket (id, account_id, bucket_no, balance_available, updated_at) " +
+                "VALUES (?, ?, ?, 0, ?) ON CONFLICT (account_id, bucket_no) DO NOTHING",
+                args);
+    }
+
+    public void deleteAll(UUID accountId) {
+        jdbcTemplate.update("DELETE FROM core_account_bucket WHERE account_id = ?", accountId);
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -32,6 +33,30 @@ public interface AccountRepository extends JpaRepository<Account, UUID> {
     @Query("SELECT a FROM Account a WHERE a.id = :id")
     Optional<Account> findByIdForUpdate(@Param("id") UUID id);
 
+    /**
+     * Lock a set of accounts with a pessimistic write lock in a single query.
+     * Rows are locked in ascending ID order, so concurrent callers locking overlapping
+     * sets always acquire the locks in the same order.
+     *
+     * @param ids the account IDs to lock
+     * @return the locked accounts that exist, ordered by ID
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id IN :ids ORDER BY a.id")
+    List<Account> findAllByIdForUpdate(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Like {@link #findAllByIdForUpdate}, but only locks the accounts owned by the given user, so IDs
+     * supplied by a caller never lock someone else's account.
+     *
+     * @param ids    the account IDs to lock
+     * @param userId the owner
+     * @return the locked accounts that exist and belong to the user, ordered by ID
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id IN :ids AND a.userId = :userId ORDER BY a.id")
+    List<Account> findAllByIdAndUserIdForUpdate(@Param("ids") Collection<UUID> ids, @Param("userId") UUID userId);
+
     /**
      * Find all accounts for a specific user.
      *
@@ -113,13 +138,22 @@ public interface AccountRepository extends JpaRepository<Account, UUID> {
                                               @Param("status") Integer status,
                                               Pageable pageable);
 
+    /**
+     * Find accounts whose available balance is striped over more than the given number of buckets.
+     *
+     * @param stripeCount the exclusive lower bound on the stripe count
+     * @return list of striped accounts
+     */
+    List<Account> findByStripeCountGreaterThan(Integer stripeCount);
+
     /**
      * Find all accounts for a user with pessimistic lock for batch updates.
+     * Rows are locked in ascending ID order, like {@link #findAllByIdForUpdate}.
      *
      * @param userId the user ID
      * @return list of locked accounts
      */
     @Lock(LockModeType.PESSIMISTIC_WRITE)
-    @Query("SELECT a FROM Account a WHERE a.userId = :userId")
+    @Query("SELECT a FROM Account a WHERE a.userId = :userId ORDER BY a.id")
     List<Account> findByUserIdForUpdate(@Param("userId") UUID userId);
 }
\ No newline at end of file
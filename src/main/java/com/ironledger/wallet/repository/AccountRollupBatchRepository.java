@@ -0,0 +1,146 @@
+package com.ironledger.wallet.repository;
+
+import com.ironledger.wallet.entity.AccountRollupState;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.Optional;
+
+/**
+ * Set-based maintenance of core_account_daily_rollup from core_ledger_transaction,
+ * and of the progress row (core_account_rollup_state) written in the same transactions.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AccountRollupBatchRepository {
+
+    private static final ZoneId SG_ZONE = ZoneId.of("Asia/Singapore");
+    private static final short STATE_ID = 1;
+
+    // Per (account, day) totals of the ledger rows in a time range; the %s are the range and the conflict action.
+    // The closing balances come from the newest row that is not a bucket credit: a bucket credit records its
+    // bucket's balance, not the account's. They are NULL when every row of the range is a bucket credit.
+    private static final String AGGREGATE_SQL =
+            "INSERT INTO core_account_daily_rollup AS r (account_id, day, credit_total, debit_total, txn_count, " +
+            "  closing_balance, closing_pending, last_created_at, updated_at) " +
+            "SELECT account_id, day, credit, debit, cnt, closing[1], closing_pending[1], last_at, now() FROM (" +
+            "  SELECT account_id, (created_at AT TIME ZONE 'Asia/Singapore')::date AS day, " +
+            "    COALESCE(SUM(amount) FILTER (WHERE type IN " + LedgerReplayRepository.AVAILABLE_TYPES_SQL + " AND amount > 0), 0) AS credit, " +
+            "    COALESCE(-SUM(amount) FILTER (WHERE type IN " + LedgerReplayRepository.AVAILABLE_TYPES_SQL + " AND amount < 0), 0) AS debit, " +
+            "    COUNT(*) AS cnt, " +
+            "    array_agg(balance_after ORDER BY created_at DESC, id DESC) FILTER (WHERE NOT bucket_credit) AS closing, " +
+            "    array_agg(pending_after ORDER BY created_at DESC, id DESC) FILTER (WHERE NOT bucket_credit) AS closing_pending, " +
+            "    MAX(created_at) AS last_at " +
+            "  FROM core_ledger_transaction WHERE %s " +
+            "  GROUP BY 1, 2" +
+            ") w " +
+            "ON CONFLICT (account_id, day) DO UPDATE SET %s";
+
+    // Adds a window's totals to what is already there; the closing balances follow the newest row that has them,
+    // and are kept when the window only holds bucket credits
+    private static final String ADD =
+            "credit_total = r.credit_total + EXCLUDED.credit_total, " +
+            "debit_total = r.debit_total + EXCLUDED.debit_total, " +
+            "txn_count = r.txn_count + EXCLUDED.txn_count, " +
+            "closing_balance = CASE WHEN EXCLUDED.closing_balance IS NOT NULL AND EXCLUDED.last_created_at >= r.last_created_at " +
+            "                       THEN EXCLUDED.closing_balance ELSE r.closing_balance END, " +
+            "closing_pending = CASE WHEN EXCLUDED.closing_balance IS NOT NULL AND EXCLUDED.last_created_at >= r.last_created_at " +
+            "                       THEN EXCLUDED.closing_pending ELSE r.closing_pending END, " +
+            "last_created_at = GREATEST(r.last_created_at, EXCLUDED.last_created_at), " +
+            "updated_at = EXCLUDED.updated_at";
+
+    // Replaces the row with totals computed over the whole day
+    private static final String REPLACE =
+            "credit_total = EXCLUDED.credit_total, debit_total = EXCLUDED.debit_total, txn_count = EXCLUDED.txn_count, " +
+            "closing_balance = EXCLUDED.closing_balance, closing_pending = EXCLUDED.closing_pending, " +
+            "last_created_at = EXCLUDED.last_created_at, updated_at = EXCLUDED.updated_at";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Add the ledger rows created in (from, to] to the rollups of their accounts and days.
+     * Each row must be applied exactly once, so windows must not overlap.
+     *
+     * @return the number of (account, day) rollups touched
+     */
+    public int applyWindow(OffsetDateTime from, OffsetDateTime to) {
+        return jdbcTemplate.update(String.format(AGGREGATE_SQL, "created_at > ? AND created_at <= ?", ADD), from, to);
+    }
+
+    /**
+     * Recompute the rollups of one day from all its ledger rows, replacing the incremental totals.
+     *
+     * @return the number of (account, day) rollups written
+     */
+    public int recomputeDay(LocalDate day) {
+        OffsetDateTime start = day.atStartOfDay(SG_ZONE).toOffsetDateTime();
+        OffsetDateTime end = day.plusDays(1).atStartOfDay(SG_ZONE).toOffsetDateTime();
+        return jdbcTemplate.update(String.format(AGGREGATE_SQL, "created_at >= ? AND created_at < ?", REPLACE), start, end);
+    }
+
+    // -------------------------------------------------------------------------
+    // PROGRESS (core_account_rollup_state)
+    // -------------------------------------------------------------------------
+
+    /**
+     * Lock the progress row until the end of the transaction.
+     * Empty when another node holds it, or before {@link #seedState()} has created it.
+     */
+    public Optional<AccountRollupState> lockState() {
+        return jdbcTemplate.query(
+                "SELECT included_through, recomputed_through FROM core_account_rollup_state " +
+                "WHERE id = 1 FOR UPDATE SKIP LOCKED",
+                (rs, i) -> AccountRollupState.builder()
+                        .id(STATE_ID)
+                        .includedThrough(rs.getObject(1, OffsetDateTime.class))
+                        .recomputedThrough(rs.getObject(2, LocalDate.class))
+                        .build()).stream().findFirst();
+    }
+
+    /**
+     * Create the progress row if there is none and the ledger has rows: resume after the newest row
+     * already in a rollup, or start just before the oldest ledger row. The day before the start is
+     * recomputed again too, in case its recompute had not run yet.
+     *
+     * @return whether the row was created
+     */
+    public boolean seedState() {
+        return jdbcTemplate.update(
+                "INSERT INTO core_account_rollup_state (id, included_through, recomputed_through, updated_at) " +
+                "SELECT 1, s.at, (s.at AT TIME ZONE 'Asia/Singapore')::date - 2, now() FROM (" +
+                "  SELECT COALESCE((SELECT MAX(last_created_at) FROM core_account_daily_rollup), " +
+                "                  (SELECT MIN(created_at) - interval '1 microsecond' FROM core_ledger_transaction)) AS at" +
+                ") s " +
+                "WHERE s.at IS NOT NULL AND NOT EXISTS (SELECT 1 FROM core_account_rollup_state) " +
+                "ON CONFLICT (id) DO NOTHING") > 0;
+    }
+
+    /**
+     * Record that the rows created up to {@code includedThrough} are in the rollups; the row must be locked.
+     */
+    public void advance(OffsetDateTime includedThrough) {
+        jdbcTemplate.update("UPDATE core_account_rollup_state SET included_through = ?, updated_at = now() WHERE id = 1",
+                includedThrough);
+    }
+
+    /**
+     * Record that {@code day} and every day before it have been recomputed; the row must be locked.
+     */
+    public void markRecomputed(LocalDate day) {
+        jdbcTemplate.update("UPDATE core_account_rollup_state SET recomputed_through = ?, updated_at = now() WHERE id = 1",
+                day);
+    }
+
+    /**
+     * Ledger rows created up to this instant are in the rollups; read without locking.
+     */
+    public Optional<OffsetDateTime> includedThrough() {
+        return jdbcTemplate.queryForList(
+                "SELECT included_through FROM core_account_rollup_state WHERE id = 1", OffsetDateTime.class)
+                .stream().findFirst();
+    }
+}
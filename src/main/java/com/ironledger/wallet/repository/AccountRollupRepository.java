@@ -0,0 +1,16 @@
+package com.ironledger.wallet.repository;
+
+import com.ironledger.wallet.entity.AccountDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+public interface AccountRollupRepository extends JpaRepository<AccountDailyRollup, AccountDailyRollup.Key> {
+
+    /**
+     * Daily rollups of an account for the days in [from, to], oldest first. One primary-key range scan.
+     */
+    List<AccountDailyRollup> findByAccountIdAndDayBetweenOrderByDayAsc(UUID accountId, LocalDate from, LocalDate to);
+}
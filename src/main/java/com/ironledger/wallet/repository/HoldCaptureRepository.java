@@ -0,0 +1,110 @@
+package com.ironledger.wallet.repository;
+
+import com.ironledger.wallet.entity.Hold;
+import com.ironledger.wallet.entity.LedgerTransaction;
+import com.ironledger.wallet.utils.LedgerMetaCodec;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Single-statement captures against a hold.
+ *
+ * Decrementing the hold's remaining amount, decrementing the account's balance_pending and inserting
+ * the CAPTURE row run as one data-modifying CTE, and balance_available is neither checked nor changed.
+ * The statement locks the hold's account before the hold, like every other hold path, so a capture
+ * racing a release or an expiry of the same hold waits instead of deadlocking. The account's row lock
+ * is held until the transaction commits, so callers make this the last statement of their transaction:
+ * captures on the same account then only wait for this statement and a commit.
+ *
+ * The CAPTURE row's created_at is taken by the account update once it holds the row lock, and is stamped
+ * after the account's previous row like {@code Account#stampPosting} does, so rows of one account are
+ * timestamped strictly in the order they were posted. The same statement stamps it on the caller's
+ * idempotency key, whose response was recorded before the capture.
+ */
+@Repository
+@RequiredArgsConstructor
+public class HoldCaptureRepository {
+
+    private static final ZoneId SG_ZONE = ZoneId.of("Asia/Singapore");
+
+    private static final String CAPTURE_SQL =
+            // The hold update joins lk, so the account is locked before the hold row
+            "WITH lk AS (" +
+            "  SELECT a.id FROM core_account a " +
+            "  WHERE a.id = (SELECT account_id FROM core_hold WHERE id = ?) AND a.status = 1 FOR UPDATE" +
+            "), h AS (" +
+            "  UPDATE core_hold hd SET remaining = hd.remaining - ?, captured = hd.captured + ?, " +
+            "    status = CASE WHEN hd.remaining = ? THEN " + Hold.CAPTURED + " ELSE hd.status END, updated_at = ? " +
+            "  FROM lk WHERE hd.id = ? AND hd.account_id = lk.id AND hd.user_id = ? " +
+            "    AND hd.status = " + Hold.ACTIVE + " AND hd.currency = ? AND hd.remaining >= ? AND hd.expires_at > ? " +
+            "  RETURNING hd.account_id, hd.remaining" +
+            "), acct AS (" +
+            "  UPDATE core_account a SET balance_pending = a.balance_pending - ?, version = a.version + 1, updated_at = ?, " +
+            "    last_posted_at = GREATEST(date_trunc('microseconds', clock_timestamp()), a.last_posted_at + interval '1 microsecond') " +
+            "  FROM h WHERE a.id = h.account_id AND a.status = 1 AND a.balance_pending >= ? " +
+            "  RETURNING a.id, a.user_id, a.currency, a.balance_available, a.balance_pending, h.remaining, a.last_posted_at" +
+            "), tx AS (" +
+            "  INSERT INTO core_ledger_transaction (id, account_id, user_id, amount, currency, type, status, " +
+            "  balance_before, balance_after, pending_before, pending_after, reference_id, external_ref, meta, created_at) " +
+            "  SELECT ?, acct.id, acct.user_id, ?, acct.currency, 'CAPTURE', 1, " +
+            "  acct.balance_available, acct.balance_available, acct.balance_pending + ?, acct.balance_pending, " +
+            "  ?, ?, CAST(? AS jsonb), acct.last_posted_at FROM acct " +
+            "  RETURNING account_id, user_id, currency, balance_before, pending_before, pending_after, created_at" +
+            "), k AS (" +
+            "  UPDATE core_idempotency_key k SET transaction_created_at = tx.created_at " +
+            "  FROM tx WHERE k.user_id = ? AND k.idempotency_key = CAST(? AS varchar)" +
+            ") " +
+            "SELECT tx.account_id, tx.user_id, tx.currency, tx.balance_before, tx.pending_before, tx.pending_after, " +
+            "acct.remaining, tx.created_at FROM tx CROSS JOIN acct";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Capture {@code amount} from an active, unexpired hold of the user in the given currency,
+     * on an active account.
+     * The hold becomes CAPTURED when nothing remains.
+     *
+     * If the hold matched but the account did not, the hold update has still been applied: callers run
+     * this in a transaction and roll it back on an empty result.
+     *
+     * @param now            the instant the hold must not have expired by
+     * @param row            the CAPTURE row to write (id, reference ID, external ref, meta); its account,
+     *                       currency, balance fields and created_at are filled in by the statement
+     * @param idempotencyKey the caller's claimed idempotency key to stamp with created_at, or null
+     * @return the hold's remaining amount after the capture, or empty if nothing matched
+     */
+    public Optional<Long> capture(UUID holdId, UUID userId, long amount, String currency, OffsetDateTime now,
+                                  LedgerTransaction row, String idempotencyKey) {
+        if (row.getId() == null) row.setId(UUID.randomUUID());
+
+        List<Long> remaining = jdbcTemplate.query(CAPTURE_SQL,
+                (rs, i) -> {
+                    row.setAccountId(rs.getObject(1, UUID.class));
+                    row.setUserId(rs.getObject(2, UUID.class));
+                    row.setCurrency(rs.getString(3));
+                    row.setBalanceBefore(rs.getLong(4));
+                    row.setBalanceAfter(rs.getLong(4));
+                    row.setPendingBefore(rs.getLong(5));
+                    row.setPendingAfter(rs.getLong(6));
+                    row.setCreatedAt(rs.getObject(8, OffsetDateTime.class).atZoneSameInstant(SG_ZONE).toOffsetDateTime());
+                    return rs.getLong(7);
+                },
+                holdId,
+                amount, amount, amount, now,
+                holdId, userId, currency, amount, now,
+                amount, LocalDateTime.now(), amount,
+                row.getId(), -amount, amount,
+                row.getReferenceId(), row.getExternalRef(), LedgerMetaCodec.encode(row.getMeta()),
+                userId, idempotencyKey);
+
+        return remaining.stream().findFirst();
+    }
+}
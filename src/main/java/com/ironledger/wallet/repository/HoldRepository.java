@@ -0,0 +1,81 @@
+package com.ironledger.wallet.repository;
+
+import com.ironledger.wallet.entity.Hold;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface HoldRepository extends JpaRepository<Hold, UUID> {
+
+    /**
+     * Lock a hold. Callers lock the hold's account first, so holds and accounts are always locked in that order.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM Hold h WHERE h.id = :id")
+    Optional<Hold> findByIdForUpdate(@Param("id") UUID id);
+
+    /**
+     * Lock a set of holds in ascending ID order.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM Hold h WHERE h.id IN :ids ORDER BY h.id")
+    List<Hold> findAllByIdForUpdate(@Param("ids") Collection<UUID> ids);
+
+    Optional<Hold> findByReferenceId(String referenceId);
+
+    /**
+     * Account of a user's hold, read without loading (or locking) the hold itself.
+     */
+    @Query("SELECT h.accountId FROM Hold h WHERE h.id = :id AND h.userId = :userId")
+    Optional<UUID> findAccountId(@Param("id") UUID id, @Param("userId") UUID userId);
+
+    /**
+     * Current remaining amount of a hold, bypassing a possibly stale managed instance.
+     */
+    @Query("SELECT h.remaining FROM Hold h WHERE h.id = :id")
+    Optional<Long> findRemaining(@Param("id") UUID id);
+
+    /**
+     * Pending funds of an account still held by active holds.
+     */
+    @Query("SELECT COALESCE(SUM(h.remaining), 0) FROM Hold h WHERE h.accountId = :accountId AND h.status = " + Hold.ACTIVE)
+    long sumActiveRemaining(@Param("accountId") UUID accountId);
+
+    /**
+     * Accounts of the active holds among the given IDs.
+     */
+    @Query("SELECT DISTINCT h.accountId FROM Hold h WHERE h.id IN :ids AND h.status = " + Hold.ACTIVE)
+    List<UUID> findActiveAccountIds(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Expiry of an active hold.
+     */
+    interface Deadline {
+        UUID getId();
+
+        OffsetDateTime getExpiresAt();
+    }
+
+    /**
+     * Active holds after a given ID, in ID order; pages through all of them by keyset.
+     */
+    @Query("SELECT h.id AS id, h.expiresAt AS expiresAt FROM Hold h " +
+           "WHERE h.status = " + Hold.ACTIVE + " AND h.id > :after ORDER BY h.id")
+    List<Deadline> findActiveDeadlines(@Param("after") UUID after, Limit limit);
+
+    /**
+     * Active holds past their expiry at the given instant, after a given ID, in ID order.
+     */
+    @Query("SELECT h.id AS id, h.expiresAt AS expiresAt FROM Hold h " +
+           "WHERE h.status = " + Hold.ACTIVE + " AND h.expiresAt < :now AND h.id > :after ORDER BY h.id")
+    List<Deadline> findOverdueDeadlines(@Param("now") OffsetDateTime now, @Param("after") UUID after, Limit limit);
+}
@@ -0,0 +1,72 @@
+package com.ironledger.wallet.repository;
+
+import com.ironledger.wallet.entity.LedgerTransaction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * JDBC batch writer for idempotency keys that are recorded together with their posting,
+ * already completed, instead of being claimed first. Used by the balance engine's batch transaction.
+ * Runs on the connection bound to the current transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class IdempotencyKeyBatchRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO core_idempotency_key (id, user_id, idempotency_key, fingerprint, created_at, " +
+            "transaction_id, reference_id, type, amount, transaction_created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (user_id, idempotency_key) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record CompletedKey(UUID userId, String key, String fingerprint, LedgerTransaction posting) {}
+
+    /**
+     * Insert completed keys using JDBC batching. A key that already exists is left untouched;
+     * if another transaction holds it, Postgres blocks on the unique index until that one ends.
+     * Callers should pass keys in a stable order, so concurrent batches cannot deadlock on them.
+     *
+     * @return indexes, into {@code keys}, of the keys that already existed
+     */
+    public List<Integer> insertCompleted(List<CompletedKey> keys) {
+        List<Integer> existing = new ArrayList<>();
+        if (keys.isEmpty()) return existing;
+
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_SQL, keys, BATCH_SIZE, this::bind);
+
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count == 0) existing.add(index);
+                index++;
+            }
+        }
+        return existing;
+    }
+
+    private void bind(PreparedStatement ps, CompletedKey key) throws SQLException {
+        LedgerTransaction posting = key.posting();
+        ps.setObject(1, UUID.randomUUID());
+        ps.setObject(2, key.userId());
+        ps.setString(3, key.key());
+        ps.setString(4, key.fingerprint());
+        // Recorded at the posting's own timestamp: the key is created and completed in one step
+        ps.setObject(5, posting.getCreatedAt());
+        ps.setObject(6, posting.getId());
+        ps.setString(7, posting.getReferenceId());
+        ps.setString(8, posting.getType());
+        ps.setLong(9, posting.getAmount());
+        ps.setObject(10, posting.getCreatedAt());
+    }
+}
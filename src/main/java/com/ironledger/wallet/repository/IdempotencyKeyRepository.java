@@ -0,0 +1,67 @@
+package com.ironledger.wallet.repository;
+
+import com.ironledger.wallet.dto.Ledger.BatchPostingResponse;
+import com.ironledger.wallet.entity.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, UUID> {
+
+    /**
+     * Claim an idempotency key for the current transaction.
+     * If another transaction holds the same key, Postgres blocks on the unique index until it
+     * commits or rolls back, so at most one request per key ever performs the posting.
+     *
+     * @return 1 if the key was claimed, 0 if it already exists
+     */
+    @Modifying
+    @Query(value = "INSERT INTO core_idempotency_key (id, user_id, idempotency_key, fingerprint, created_at) " +
+                   "VALUES (:id, :userId, :key, :fingerprint, :createdAt) " +
+                   "ON CONFLICT (user_id, idempotency_key) DO NOTHING",
+            nativeQuery = true)
+    int claim(@Param("id") UUID id,
+              @Param("userId") UUID userId,
+              @Param("key") String key,
+              @Param("fingerprint") String fingerprint,
+              @Param("createdAt") OffsetDateTime createdAt);
+
+    Optional<IdempotencyKey> findByUserIdAndIdempotencyKey(UUID userId, String idempotencyKey);
+
+    @Modifying
+    @Query("UPDATE IdempotencyKey k SET k.transactionId = :transactionId, k.referenceId = :referenceId, " +
+           "k.type = :type, k.amount = :amount, k.transactionCreatedAt = :transactionCreatedAt " +
+           "WHERE k.userId = :userId AND k.idempotencyKey = :key")
+    int complete(@Param("userId") UUID userId,
+                 @Param("key") String key,
+                 @Param("transactionId") UUID transactionId,
+                 @Param("referenceId") String referenceId,
+                 @Param("type") String type,
+                 @Param("amount") Long amount,
+                 @Param("transactionCreatedAt") OffsetDateTime transactionCreatedAt);
+
+    @Modifying
+    @Query("UPDATE IdempotencyKey k SET k.batchResponse = :response WHERE k.userId = :userId AND k.idempotencyKey = :key")
+    int completeBatch(@Param("userId") UUID userId,
+                      @Param("key") String key,
+                      @Param("response") BatchPostingResponse response);
+
+    /**
+     * Delete up to {@code limit} keys created before the cutoff, in a transaction of its own.
+     * Served by idx_idempotency_created_at.
+     *
+     * @return the number of keys deleted
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM core_idempotency_key WHERE id IN (" +
+                   "  SELECT id FROM core_idempotency_key WHERE created_at < :cutoff LIMIT :limit)",
+            nativeQuery = true)
+    int deleteCreatedBefore(@Param("cutoff") OffsetDateTime cutoff, @Param("limit") int limit);
+}
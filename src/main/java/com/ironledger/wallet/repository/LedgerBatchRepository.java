@@ -0,0 +1,67 @@
+package com.ironledger.wallet.repository;
+
+import com.ironledger.wallet.entity.LedgerTransaction;
+import com.ironledger.wallet.utils.LedgerMetaCodec;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * JDBC batch writer for ledger rows.
+ * Bypasses the JPA persistence context so that large numbers of postings are sent
+ * to the database as a handful of batched INSERT statements instead of one round trip each.
+ * Runs on the connection bound to the current transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LedgerBatchRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO core_ledger_transaction (id, account_id, user_id, amount, currency, type, status, " +
+            "balance_before, balance_after, pending_before, pending_after, reference_id, external_ref, bucket_credit, meta, " +
+            "created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, CAST(? AS jsonb), ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insert all ledger rows using JDBC batching.
+     * Rows without an ID are assigned a random UUID before being written.
+     *
+     * @param rows the ledger rows to insert
+     */
+    public void insertAll(List<LedgerTransaction> rows) {
+        if (rows.isEmpty()) return;
+
+        for (LedgerTransaction row : rows) {
+            if (row.getId() == null) row.setId(UUID.randomUUID());
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, BATCH_SIZE, this::bind);
+    }
+
+    private void bind(PreparedStatement ps, LedgerTransaction tx) throws SQLException {
+        ps.setObject(1, tx.getId());
+        ps.setObject(2, tx.getAccountId());
+        ps.setObject(3, tx.getUserId());
+        ps.setLong(4, tx.getAmount());
+        ps.setString(5, tx.getCurrency());
+        ps.setString(6, tx.getType());
+        ps.setInt(7, tx.getStatus());
+        ps.setLong(8, tx.getBalanceBefore());
+        ps.setLong(9, tx.getBalanceAfter());
+        ps.setLong(10, tx.getPendingBefore());
+        ps.setLong(11, tx.getPendingAfter());
+        ps.setString(12, tx.getReferenceId());
+        ps.setString(13, tx.getExternalRef());
+        ps.setBoolean(14, tx.isBucketCredit());
+        ps.setString(15, LedgerMetaCodec.encode(tx.getMeta()));
+        ps.setObject(16, tx.getCreatedAt());
+    }
+}
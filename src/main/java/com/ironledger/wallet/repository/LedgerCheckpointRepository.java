@@ -0,0 +1,22 @@
+package com.ironledger.wallet.repository;
+
+import com.ironledger.wallet.entity.LedgerCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface LedgerCheckpointRepository extends JpaRepository<LedgerCheckpoint, UUID> {
+
+    /**
+     * The most recent checkpoint of an account.
+     */
+    Optional<LedgerCheckpoint> findTopByAccountIdOrderBySequenceDesc(UUID accountId);
+
+    /**
+     * The most recent checkpoint of an account that covers nothing after the given instant.
+     */
+    Optional<LedgerCheckpoint> findTopByAccountIdAndLastCreatedAtLessThanEqualOrderBySequenceDesc(
+            UUID accountId, OffsetDateTime createdAt);
+}
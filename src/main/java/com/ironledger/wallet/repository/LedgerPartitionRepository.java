@@ -0,0 +1,141 @@
+package com.ironledger.wallet.repository;
+
+import com.ironledger.wallet.archive.ArchivedRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Catalog reads and DDL for the monthly partitions of core_ledger_transaction.
+ * Partitions are named core_ledger_transaction_pYYYYMM and cover one Asia/Singapore calendar month.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LedgerPartitionRepository {
+
+    public static final String PARENT = "core_ledger_transaction";
+
+    private static final ZoneId SG_ZONE = ZoneId.of("Asia/Singapore");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final Pattern NAME = Pattern.compile(PARENT + "_p(\\d{6})");
+
+    private static final String IS_PARTITIONED_SQL =
+            "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table pt JOIN pg_class c ON c.oid = pt.partrelid " +
+            "WHERE c.relname = ? AND c.relnamespace = current_schema()::regnamespace)";
+
+    private static final String PARTITIONS_SQL =
+            "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid " +
+            "JOIN pg_class p ON p.oid = i.inhparent " +
+            "WHERE p.relname = ? AND p.relnamespace = current_schema()::regnamespace " +
+            "ORDER BY c.relname";
+
+    private static final int ARCHIVE_FETCH_SIZE = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public boolean isPartitioned() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(IS_PARTITIONED_SQL, Boolean.class, PARENT));
+    }
+
+    /**
+     * Months that currently have an attached partition, oldest first. Partitions not following
+     * the naming scheme are ignored.
+     */
+    public List<YearMonth> attachedMonths() {
+        return jdbcTemplate.queryForList(PARTITIONS_SQL, String.class, PARENT).stream()
+                .map(LedgerPartitionRepository::monthOf)
+                .flatMap(Optional::stream)
+                .sorted()
+                .toList();
+    }
+
+    public void create(YearMonth month) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + nameOf(month) + " PARTITION OF " + PARENT +
+                " FOR VALUES FROM ('" + lowerBound(month) + "') TO ('" + upperBound(month) + "')");
+    }
+
+    /**
+     * Detach a partition without blocking concurrent reads and writes on the parent.
+     * The detached table is kept as a standalone table. Must not run inside a transaction.
+     */
+    public void detach(YearMonth month) {
+        jdbcTemplate.execute("ALTER TABLE " + PARENT + " DETACH PARTITION " + nameOf(month) + " CONCURRENTLY");
+    }
+
+    public void drop(YearMonth month) {
+        jdbcTemplate.execute("DROP TABLE " + nameOf(month));
+    }
+
+    public long count(YearMonth month) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + nameOf(month), Long.class);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Stream every row of the month's partition in (account_id, created_at, id) order.
+     * Must run inside a transaction, so PostgreSQL keeps the cursor open between fetches.
+     * The bucket_credit column is folded back into the archived meta text.
+     */
+    public void forEachRow(YearMonth month, Consumer<ArchivedRow> consumer) {
+        String sql = "SELECT id, account_id, user_id, amount, currency, type, status, balance_before, balance_after, " +
+                     "pending_before, pending_after, reference_id, external_ref, " +
+                     "(CASE WHEN bucket_credit THEN COALESCE(meta, '{}'::jsonb) || '{\"bucket_credit\": true}'::jsonb " +
+                     "ELSE meta END)::text, created_at " +
+                     "FROM " + nameOf(month) + " ORDER BY account_id, created_at, id";
+        jdbcTemplate.query(
+                con -> {
+                    var ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    ps.setFetchSize(ARCHIVE_FETCH_SIZE);
+                    return ps;
+                },
+                rs -> {
+                    consumer.accept(new ArchivedRow(
+                            rs.getObject(1, UUID.class), rs.getObject(2, UUID.class), rs.getObject(3, UUID.class),
+                            rs.getLong(4), rs.getString(5), rs.getString(6), rs.getInt(7),
+                            rs.getLong(8), rs.getLong(9), rs.getLong(10), rs.getLong(11),
+                            rs.getString(12), rs.getString(13), rs.getString(14),
+                            rs.getObject(15, OffsetDateTime.class)));
+                });
+    }
+
+    /**
+     * Accounts with at least one row in the month's partition that is not covered by a checkpoint.
+     */
+    public List<UUID> accountsWithoutCheckpoint(YearMonth month) {
+        return jdbcTemplate.queryForList(
+                "SELECT DISTINCT t.account_id FROM " + nameOf(month) + " t " +
+                "WHERE NOT EXISTS (SELECT 1 FROM core_ledger_checkpoint c WHERE c.account_id = t.account_id " +
+                "                  AND (c.last_created_at, c.last_ledger_id) >= (t.created_at, t.id))",
+                UUID.class);
+    }
+
+    public static String nameOf(YearMonth month) {
+        return PARENT + "_p" + month.format(SUFFIX);
+    }
+
+    public static Optional<YearMonth> monthOf(String partitionName) {
+        Matcher m = NAME.matcher(partitionName);
+        return m.matches() ? Optional.of(YearMonth.parse(m.group(1), SUFFIX)) : Optional.empty();
+    }
+
+    public static OffsetDateTime lowerBound(YearMonth month) {
+        return month.atDay(1).atStartOfDay(SG_ZONE).toOffsetDateTime();
+    }
+
+    public static OffsetDateTime upperBound(YearMonth month) {
+        return lowerBound(month.plusMonths(1));
+    }
+}
@@ -0,0 +1,85 @@
+package com.ironledger.wallet.repository;
+
+import com.ironledger.wallet.entity.LedgerTransaction;
+import com.ironledger.wallet.utils.LedgerMetaCodec;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Single-statement postings against balance_available.
+ *
+ * The balance check, the account update and the ledger insert run as one data-modifying CTE, so a
+ * posting is one round trip and the account row is never read beforehand. The UPDATE still takes the
+ * account's row lock and holds it until the transaction commits, so callers make this the last statement
+ * of their transaction: postings to the same account then only wait for this statement and a commit
+ * (under group commit, the commit of the whole batch).
+ * The row's created_at is taken by the account update once it holds the row lock, and is stamped after
+ * the account's previous row like {@code Account#stampPosting} does, so rows of one account are timestamped
+ * strictly in the order they were posted. The same statement stamps it on the caller's idempotency key,
+ * whose response was recorded before the posting.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LedgerPostingRepository {
+
+    private static final ZoneId SG_ZONE = ZoneId.of("Asia/Singapore");
+
+    private static final String POST_SQL =
+            "WITH acct AS (" +
+            "  UPDATE core_account SET balance_available = balance_available + ?, version = version + 1, updated_at = ?, " +
+            "    last_posted_at = GREATEST(date_trunc('microseconds', clock_timestamp()), last_posted_at + interval '1 microsecond') " +
+            "  WHERE id = ? AND user_id = ? AND status = 1 AND currency = ? AND balance_available + ? >= 0 " +
+            "  RETURNING id, user_id, currency, balance_available, balance_pending, last_posted_at" +
+            "), tx AS (" +
+            "  INSERT INTO core_ledger_transaction (id, account_id, user_id, amount, currency, type, status, " +
+            "  balance_before, balance_after, pending_before, pending_after, reference_id, external_ref, meta, created_at) " +
+            "  SELECT ?, acct.id, acct.user_id, ?, acct.currency, ?, ?, " +
+            "  acct.balance_available - ?, acct.balance_available, acct.balance_pending, acct.balance_pending, " +
+            "  ?, ?, CAST(? AS jsonb), acct.last_posted_at FROM acct " +
+            "  RETURNING balance_before, balance_after, pending_before, pending_after, created_at" +
+            "), k AS (" +
+            "  UPDATE core_idempotency_key k SET transaction_created_at = tx.created_at " +
+            "  FROM tx WHERE k.user_id = ? AND k.idempotency_key = CAST(? AS varchar)" +
+            ") " +
+            "SELECT balance_before, balance_after, pending_before, pending_after, created_at FROM tx";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Apply {@code row.amount} to the account's available balance and insert the ledger row, in one statement.
+     * The update only matches an active account owned by {@code row.userId} in {@code row.currency}
+     * whose available balance stays non-negative.
+     *
+     * @param row            the ledger row to write; its balance fields and created_at are filled in by the statement
+     * @param idempotencyKey the caller's claimed idempotency key to stamp with created_at, or null
+     * @return the written row, or empty if no account matched (the caller works out why)
+     */
+    public Optional<LedgerTransaction> postAvailable(LedgerTransaction row, String idempotencyKey) {
+        if (row.getId() == null) row.setId(UUID.randomUUID());
+        long delta = row.getAmount();
+
+        List<LedgerTransaction> posted = jdbcTemplate.query(POST_SQL,
+                (rs, i) -> {
+                    row.setBalanceBefore(rs.getLong(1));
+                    row.setBalanceAfter(rs.getLong(2));
+                    row.setPendingBefore(rs.getLong(3));
+                    row.setPendingAfter(rs.getLong(4));
+                    row.setCreatedAt(rs.getObject(5, OffsetDateTime.class).atZoneSameInstant(SG_ZONE).toOffsetDateTime());
+                    return row;
+                },
+                delta, LocalDateTime.now(), row.getAccountId(), row.getUserId(), row.getCurrency(), delta,
+                row.getId(), delta, row.getType(), row.getStatus(), delta,
+                row.getReferenceId(), row.getExternalRef(), LedgerMetaCodec.encode(row.getMeta()),
+                row.getUserId(), idempotencyKey);
+
+        return posted.stream().findFirst();
+    }
+}
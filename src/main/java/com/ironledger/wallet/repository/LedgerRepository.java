@@ -1,12 +1,50 @@
 package com.ironledger.wallet.repository;
 
+import com.ironledger.wallet.dto.Ledger.LedgerEntryResponse;
 import com.ironledger.wallet.entity.LedgerTransaction;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-import java.util.Optional;
+import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.UUID;
 
 public interface LedgerRepository extends JpaRepository<LedgerTransaction, UUID> {
-    Optional<LedgerTransaction> findByAccountId(UUID accountId);
-    Optional<LedgerTransaction> findByReferenceId(String referenceId);
+
+    /**
+     * Newest ledger rows of an account, as lightweight projections.
+     * Served by idx_ledger_account_created_id in index order.
+     *
+     * @param accountId the account ID
+     * @param limit     maximum number of rows
+     * @return rows ordered by (created_at, id) descending
+     */
+    @Query("SELECT new com.ironledger.wallet.dto.Ledger.LedgerEntryResponse(" +
+           "t.id, t.referenceId, t.type, t.status, t.amount, t.currency, " +
+           "t.balanceBefore, t.balanceAfter, t.pendingBefore, t.pendingAfter, t.createdAt, t.bucketCredit) " +
+           "FROM LedgerTransaction t WHERE t.accountId = :accountId " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<LedgerEntryResponse> findHistory(@Param("accountId") UUID accountId, Limit limit);
+
+    /**
+     * Ledger rows of an account strictly older than a keyset position, as lightweight projections.
+     *
+     * @param accountId the account ID
+     * @param createdAt created_at of the last row of the previous page
+     * @param id        id of the last row of the previous page
+     * @param limit     maximum number of rows
+     * @return rows ordered by (created_at, id) descending
+     */
+    @Query("SELECT new com.ironledger.wallet.dto.Ledger.LedgerEntryResponse(" +
+           "t.id, t.referenceId, t.type, t.status, t.amount, t.currency, " +
+           "t.balanceBefore, t.balanceAfter, t.pendingBefore, t.pendingAfter, t.createdAt, t.bucketCredit) " +
+           "FROM LedgerTransaction t WHERE t.accountId = :accountId " +
+           "AND t.createdAt <= :createdAt AND (t.createdAt < :createdAt OR t.id < :id) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<LedgerEntryResponse> findHistoryBefore(@Param("accountId") UUID accountId,
+                                                @Param("createdAt") OffsetDateTime createdAt,
+                                                @Param("id") UUID id,
+                                                Limit limit);
 }
@@ -0,0 +1,65 @@
+package com.ironledger.wallet.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Point-in-time reads over core_ledger_transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LedgerSnapshotRepository {
+
+    // One backward index probe on (account_id, created_at, id) per account, plus a probe for any
+    // bucket credit up to the instant
+    private static final String LAST_ROWS_SQL =
+            "SELECT a.id, a.currency, l.id, l.created_at, l.balance_after, l.pending_after, " +
+            "       EXISTS (SELECT 1 FROM core_ledger_transaction b " +
+            "               WHERE b.account_id = a.id AND b.bucket_credit AND b.created_at <= :asOf) " +
+            "FROM core_account a " +
+            "LEFT JOIN LATERAL (" +
+            "  SELECT t.id, t.created_at, t.balance_after, t.pending_after " +
+            "  FROM core_ledger_transaction t " +
+            "  WHERE t.account_id = a.id AND t.created_at <= :asOf " +
+            "  ORDER BY t.created_at DESC, t.id DESC LIMIT 1" +
+            ") l ON true " +
+            "WHERE a.user_id = :userId AND a.id IN (:ids) " +
+            "ORDER BY a.currency";
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    /**
+     * The last ledger row at or before an instant, per account.
+     * Row fields are null for accounts without any row by then. {@code bucketCredits} tells whether any
+     * bucket credit of the account was written by then, whatever its striping is now.
+     */
+    public record LastRow(UUID accountId, String currency,
+                          UUID transactionId, OffsetDateTime createdAt,
+                          Long balanceAfter, Long pendingAfter, boolean bucketCredits) {
+    }
+
+    public List<LastRow> lastRowsAsOf(UUID userId, Collection<UUID> accountIds, OffsetDateTime asOf) {
+        if (accountIds.isEmpty()) return List.of();
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("ids", accountIds)
+                .addValue("asOf", asOf);
+
+        return namedJdbcTemplate.query(LAST_ROWS_SQL, params, (rs, i) -> new LastRow(
+                rs.getObject(1, UUID.class),
+                rs.getString(2),
+                rs.getObject(3, UUID.class),
+                rs.getObject(4, OffsetDateTime.class),
+                rs.getObject(5, Long.class),
+                rs.getObject(6, Long.class),
+                rs.getBoolean(7)));
+    }
+}
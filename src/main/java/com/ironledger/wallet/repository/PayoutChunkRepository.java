@@ -0,0 +1,15 @@
+package com.ironledger.wallet.repository;
+
+import com.ironledger.wallet.entity.PayoutChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface PayoutChunkRepository extends JpaRepository<PayoutChunk, PayoutChunk.Key> {
+
+    /**
+     * The settled chunks of a payout, in leg order.
+     */
+    List<PayoutChunk> findByPayoutIdOrderByFirstLegAsc(UUID payoutId);
+}
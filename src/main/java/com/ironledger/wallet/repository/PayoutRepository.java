@@ -0,0 +1,42 @@
+package com.ironledger.wallet.repository;
+
+import com.ironledger.wallet.entity.Payout;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface PayoutRepository extends JpaRepository<Payout, UUID> {
+
+    /**
+     * Claim an idempotency key for a new payout; like {@link IdempotencyKeyRepository#claim}.
+     *
+     * @return 1 if the key was claimed, 0 if it already exists
+     */
+    @Modifying
+    @Query(value = "INSERT INTO core_payout (id, user_id, idempotency_key, fingerprint, created_at) " +
+                   "VALUES (:id, :userId, :key, :fingerprint, :createdAt) " +
+                   "ON CONFLICT (user_id, idempotency_key) DO NOTHING",
+            nativeQuery = true)
+    int claim(@Param("id") UUID id,
+              @Param("userId") UUID userId,
+              @Param("key") String key,
+              @Param("fingerprint") String fingerprint,
+              @Param("createdAt") OffsetDateTime createdAt);
+
+    Optional<Payout> findByUserIdAndIdempotencyKey(UUID userId, String idempotencyKey);
+
+    /**
+     * Lock a payout for the current transaction, which settles one of its chunks.
+     * Concurrent retries of the same payout settle their chunks one after the other.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Payout p WHERE p.id = :id")
+    Optional<Payout> findByIdForUpdate(@Param("id") UUID id);
+}
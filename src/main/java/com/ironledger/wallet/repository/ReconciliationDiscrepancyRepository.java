@@ -0,0 +1,12 @@
+package com.ironledger.wallet.repository;
+
+import com.ironledger.wallet.entity.ReconciliationDiscrepancy;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface ReconciliationDiscrepancyRepository extends JpaRepository<ReconciliationDiscrepancy, UUID> {
+
+    List<ReconciliationDiscrepancy> findByRunId(UUID runId);
+}
@@ -0,0 +1,126 @@
+package com.ironledger.wallet.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Bulk reads for ledger/balance reconciliation.
+ */
+@Repository
+public class ReconciliationRepository {
+
+    private static final int FETCH_SIZE = 5000;
+
+    private static final String BALANCES_SQL =
+            "SELECT id, balance_available, balance_pending, stripe_count FROM core_account WHERE id IN (:ids)";
+
+    // Walks idx_ledger_account_created_id once per account
+    private static final String CHAIN_SQL =
+            "SELECT account_id, id, balance_before, balance_after, pending_before, pending_after, " +
+            "       bucket_credit " +
+            "FROM core_ledger_transaction " +
+            "WHERE account_id IN (:ids) " +
+            "ORDER BY account_id, created_at, id";
+
+    // Served by idx_ledger_created_at, within the partitions of the window only
+    private static final String TOUCHED_SQL =
+            "SELECT DISTINCT account_id FROM core_ledger_transaction WHERE created_at > ? AND created_at <= ?";
+
+    // The last row at or before :since (to link the chain) and every row after it, per account
+    private static final String CHAIN_SINCE_SQL =
+            "SELECT account_id, id, balance_before, balance_after, pending_before, pending_after, bucket_credit FROM (" +
+            "  SELECT l.* FROM core_account a " +
+            "  CROSS JOIN LATERAL (" +
+            "    SELECT t.account_id, t.id, t.created_at, t.balance_before, t.balance_after, t.pending_before, " +
+            "           t.pending_after, t.bucket_credit " +
+            "    FROM core_ledger_transaction t " +
+            "    WHERE t.account_id = a.id AND t.created_at <= :since " +
+            "    ORDER BY t.created_at DESC, t.id DESC LIMIT 1" +
+            "  ) l " +
+            "  WHERE a.id IN (:ids) " +
+            "  UNION ALL " +
+            "  SELECT account_id, id, created_at, balance_before, balance_after, pending_before, pending_after, " +
+            "         bucket_credit " +
+            "  FROM core_ledger_transaction " +
+            "  WHERE account_id IN (:ids) AND created_at > :since" +
+            ") r " +
+            "ORDER BY account_id, created_at, id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate streamingTemplate;
+
+    public ReconciliationRepository(JdbcTemplate jdbcTemplate, DataSource dataSource) {
+        this.jdbcTemplate = jdbcTemplate;
+        JdbcTemplate streaming = new JdbcTemplate(dataSource);
+        streaming.setFetchSize(FETCH_SIZE);
+        this.streamingTemplate = new NamedParameterJdbcTemplate(streaming);
+    }
+
+    public record AccountBalance(UUID accountId, long available, long pending, int stripeCount) {
+    }
+
+    public record ChainRow(UUID accountId, UUID ledgerId, long balanceBefore, long balanceAfter,
+                           long pendingBefore, long pendingAfter, boolean bucketCredit) {
+    }
+
+    /**
+     * Every account ID, ascending.
+     */
+    public List<UUID> accountIds() {
+        return jdbcTemplate.queryForList("SELECT id FROM core_account ORDER BY id", UUID.class);
+    }
+
+    /**
+     * Accounts with ledger rows created in (from, to].
+     */
+    public List<UUID> touchedAccounts(OffsetDateTime from, OffsetDateTime to) {
+        return jdbcTemplate.queryForList(TOUCHED_SQL, UUID.class, from, to);
+    }
+
+    public Map<UUID, AccountBalance> balances(Collection<UUID> accountIds) {
+        if (accountIds.isEmpty()) return Map.of();
+
+        Map<UUID, AccountBalance> balances = new HashMap<>();
+        streamingTemplate.query(BALANCES_SQL, new MapSqlParameterSource("ids", accountIds), rs -> {
+            UUID id = rs.getObject(1, UUID.class);
+            balances.put(id, new AccountBalance(id, rs.getLong(2), rs.getLong(3), rs.getInt(4)));
+        });
+        return balances;
+    }
+
+    /**
+     * Stream the ledger rows of the given accounts, grouped by account and in (created_at, id) order
+     * within each account. Must run inside a transaction, so PostgreSQL keeps the cursor open between fetches.
+     */
+    public void forEachChainRow(Collection<UUID> accountIds, Consumer<ChainRow> consumer) {
+        if (accountIds.isEmpty()) return;
+
+        streamingTemplate.query(CHAIN_SQL, new MapSqlParameterSource("ids", accountIds), rs -> {
+            consumer.accept(new ChainRow(rs.getObject(1, UUID.class), rs.getObject(2, UUID.class),
+                    rs.getLong(3), rs.getLong(4), rs.getLong(5), rs.getLong(6), rs.getBoolean(7)));
+        });
+    }
+
+    /**
+     * Like {@link #forEachChainRow}, but only the rows created after {@code since}, preceded by each
+     * account's last row at or before it.
+     */
+    public void forEachChainRowSince(Collection<UUID> accountIds, OffsetDateTime since, Consumer<ChainRow> consumer) {
+        if (accountIds.isEmpty()) return;
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ids", accountIds)
+                .addValue("since", since);
+        streamingTemplate.query(CHAIN_SINCE_SQL, params, rs -> {
+            consumer.accept(new ChainRow(rs.getObject(1, UUID.class), rs.getObject(2, UUID.class),
+                    rs.getLong(3), rs.getLong(4), rs.getLong(5), rs.getLong(6), rs.getBoolean(7)));
+        });
+    }
+}
@@ -0,0 +1,14 @@
+package com.ironledger.wallet.repository;
+
+import com.ironledger.wallet.entity.ReconciliationRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface ReconciliationRunRepository extends JpaRepository<ReconciliationRun, UUID> {
+
+    Optional<ReconciliationRun> findTopByModeOrderByStartedAtDesc(String mode);
+
+    Optional<ReconciliationRun> findTopByModeAndStatusOrderByStartedAtDesc(String mode, Integer status);
+}
@@ -0,0 +1,73 @@
+package com.ironledger.wallet.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ironledger.wallet.entity.Transfer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * JDBC batch writer for transfer rows.
+ * Bypasses the JPA persistence context, like {@link LedgerBatchRepository}; used by bulk payouts.
+ * Runs on the connection bound to the current transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransferBatchRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO core_transfer (id, from_account, to_account, amount, currency, status, meta, created_by, " +
+            "created_at, completed_at, original_transfer_id, failure_reason) " +
+            "VALUES (?, ?, ?, ?, ?, ?, CAST(? AS jsonb), ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Insert all transfer rows using JDBC batching.
+     * Rows without an ID are assigned a random UUID before being written.
+     *
+     * @param rows the transfer rows to insert
+     */
+    public void insertAll(List<Transfer> rows) {
+        if (rows.isEmpty()) return;
+
+        for (Transfer row : rows) {
+            if (row.getId() == null) row.setId(UUID.randomUUID());
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, BATCH_SIZE, this::bind);
+    }
+
+    private void bind(PreparedStatement ps, Transfer transfer) throws SQLException {
+        ps.setObject(1, transfer.getId());
+        ps.setObject(2, transfer.getFromAccount());
+        ps.setObject(3, transfer.getToAccount());
+        ps.setLong(4, transfer.getAmount());
+        ps.setString(5, transfer.getCurrency());
+        ps.setString(6, transfer.getTransferStatus());
+        ps.setString(7, toJson(transfer));
+        ps.setObject(8, transfer.getCreatedBy());
+        ps.setObject(9, transfer.getCreatedAt());
+        ps.setObject(10, transfer.getCompletedAt());
+        ps.setObject(11, transfer.getOriginalTransferId());
+        ps.setString(12, transfer.getFailureReason());
+    }
+
+    private String toJson(Transfer transfer) throws SQLException {
+        if (transfer.getMeta() == null) return null;
+        try {
+            return objectMapper.writeValueAsString(transfer.getMeta());
+        } catch (JsonProcessingException e) {
+            throw new SQLException("Transfer meta is not serializable", e);
+        }
+    }
+}
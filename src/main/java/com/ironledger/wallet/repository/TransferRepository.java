@@ -1,11 +1,49 @@
 package com.ironledger.wallet.repository;
 
 import com.ironledger.wallet.entity.Transfer;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface TransferRepository extends JpaRepository<Transfer, UUID> {
     Optional<Transfer> findById(UUID id);
+
+    /**
+     * Lock a transfer. Callers lock the transfer before its accounts.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Transfer t WHERE t.id = :id")
+    Optional<Transfer> findByIdForUpdate(@Param("id") UUID id);
+
+    /**
+     * A transfer waiting for the asynchronous pipeline.
+     */
+    interface Pending {
+        UUID getId();
+
+        UUID getFromAccount();
+
+        OffsetDateTime getCreatedAt();
+    }
+
+    /**
+     * PENDING transfers created before the cutoff, after the given (createdAt, id) position,
+     * in submission order; pages through all of them by keyset.
+     */
+    @Query("SELECT t.id AS id, t.fromAccount AS fromAccount, t.createdAt AS createdAt FROM Transfer t " +
+           "WHERE t.transferStatus = 'PENDING' AND t.createdAt < :cutoff " +
+           "AND (t.createdAt > :afterAt OR (t.createdAt = :afterAt AND t.id > :afterId)) " +
+           "ORDER BY t.createdAt, t.id")
+    List<Pending> findPending(@Param("cutoff") OffsetDateTime cutoff,
+                              @Param("afterAt") OffsetDateTime afterAt,
+                              @Param("afterId") UUID afterId,
+                              Limit limit);
 }
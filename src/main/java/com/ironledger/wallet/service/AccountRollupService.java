@@ -0,0 +1,200 @@
+package com.ironledger.wallet.service;
+
+import com.ironledger.wallet.dto.Account.AccountDailyRollupResponse;
+import com.ironledger.wallet.dto.Account.AccountRollupResponse;
+import com.ironledger.wallet.entity.AccountDailyRollup;
+import com.ironledger.wallet.entity.AccountRollupState;
+import com.ironledger.wallet.exception.InvalidRequestException;
+import com.ironledger.wallet.repository.AccountRollupBatchRepository;
+import com.ironledger.wallet.repository.AccountRollupRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Daily per-account rollups (core_account_daily_rollup), fed from the ledger as a change feed.
+ *
+ * Every posting path (JPA, single-statement, group commit, balance engine, bucket credits)
+ * ends in core_ledger_transaction, so the rollups follow the ledger instead of each write path, and
+ * add no contention to postings. Every cycle adds the rows created in (watermark, now - settle] to
+ * their (account, day) rollups, in windows of at most a day, and advances the watermark. Once a day
+ * has closed it is recomputed from all its rows, which corrects the totals for any row that committed
+ * after the watermark had passed its created_at.
+ *
+ * The watermark and the last recomputed day live in core_account_rollup_state. Each window and each
+ * recomputed day is one transaction that locks that row, changes the rollups and moves it on, so a row
+ * is added once however many nodes run the job, and a restart resumes where the last commit left off.
+ * A node that finds the row locked skips the cycle.
+ *
+ * Range summaries read one row per active day.
+ */
+@Slf4j
+@Service
+public class AccountRollupService {
+
+    private static final ZoneId SG_ZONE = ZoneId.of("Asia/Singapore");
+    public static final int MAX_RANGE_DAYS = 366;
+
+    private final AccountRollupBatchRepository rollupBatchRepository;
+    private final AccountRollupRepository rollupRepository;
+    private final LedgerHistoryService ledgerHistoryService;
+    private final TransactionTemplate writeTemplate;
+    private final boolean enabled;
+    private final long settleSeconds;
+
+    public AccountRollupService(AccountRollupBatchRepository rollupBatchRepository,
+                                AccountRollupRepository rollupRepository,
+                                LedgerHistoryService ledgerHistoryService,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${ironledger.rollup.enabled:true}") boolean enabled,
+                                @Value("${ironledger.rollup.settle-seconds:30}") long settleSeconds) {
+        this.rollupBatchRepository = rollupBatchRepository;
+        this.rollupRepository = rollupRepository;
+        this.ledgerHistoryService = ledgerHistoryService;
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.settleSeconds = settleSeconds;
+    }
+
+    // -------------------------------------------------------------------------
+    // MAINTENANCE
+    // -------------------------------------------------------------------------
+    @Scheduled(fixedDelayString = "${ironledger.rollup.interval-ms:60000}",
+               initialDelayString = "${ironledger.rollup.initial-delay-ms:30000}")
+    public void refresh() {
+        if (!enabled) return;
+        try {
+            catchUp();
+        } catch (RuntimeException e) {
+            log.error("Rollup refresh failed", e);
+        }
+    }
+
+    /**
+     * Apply all settled ledger rows after the watermark.
+     */
+    public void catchUp() {
+        OffsetDateTime to = OffsetDateTime.now(SG_ZONE).minusSeconds(settleSeconds);
+        while (Boolean.TRUE.equals(writeTemplate.execute(status -> applyNextWindow(to)))) {
+            // one window per transaction
+        }
+    }
+
+    // False once caught up, or when another node holds the progress row
+    private boolean applyNextWindow(OffsetDateTime to) {
+        AccountRollupState state = lockState();
+        if (state == null) return false;
+        OffsetDateTime from = state.getIncludedThrough();
+        if (!from.isBefore(to)) return false;
+
+        // Bounded windows keep a first run (or a long pause) from aggregating everything at once
+        OffsetDateTime end = from.plusDays(1).isBefore(to) ? from.plusDays(1) : to;
+        int touched = rollupBatchRepository.applyWindow(from, end);
+        rollupBatchRepository.advance(end);
+        log.debug("Rolled up {} account-days through {}", touched, end);
+        return true;
+    }
+
+    @Scheduled(cron = "${ironledger.rollup.settle-cron:0 15 0 * * *}", zone = "Asia/Singapore")
+    public void settleClosedDays() {
+        if (!enabled) return;
+        try {
+            settle();
+        } catch (RuntimeException e) {
+            log.error("Rollup recompute failed", e);
+        }
+    }
+
+    /**
+     * Recompute every closed day after the last one recomputed, oldest first, from all its ledger rows.
+     * Stops at the first day not yet entirely behind the watermark, or its rows would be added twice later;
+     * that day is picked up by the next run.
+     *
+     * @return the number of days recomputed
+     */
+    public int settle() {
+        LocalDate today = LocalDate.now(SG_ZONE);
+        int days = 0;
+        while (Boolean.TRUE.equals(writeTemplate.execute(status -> recomputeNextDay(today)))) {
+            days++;
+        }
+        return days;
+    }
+
+    private boolean recomputeNextDay(LocalDate today) {
+        AccountRollupState state = lockState();
+        if (state == null) return false;
+        LocalDate day = state.getRecomputedThrough().plusDays(1);
+        OffsetDateTime dayEnd = day.plusDays(1).atStartOfDay(SG_ZONE).toOffsetDateTime();
+        if (!day.isBefore(today) || state.getIncludedThrough().isBefore(dayEnd)) return false;
+
+        int written = rollupBatchRepository.recomputeDay(day);
+        rollupBatchRepository.markRecomputed(day);
+        log.info("Recomputed {} rollups for {}", written, day);
+        return true;
+    }
+
+    // The progress row, locked until commit; null while another node holds it or the ledger is empty
+    private AccountRollupState lockState() {
+        Optional<AccountRollupState> state = rollupBatchRepository.lockState();
+        if (state.isEmpty() && rollupBatchRepository.seedState()) {
+            state = rollupBatchRepository.lockState();
+        }
+        return state.orElse(null);
+    }
+
+    // -------------------------------------------------------------------------
+    // QUERIES
+    // -------------------------------------------------------------------------
+
+    /**
+     * Daily rollups of an account for the days in [from, to], and their totals.
+     */
+    public AccountRollupResponse summary(UUID userId, UUID accountId, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new InvalidRequestException("'from' must not be after 'to'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new InvalidRequestException("Range must not exceed " + MAX_RANGE_DAYS + " days");
+        }
+        ledgerHistoryService.requireOwnedAccount(userId, accountId);
+
+        List<AccountDailyRollup> days = rollupRepository.findByAccountIdAndDayBetweenOrderByDayAsc(accountId, from, to);
+
+        long credits = 0, debits = 0, count = 0;
+        Long closingBalance = null, closingPending = null;
+        for (AccountDailyRollup day : days) {
+            credits += day.getCreditTotal();
+            debits += day.getDebitTotal();
+            count += day.getTxnCount();
+            if (day.getClosingBalance() != null) {
+                closingBalance = day.getClosingBalance();
+                closingPending = day.getClosingPending();
+            }
+        }
+
+        return AccountRollupResponse.builder()
+                .accountId(accountId)
+                .from(from)
+                .to(to)
+                .creditTotal(credits)
+                .debitTotal(debits)
+                .transactionCount(count)
+                .closingBalance(closingBalance)
+                .closingPending(closingPending)
+                .includedThrough(rollupBatchRepository.includedThrough().orElse(null))
+                .days(days.stream().map(AccountDailyRollupResponse::from).toList())
+                .build();
+    }
+}
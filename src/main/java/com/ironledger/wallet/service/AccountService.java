@@ -1,22 +1,56 @@
 package com.ironledger.wallet.service;
 
+import com.ironledger.wallet.archive.ArchivedRow;
+import com.ironledger.wallet.archive.LedgerArchive;
+import com.ironledger.wallet.dto.Account.AccountBalanceAsOfResponse;
 import com.ironledger.wallet.dto.Account.AccountCreateRequest;
 import com.ironledger.wallet.dto.Account.AccountResponse;
 import com.ironledger.wallet.entity.Account;
 import com.ironledger.wallet.exception.DuplicateResourceException;
 import com.ironledger.wallet.exception.ResourceNotFoundException;
 import com.ironledger.wallet.repository.AccountRepository;
+import com.ironledger.wallet.repository.LedgerSnapshotRepository;
+import com.ironledger.wallet.repository.LedgerSnapshotRepository.LastRow;
 import jakarta.transaction.Transactional;
-import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
-@RequiredArgsConstructor
 public class AccountService {
     private final AccountRepository accountRepository;
+    private final AccountStripingService accountStripingService;
+    private final LedgerSnapshotRepository ledgerSnapshotRepository;
+    private final LedgerCheckpointService ledgerCheckpointService;
+    private final Optional<LedgerArchive> ledgerArchive;
+    private final TransactionTemplate snapshotTemplate;
+
+    public AccountService(AccountRepository accountRepository,
+                          AccountStripingService accountStripingService,
+                          LedgerSnapshotRepository ledgerSnapshotRepository,
+                          LedgerCheckpointService ledgerCheckpointService,
+                          Optional<LedgerArchive> ledgerArchive,
+                          PlatformTransactionManager transactionManager) {
+        this.accountRepository = accountRepository;
+        this.accountStripingService = accountStripingService;
+        this.ledgerSnapshotRepository = ledgerSnapshotRepository;
+        this.ledgerCheckpointService = ledgerCheckpointService;
+        this.ledgerArchive = ledgerArchive;
+        // Account rows and bucket totals must come from the same snapshot: a drain in between would
+        // move funds from the buckets into the main row and count them twice, or not at all
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTemplate.setReadOnly(true);
+    }
 
     // -------------------------------------------------------------------------
     // CREATE ACCOUNT
@@ -44,23 +78,112 @@ public class AccountService {
     // GET ALL ACCOUNTS FOR USER
     // -------------------------------------------------------------------------
     public List<AccountResponse> listAccounts(UUID userId) {
-        return accountRepository.findByUserId(userId)
-                .stream()
-                .map(AccountResponse::from)
-                .toList();
+        return snapshotTemplate.execute(status -> {
+            List<Account> accounts = accountRepository.findByUserId(userId);
+            Map<UUID, Long> buckets = accountStripingService.bucketTotals(accounts);
+
+            return accounts.stream()
+                    .map(a -> AccountResponse.from(a, buckets.getOrDefault(a.getId(), 0L)))
+                    .toList();
+        });
     }
 
     // -------------------------------------------------------------------------
     // GET SINGLE ACCOUNT
     // -------------------------------------------------------------------------
     public AccountResponse getAccount(UUID userId, UUID accountId) {
-        Account acc = accountRepository.findById(accountId)
-                .orElseThrow(() -> new ResourceNotFoundException("Account not found"));
+        return snapshotTemplate.execute(status -> {
+            Account acc = accountRepository.findById(accountId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Account not found"));
 
-        if (!acc.getUserId().equals(userId)) {
+            if (!acc.getUserId().equals(userId)) {
+                throw new ResourceNotFoundException("Account not found");
+            }
+
+            Map<UUID, Long> buckets = accountStripingService.bucketTotals(List.of(acc));
+            return AccountResponse.from(acc, buckets.getOrDefault(acc.getId(), 0L));
+        });
+    }
+
+    // -------------------------------------------------------------------------
+    // BALANCE AS OF (point in time, many accounts in one query)
+    // -------------------------------------------------------------------------
+    /**
+     * Balances at an instant, read from the last ledger row at or before it.
+     * Accounts without such a row in the database are looked up in the ledger archive, if enabled.
+     *
+     * @param accountIds the accounts to report, or empty for all of the user's accounts
+     */
+    public List<AccountBalanceAsOfResponse> balancesAsOf(UUID userId, Collection<UUID> accountIds, OffsetDateTime asOf) {
+        Collection<UUID> ids = accountIds == null || accountIds.isEmpty()
+                ? accountRepository.findByUserId(userId).stream().map(Account::getId).toList()
+                : new HashSet<>(accountIds);
+
+        List<LastRow> rows = ledgerSnapshotRepository.lastRowsAsOf(userId, ids, asOf);
+        if (rows.size() < ids.size()) {
             throw new ResourceNotFoundException("Account not found");
         }
 
+        return rows.stream().map(row -> toBalanceAsOf(row, asOf)).toList();
+    }
+
+    private AccountBalanceAsOfResponse toBalanceAsOf(LastRow row, OffsetDateTime asOf) {
+        AccountBalanceAsOfResponse.AccountBalanceAsOfResponseBuilder response = AccountBalanceAsOfResponse.builder()
+                .accountId(row.accountId())
+                .currency(row.currency())
+                .asOf(asOf);
+
+        if (row.transactionId() == null) {
+            // Hot rows are all newer than archived ones, so the archive only matters without a hot row
+            Optional<ArchivedRow> archived = ledgerArchive.flatMap(archive -> archive.lastRow(row.accountId(), asOf));
+            if (archived.isEmpty()) {
+                return response.balanceAvailable(0L).balancePending(0L).source("NONE").build();
+            }
+            ArchivedRow last = archived.get();
+            response.lastTransactionId(last.id()).lastTransactionAt(last.createdAt());
+            if (bucketCreditedBy(row, asOf)) return replayed(response, row.accountId(), asOf);
+            return response.balanceAvailable(last.balanceAfter())
+                    .balancePending(last.pendingAfter())
+                    .source("ARCHIVE")
+                    .build();
+        }
+
+        response.lastTransactionId(row.transactionId()).lastTransactionAt(row.createdAt());
+
+        if (bucketCreditedBy(row, asOf)) return replayed(response, row.accountId(), asOf);
+
+        return response.balanceAvailable(row.balanceAfter())
+                .balancePending(row.pendingAfter())
+                .source("LEDGER_ROW")
+                .build();
+    }
+
+    // Once an account has bucket credits, its rows no longer carry the whole balance (credits carry the
+    // bucket's, main rows leave the buckets out), so it is replayed; restriping later does not change that
+    private boolean bucketCreditedBy(LastRow row, OffsetDateTime asOf) {
+        return row.bucketCredits()
+                || ledgerArchive.map(archive -> archive.anyBucketCredit(row.accountId(), asOf)).orElse(false);
+    }
+
+    private AccountBalanceAsOfResponse replayed(AccountBalanceAsOfResponse.AccountBalanceAsOfResponseBuilder response,
+                                                UUID accountId, OffsetDateTime asOf) {
+        LedgerCheckpointService.AccountRebuild rebuilt = ledgerCheckpointService.rebuildAsOf(accountId, asOf);
+        return response.balanceAvailable(rebuilt.balanceAvailable())
+                .balancePending(rebuilt.balancePending())
+                .source("REPLAY")
+                .build();
+    }
+
+    // -------------------------------------------------------------------------
+    // STRIPING (spread inbound credits of a hot account over bucket rows)
+    // -------------------------------------------------------------------------
+    @Transactional
+    public AccountResponse configureStriping(UUID userId, UUID accountId, int stripes) {
+        Account acc = loadAccountForUpdate(userId, accountId);
+
+        accountStripingService.restripe(acc, stripes);
+        accountRepository.save(acc);
+
         return AccountResponse.from(acc);
     }
 
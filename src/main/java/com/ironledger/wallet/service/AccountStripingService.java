@@ -0,0 +1,132 @@
+package com.ironledger.wallet.service;
+
+import com.ironledger.wallet.entity.Account;
+import com.ironledger.wallet.repository.AccountBucketRepository;
+import com.ironledger.wallet.repository.AccountBucketRepository.BucketCredit;
+import com.ironledger.wallet.repository.AccountRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Striped ("bucketed") balances for hot receiving accounts.
+ *
+ * A striped account keeps part of its available balance in N core_account_bucket rows.
+ * Credits add to a random bucket and never lock core_account, so inbound transfers to the
+ * same account run in parallel. Debits take the core_account lock as usual and drain the
+ * buckets into the main row only when the main row alone cannot cover the amount.
+ *
+ * Which accounts are striped is cached in memory and refreshed periodically. A stale
+ * entry is harmless: crediting the main row of a striped account is still correct, and a
+ * bucket credit on an account that is no longer striped updates no rows and falls back.
+ */
+@Service
+public class AccountStripingService {
+
+    private final AccountRepository accountRepository;
+    private final AccountBucketRepository accountBucketRepository;
+    private final long refreshMillis;
+
+    private record StripedAccount(UUID userId, String currency, int stripes) {}
+
+    private volatile Map<UUID, StripedAccount> striped = Map.of();
+    private volatile long loadedAt = 0;
+
+    public AccountStripingService(AccountRepository accountRepository,
+                                  AccountBucketRepository accountBucketRepository,
+                                  @Value("${ironledger.striping.refresh-seconds:30}") long refreshSeconds) {
+        this.accountRepository = accountRepository;
+        this.accountBucketRepository = accountBucketRepository;
+        this.refreshMillis = refreshSeconds * 1000;
+    }
+
+    public boolean isStriped(UUID accountId) {
+        return registry().containsKey(accountId);
+    }
+
+    /**
+     * Credit a random bucket of a striped account without locking the account row.
+     *
+     * @param expectedUserId the required owner, or null when any owner may receive (transfers)
+     * @return the bucket credit, or empty if the account is not (or no longer) striped or active,
+     *         or the owner or currency does not match; the caller should then use the locked path,
+     *         which reports the error
+     */
+    public Optional<BucketCredit> tryCredit(UUID accountId, UUID expectedUserId, String currency, long amount) {
+        StripedAccount account = registry().get(accountId);
+        if (account == null || !account.currency().equals(currency)) return Optional.empty();
+        if (expectedUserId != null && !account.userId().equals(expectedUserId)) return Optional.empty();
+
+        int bucket = ThreadLocalRandom.current().nextInt(account.stripes());
+        return accountBucketRepository.credit(accountId, bucket, amount);
+    }
+
+    /**
+     * Make sure a locked account can cover a debit, draining its buckets into the main row if needed.
+     * No-op for accounts that are not striped or already have enough in the main row.
+     */
+    public void ensureAvailable(Account lockedAccount, long amount) {
+        if (!lockedAccount.isStriped() || lockedAccount.getBalanceAvailable() >= amount) return;
+        consolidate(lockedAccount);
+    }
+
+    /**
+     * Drain all buckets of a locked account into its main row.
+     */
+    public void consolidate(Account lockedAccount) {
+        long drained = accountBucketRepository.drain(lockedAccount.getId());
+        if (drained != 0) {
+            lockedAccount.setBalanceAvailable(lockedAccount.getBalanceAvailable() + drained);
+        }
+    }
+
+    /**
+     * Logical available balance held in buckets, per striped account in the given list.
+     */
+    public Map<UUID, Long> bucketTotals(Collection<Account> accounts) {
+        List<UUID> ids = accounts.stream().filter(Account::isStriped).map(Account::getId).toList();
+        return accountBucketRepository.totals(ids);
+    }
+
+    /**
+     * Change the number of stripes of a locked account. One stripe (or fewer) turns striping off.
+     * Existing bucket balances are folded into the main row first.
+     */
+    public void restripe(Account lockedAccount, int stripes) {
+        consolidate(lockedAccount);
+        accountBucketRepository.deleteAll(lockedAccount.getId());
+
+        int count = stripes > 1 ? stripes : 0;
+        if (count > 0) accountBucketRepository.create(lockedAccount.getId(), count);
+        lockedAccount.setStripeCount(count);
+
+        Map<UUID, StripedAccount> updated = new HashMap<>(registry());
+        if (count > 0) {
+            updated.put(lockedAccount.getId(),
+                    new StripedAccount(lockedAccount.getUserId(), lockedAccount.getCurrency(), count));
+        } else {
+            updated.remove(lockedAccount.getId());
+        }
+        striped = Map.copyOf(updated);
+    }
+
+    private Map<UUID, StripedAccount> registry() {
+        long now = Instant.now().toEpochMilli();
+        if (now - loadedAt > refreshMillis) {
+            synchronized (this) {
+                if (now - loadedAt > refreshMillis) {
+                    Map<UUID, StripedAccount> loaded = new HashMap<>();
+                    for (Account a : accountRepository.findByStripeCountGreaterThan(1)) {
+                        loaded.put(a.getId(), new StripedAccount(a.getUserId(), a.getCurrency(), a.getStripeCount()));
+                    }
+                    striped = Map.copyOf(loaded);
+                    loadedAt = now;
+                }
+            }
+        }
+        return striped;
+    }
+}
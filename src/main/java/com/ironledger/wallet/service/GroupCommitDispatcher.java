@@ -0,0 +1,240 @@
+package com.ironledger.wallet.service;
+
+import com.ironledger.wallet.context.RequestContextHolder;
+import com.ironledger.wallet.dto.Ledger.LedgerResponse;
+import com.ironledger.wallet.exception.ServiceUnavailableException;
+import com.ironledger.wallet.repository.AccountRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Group commit for single-account postings ({@code ironledger.posting.group-commit.enabled=true}).
+ *
+ * Requests are queued and a dispatcher thread collects them until the window elapses or the batch is
+ * full, then runs the whole batch in one database transaction, so the batch pays for one commit and
+ * one WAL flush. Each posting runs under its own savepoint and is flushed before it is released: a
+ * business error (insufficient funds, ...) or a constraint violation (duplicate reference or idempotency
+ * key, ...) rolls back to the savepoint and fails only that caller. Callers are completed once the shared
+ * commit has finished. Only a failure of the transaction itself (deadlock, serialization failure, lost
+ * connection) fails or retries the whole batch.
+ *
+ * The queue is bounded; a posting that finds it full is rejected with 503 instead of waiting. Postings
+ * still queued when the dispatchers stop on shutdown are failed rather than left waiting.
+ *
+ * Accounts of a batch that use pessimistic posting are locked up front in ascending ID order, so
+ * dispatcher threads and other multi-account operations cannot deadlock with each other.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "ironledger.posting.group-commit.enabled", havingValue = "true")
+public class GroupCommitDispatcher {
+
+    private final RetryingTransactionExecutor transactionExecutor;
+    private final TransactionTemplate savepointTemplate;
+    private final AccountRepository accountRepository;
+    private final PostingPolicy postingPolicy;
+    private final EntityManager entityManager;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final BlockingQueue<Request> queue;
+    private final List<Thread> dispatchers = new ArrayList<>();
+    private final DistributionSummary batchSize;
+    private final Timer waitTime;
+
+    private volatile boolean running = true;
+
+    private record Request(String operation, UUID accountId, Supplier<LedgerResponse> posting,
+                           String ip, String userAgent, long enqueuedAt,
+                           CompletableFuture<LedgerResponse> result) {}
+
+    public GroupCommitDispatcher(
+            RetryingTransactionExecutor transactionExecutor,
+            PlatformTransactionManager transactionManager,
+            AccountRepository accountRepository,
+            PostingPolicy postingPolicy,
+            EntityManager entityManager,
+            MeterRegistry meterRegistry,
+            @Value("${ironledger.posting.group-commit.window-micros:1000}") long windowMicros,
+            @Value("${ironledger.posting.group-commit.max-batch:64}") int maxBatch,
+            @Value("${ironledger.posting.group-commit.queue-capacity:4096}") int queueCapacity,
+            @Value("${ironledger.posting.group-commit.threads:1}") int threads
+    ) {
+        this.transactionExecutor = transactionExecutor;
+        this.savepointTemplate = new TransactionTemplate(transactionManager);
+        this.savepointTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+        this.accountRepository = accountRepository;
+        this.postingPolicy = postingPolicy;
+        this.entityManager = entityManager;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatch = maxBatch;
+
+        this.batchSize = DistributionSummary.builder("ironledger.group_commit.batch.size")
+                .description("Postings committed together in one group-commit transaction")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.waitTime = Timer.builder("ironledger.group_commit.wait")
+                .description("Time a posting waited in the group-commit queue before its batch started")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        for (int i = 0; i < threads; i++) {
+            Thread thread = new Thread(this::run, "group-commit-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            dispatchers.add(thread);
+        }
+    }
+
+    /**
+     * Queue a posting and wait until the batch containing it has committed.
+     * Business errors raised by the posting are rethrown unchanged.
+     *
+     * @throws ServiceUnavailableException if the queue is full
+     */
+    public LedgerResponse execute(String operation, UUID accountId, Supplier<LedgerResponse> posting) {
+        if (!running) throw new IllegalStateException("Group commit is shutting down");
+
+        CompletableFuture<LedgerResponse> result = new CompletableFuture<>();
+        Request request = new Request(operation, accountId, posting,
+                RequestContextHolder.getIp(), RequestContextHolder.getUserAgent(), System.nanoTime(), result);
+        if (!queue.offer(request)) throw new ServiceUnavailableException("Too many postings in progress, retry later");
+        // Queued after shutdown drained the queue: nothing would ever complete it
+        if (!running && queue.remove(request)) throw new IllegalStateException("Group commit is shutting down");
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            for (Thread thread : dispatchers) {
+                thread.join(TimeUnit.SECONDS.toMillis(30));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Whatever the dispatchers did not get to would otherwise wait forever
+            List<Request> leftover = new ArrayList<>();
+            queue.drainTo(leftover);
+            if (!leftover.isEmpty()) log.warn("Failing {} queued postings on shutdown", leftover.size());
+            failAll(leftover, new IllegalStateException("Group commit is shutting down"));
+        }
+    }
+
+    private void run() {
+        List<Request> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Request first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        queue.drainTo(batch, maxBatch - batch.size());
+                        break;
+                    }
+                    Request next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+                failAll(batch, new IllegalStateException("Group commit is shutting down"));
+            } catch (Throwable e) {
+                log.error("Group commit failed for {} postings", batch.size(), e);
+                failAll(batch, e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private static void failAll(List<Request> requests, Throwable error) {
+        for (Request request : requests) request.result().completeExceptionally(error);
+    }
+
+    private void commit(List<Request> batch) {
+        long started = System.nanoTime();
+        for (Request request : batch) waitTime.record(started - request.enqueuedAt(), TimeUnit.NANOSECONDS);
+        batchSize.record(batch.size());
+
+        Object[] outcomes = transactionExecutor.execute(() -> apply(batch));
+
+        for (int i = 0; i < batch.size(); i++) {
+            if (outcomes[i] instanceof LedgerResponse response) {
+                batch.get(i).result().complete(response);
+            } else {
+                batch.get(i).result().completeExceptionally((RuntimeException) outcomes[i]);
+            }
+        }
+    }
+
+    // Runs inside the shared transaction; re-run from scratch if the executor retries it
+    private Object[] apply(List<Request> batch) {
+        Set<UUID> lockIds = new TreeSet<>();
+        for (Request request : batch) {
+            if (postingPolicy.modeFor(request.operation(), request.accountId()) == PostingMode.PESSIMISTIC) {
+                lockIds.add(request.accountId());
+            }
+        }
+        if (!lockIds.isEmpty()) accountRepository.findAllByIdForUpdate(lockIds);
+
+        Object[] outcomes = new Object[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            Request request = batch.get(i);
+            RequestContextHolder.set(request.ip(), request.userAgent());
+            try {
+                outcomes[i] = savepointTemplate.execute(status -> {
+                    LedgerResponse response = request.posting().get();
+                    // Constraint violations surface here, inside this posting's savepoint (through the
+                    // repository, so they arrive translated)
+                    accountRepository.flush();
+                    return response;
+                });
+            } catch (TransientDataAccessException | DataAccessResourceFailureException | RecoverableDataAccessException e) {
+                // The transaction itself is in doubt: fail (or retry) the whole batch
+                throw e;
+            } catch (RuntimeException e) {
+                // Rolled back to the savepoint. Earlier postings are flushed already; dropping the persistence
+                // context discards whatever this one changed in memory, so later postings re-read their rows.
+                entityManager.clear();
+                outcomes[i] = e;
+            } finally {
+                RequestContextHolder.clear();
+            }
+        }
+        return outcomes;
+    }
+}
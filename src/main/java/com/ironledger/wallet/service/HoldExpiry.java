@@ -0,0 +1,94 @@
+package com.ironledger.wallet.service;
+
+import com.ironledger.wallet.utils.TimingWheel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Expiry deadlines of the active holds, kept in memory in a hierarchical {@link TimingWheel}.
+ *
+ * Scheduling and cancelling are O(1) and nothing polls core_hold; {@link HoldService} drains the due
+ * holds every tick. Changes made inside a transaction only reach the wheel once it commits, so a
+ * rolled-back hold is never scheduled and a rolled-back capture never loses its deadline.
+ * Like the other in-memory ledger state, this assumes a single application instance.
+ */
+@Component
+public class HoldExpiry {
+
+    private final TimingWheel<UUID> wheel;
+    private final Map<UUID, TimingWheel<UUID>.Timeout> timeouts = new HashMap<>();
+    private final Duration ttl;
+
+    public HoldExpiry(@Value("${ironledger.holds.ttl-seconds:604800}") long ttlSeconds,
+                      @Value("${ironledger.holds.wheel.tick-ms:1000}") long tickMillis,
+                      @Value("${ironledger.holds.wheel.slots:512}") int slots,
+                      @Value("${ironledger.holds.wheel.levels:3}") int levels) {
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.wheel = new TimingWheel<>(tickMillis, slots, levels, System.currentTimeMillis());
+    }
+
+    /**
+     * Expiry of a hold opened at the given instant.
+     */
+    public OffsetDateTime deadlineFor(OffsetDateTime openedAt) {
+        return openedAt.plus(ttl);
+    }
+
+    public synchronized void schedule(UUID holdId, OffsetDateTime expiresAt) {
+        TimingWheel<UUID>.Timeout previous =
+                timeouts.put(holdId, wheel.schedule(holdId, expiresAt.toInstant().toEpochMilli()));
+        if (previous != null) previous.cancel();
+    }
+
+    public synchronized void cancel(UUID holdId) {
+        TimingWheel<UUID>.Timeout timeout = timeouts.remove(holdId);
+        if (timeout != null) timeout.cancel();
+    }
+
+    public void scheduleAfterCommit(UUID holdId, OffsetDateTime expiresAt) {
+        afterCommit(() -> schedule(holdId, expiresAt));
+    }
+
+    public void cancelAfterCommit(UUID holdId) {
+        afterCommit(() -> cancel(holdId));
+    }
+
+    /**
+     * Advance the wheel to now and remove the holds whose deadline has been reached.
+     */
+    public synchronized List<UUID> due(long nowMillis) {
+        List<UUID> due = new ArrayList<>();
+        wheel.advance(nowMillis, holdId -> {
+            timeouts.remove(holdId);
+            due.add(holdId);
+        });
+        return due;
+    }
+
+    public synchronized int size() {
+        return timeouts.size();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
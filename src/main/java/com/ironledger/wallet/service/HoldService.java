@@ -0,0 +1,358 @@
+package com.ironledger.wallet.service;
+
+import com.ironledger.wallet.context.RequestContextHolder;
+import com.ironledger.wallet.dto.Ledger.AmountRequest;
+import com.ironledger.wallet.dto.Ledger.HoldResponse;
+import com.ironledger.wallet.dto.Ledger.LedgerResponse;
+import com.ironledger.wallet.entity.Account;
+import com.ironledger.wallet.entity.Hold;
+import com.ironledger.wallet.entity.LedgerTransaction;
+import com.ironledger.wallet.exception.InvalidRequestException;
+import com.ironledger.wallet.exception.ResourceNotFoundException;
+import com.ironledger.wallet.repository.AccountRepository;
+import com.ironledger.wallet.repository.HoldCaptureRepository;
+import com.ironledger.wallet.repository.HoldRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Capture, release and expiry of authorization holds opened by {@link LedgerService#pendingDebit}.
+ *
+ * A hold can be captured in several parts. A capture is one conditional statement
+ * ({@link HoldCaptureRepository}) that only touches the hold's remaining amount and the account's
+ * balance_pending. It still locks the account row until commit, so it runs last in its transaction:
+ * captures on different holds of the same account wait for that statement and the commit, not for a
+ * read-modify-write of the account.
+ * Release closes a hold for its remaining amount. Expiry is driven by {@link HoldExpiry}: every tick
+ * the due holds are released in batches, each batch in one transaction that locks its accounts
+ * (in ID order) and then its holds. Holds are always locked after their account, like every other
+ * locking path.
+ *
+ * The active holds are loaded into the expiry wheel once on startup; holds that expired while the
+ * application was down are released on the first tick. A low-frequency sweep also schedules every active
+ * hold already past its expiry, so a hold whose deadline never reached this node's wheel (a lost
+ * after-commit callback, a hold opened on another node) is still released.
+ */
+@Slf4j
+@Service
+public class HoldService {
+
+    private static final ZoneId SG_ZONE = ZoneId.of("Asia/Singapore");
+    private static final int LOAD_PAGE_SIZE = 10_000;
+
+    private final HoldRepository holdRepository;
+    private final HoldCaptureRepository holdCaptureRepository;
+    private final AccountRepository accountRepository;
+    private final LedgerService ledgerService;
+    private final HoldExpiry holdExpiry;
+    private final IdempotencyService idempotencyService;
+    private final RetryingTransactionExecutor transactionExecutor;
+    private final Counter expiredCounter;
+    private final boolean expiryEnabled;
+    private final int batchSize;
+    private final long retryDelaySeconds;
+
+    public HoldService(HoldRepository holdRepository,
+                       HoldCaptureRepository holdCaptureRepository,
+                       AccountRepository accountRepository,
+                       LedgerService ledgerService,
+                       HoldExpiry holdExpiry,
+                       IdempotencyService idempotencyService,
+                       RetryingTransactionExecutor transactionExecutor,
+                       MeterRegistry meterRegistry,
+                       @Value("${ironledger.holds.expiry.enabled:true}") boolean expiryEnabled,
+                       @Value("${ironledger.holds.expiry.batch-size:500}") int batchSize,
+                       @Value("${ironledger.holds.expiry.retry-delay-seconds:30}") long retryDelaySeconds) {
+        this.holdRepository = holdRepository;
+        this.holdCaptureRepository = holdCaptureRepository;
+        this.accountRepository = accountRepository;
+        this.ledgerService = ledgerService;
+        this.holdExpiry = holdExpiry;
+        this.idempotencyService = idempotencyService;
+        this.transactionExecutor = transactionExecutor;
+        this.expiryEnabled = expiryEnabled;
+        this.batchSize = batchSize;
+        this.retryDelaySeconds = retryDelaySeconds;
+
+        this.expiredCounter = Counter.builder("ironledger.holds.expired")
+                .description("Holds released automatically at expiry")
+                .register(meterRegistry);
+        Gauge.builder("ironledger.holds.scheduled", holdExpiry, HoldExpiry::size)
+                .description("Active holds waiting in the expiry wheel")
+                .register(meterRegistry);
+    }
+
+    // -------------------------------------------------------------------------
+    // QUERIES
+    // -------------------------------------------------------------------------
+    public HoldResponse get(UUID userId, UUID holdId) {
+        Hold hold = holdRepository.findById(holdId)
+                .filter(h -> h.getUserId().equals(userId))
+                .orElseThrow(() -> new ResourceNotFoundException("Hold not found"));
+        return HoldResponse.from(hold);
+    }
+
+    // -------------------------------------------------------------------------
+    // CAPTURE (pending → settled, in one or more parts)
+    // -------------------------------------------------------------------------
+
+    /**
+     * Capture part of a hold, or everything that remains when {@code captureRequest} is null.
+     * The hold is closed as CAPTURED once nothing remains.
+     */
+    public LedgerResponse capture(UUID userId, UUID holdId, AmountRequest captureRequest, String idempotencyKey) {
+        // The hold ID takes the account's place in the idempotency fingerprint
+        AmountRequest fingerprint = captureRequest != null ? captureRequest : new AmountRequest();
+        Optional<LedgerResponse> cached = idempotencyService.cached(userId, idempotencyKey, "HOLD_CAPTURE", holdId, fingerprint);
+        if (cached.isPresent()) return withHold(cached.get(), holdId);
+
+        return transactionExecutor.execute(() -> {
+            Optional<LedgerResponse> replay = idempotencyService.claim(userId, idempotencyKey, "HOLD_CAPTURE", holdId, fingerprint);
+            if (replay.isPresent()) return withHold(replay.get(), holdId);
+
+            return doCapture(userId, holdId, captureRequest, idempotencyKey,
+                    response -> idempotencyService.complete(userId, idempotencyKey, "HOLD_CAPTURE", holdId, fingerprint, response));
+        });
+    }
+
+    // The capture statement locks the account row until commit, so it is the transaction's last statement:
+    // the response is recorded first (rolled back with it if the capture fails), and the statement itself
+    // stamps the row's created_at, taken under the account lock, on the idempotency key
+    private LedgerResponse doCapture(UUID userId, UUID holdId, AmountRequest captureRequest, String idempotencyKey,
+                                     Consumer<LedgerResponse> beforeCapture) {
+        OffsetDateTime now = OffsetDateTime.now(SG_ZONE);
+        long amount;
+        String currency;
+        if (captureRequest == null) {
+            // Plain read: the capture statement re-checks that this much still remains
+            Hold hold = findHold(userId, holdId);
+            assertOpen(hold, now);
+            amount = hold.getRemaining();
+            currency = hold.getCurrency();
+        } else {
+            amount = captureRequest.getAmount();
+            currency = captureRequest.getCurrency();
+        }
+        if (amount <= 0) throw new InvalidRequestException("Amount must be positive");
+
+        LedgerTransaction tx = LedgerTransaction.builder()
+                .amount(-amount)
+                .type("CAPTURE")
+                .status(1)
+                .referenceId(ledgerService.generateReferenceId())
+                .externalRef(holdId.toString())
+                .meta(RequestContextHolder.getLedgerMeta())
+                .build();
+
+        tx.setId(UUID.randomUUID());
+        LedgerResponse response = new LedgerResponse(tx.getId(), tx.getReferenceId(), tx.getType(), tx.getAmount(),
+                null, holdId);
+        beforeCapture.accept(response);
+
+        long remaining = holdCaptureRepository.capture(holdId, userId, amount, currency, now, tx, idempotencyKey)
+                .orElseThrow(() -> captureRejected(userId, holdId, amount, currency, now));
+        if (remaining == 0) holdExpiry.cancelAfterCommit(holdId);
+
+        // Also the instance cached for the idempotency key once the transaction commits
+        response.setCreatedAt(tx.getCreatedAt());
+        return response;
+    }
+
+    // Work out why the capture statement matched nothing; thrown inside the transaction, which rolls back
+    private RuntimeException captureRejected(UUID userId, UUID holdId, long amount, String currency, OffsetDateTime now) {
+        Hold hold = findHold(userId, holdId);
+        try {
+            assertOpen(hold, now);
+        } catch (InvalidRequestException e) {
+            return e;
+        }
+        if (!hold.getCurrency().equals(currency)) {
+            return new InvalidRequestException("Currency mismatch");
+        }
+        // The hold may have been read (and since captured in part) earlier in this transaction
+        if (holdRepository.findRemaining(holdId).orElse(0L) < amount) {
+            return new InvalidRequestException("Amount exceeds the hold's remaining amount");
+        }
+        if (accountRepository.findById(hold.getAccountId()).filter(Account::isActive).isEmpty()) {
+            return new InvalidRequestException("Account is not active");
+        }
+        return new InvalidRequestException("Insufficient pending funds");
+    }
+
+    private Hold findHold(UUID userId, UUID holdId) {
+        return holdRepository.findById(holdId)
+                .filter(h -> h.getUserId().equals(userId))
+                .orElseThrow(() -> new ResourceNotFoundException("Hold not found"));
+    }
+
+    private static void assertOpen(Hold hold, OffsetDateTime now) {
+        if (!hold.isActive()) {
+            throw new InvalidRequestException("Hold is " + Hold.statusName(hold.getStatus()).toLowerCase());
+        }
+        if (!hold.getExpiresAt().isAfter(now)) {
+            throw new InvalidRequestException("Hold has expired");
+        }
+    }
+
+    // Responses replayed from core_idempotency_key do not record the hold
+    private static LedgerResponse withHold(LedgerResponse response, UUID holdId) {
+        if (response.getHoldId() == null) response.setHoldId(holdId);
+        return response;
+    }
+
+    // -------------------------------------------------------------------------
+    // RELEASE (pending → available, for the remaining amount)
+    // -------------------------------------------------------------------------
+    public LedgerResponse release(UUID userId, UUID holdId) {
+        return transactionExecutor.execute(() -> {
+            UUID accountId = holdRepository.findAccountId(holdId, userId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Hold not found"));
+            Account account = accountRepository.findByIdForUpdate(accountId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Account not found"));
+            Hold hold = holdRepository.findByIdForUpdate(holdId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Hold not found"));
+
+            OffsetDateTime now = OffsetDateTime.now(SG_ZONE);
+            assertOpen(hold, now);
+
+            LedgerTransaction tx = release(account, hold, Hold.RELEASED, now);
+            holdExpiry.cancelAfterCommit(holdId);
+
+            return new LedgerResponse(tx.getId(), tx.getReferenceId(), tx.getType(), tx.getAmount(), tx.getCreatedAt(), holdId);
+        });
+    }
+
+    // Both account and hold are locked; the account is flushed on commit
+    private LedgerTransaction release(Account account, Hold hold, int closedStatus, OffsetDateTime now) {
+        long amount = hold.getRemaining();
+        if (account.getBalancePending() < amount) {
+            throw new InvalidRequestException("Insufficient pending funds");
+        }
+
+        long pendingBefore = account.getBalancePending();
+        long availBefore = account.getBalanceAvailable();
+        account.setBalancePending(pendingBefore - amount);
+        account.setBalanceAvailable(availBefore + amount);
+
+        hold.setRemaining(0L);
+        hold.setStatus(closedStatus);
+        hold.setUpdatedAt(now);
+
+        return ledgerService.writeLedger(account, amount, "RELEASE", 1, ledgerService.generateReferenceId(),
+                hold.getId().toString(), availBefore, pendingBefore);
+    }
+
+    // -------------------------------------------------------------------------
+    // EXPIRY
+    // -------------------------------------------------------------------------
+    @Scheduled(fixedDelayString = "${ironledger.holds.expiry.interval-ms:1000}",
+               initialDelayString = "${ironledger.holds.expiry.initial-delay-ms:1000}")
+    public void expireDue() {
+        if (!expiryEnabled) return;
+
+        List<UUID> due = holdExpiry.due(System.currentTimeMillis());
+        for (int i = 0; i < due.size(); i += batchSize) {
+            List<UUID> batch = due.subList(i, Math.min(due.size(), i + batchSize));
+            try {
+                int released = transactionExecutor.execute(() -> releaseExpired(batch));
+                expiredCounter.increment(released);
+            } catch (RuntimeException e) {
+                log.error("Releasing {} expired hold(s) failed; retrying in {}s", batch.size(), retryDelaySeconds, e);
+                OffsetDateTime retryAt = OffsetDateTime.now(SG_ZONE).plusSeconds(retryDelaySeconds);
+                batch.forEach(id -> holdExpiry.schedule(id, retryAt));
+            }
+        }
+    }
+
+    /**
+     * Release every hold of the batch that is still active and past its expiry.
+     *
+     * @return the number of holds released
+     */
+    int releaseExpired(List<UUID> holdIds) {
+        List<UUID> accountIds = holdRepository.findActiveAccountIds(holdIds);
+        if (accountIds.isEmpty()) return 0;
+
+        Map<UUID, Account> accounts = accountRepository.findAllByIdForUpdate(new TreeSet<>(accountIds)).stream()
+                .collect(Collectors.toMap(Account::getId, Function.identity()));
+
+        OffsetDateTime now = OffsetDateTime.now(SG_ZONE);
+        int released = 0;
+        for (Hold hold : holdRepository.findAllByIdForUpdate(holdIds)) {
+            // Closed in the meantime, or not yet due
+            if (!hold.isActive() || hold.getExpiresAt().isAfter(now)) continue;
+
+            Account account = accounts.get(hold.getAccountId());
+            if (account == null || account.getBalancePending() < hold.getRemaining()) {
+                log.error("Cannot release expired hold {}: account {} does not hold {} pending",
+                        hold.getId(), hold.getAccountId(), hold.getRemaining());
+                continue;
+            }
+            release(account, hold, Hold.EXPIRED, now);
+            released++;
+        }
+        return released;
+    }
+
+    /**
+     * Backstop for the wheel: schedule the active holds that are already overdue, so they are released
+     * on the next tick. Rescheduling a hold the wheel already holds only replaces its deadline.
+     */
+    @Scheduled(fixedDelayString = "${ironledger.holds.expiry.sweep-interval-ms:300000}",
+               initialDelayString = "${ironledger.holds.expiry.sweep-initial-delay-ms:300000}")
+    public void scheduleOverdue() {
+        if (!expiryEnabled) return;
+
+        try {
+            OffsetDateTime now = OffsetDateTime.now(SG_ZONE);
+            UUID after = new UUID(0L, 0L);
+            long found = 0;
+            while (true) {
+                List<HoldRepository.Deadline> page =
+                        holdRepository.findOverdueDeadlines(now, after, Limit.of(LOAD_PAGE_SIZE));
+                for (HoldRepository.Deadline deadline : page) {
+                    holdExpiry.schedule(deadline.getId(), deadline.getExpiresAt());
+                }
+                found += page.size();
+                if (page.size() < LOAD_PAGE_SIZE) break;
+                after = page.get(page.size() - 1).getId();
+            }
+            if (found > 0) log.warn("Scheduled {} overdue active hold(s) for expiry", found);
+        } catch (RuntimeException e) {
+            log.error("Sweeping overdue holds failed", e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadActiveHolds() {
+        if (!expiryEnabled) return;
+
+        UUID after = new UUID(0L, 0L);
+        long loaded = 0;
+        while (true) {
+            List<HoldRepository.Deadline> page = holdRepository.findActiveDeadlines(after, Limit.of(LOAD_PAGE_SIZE));
+            for (HoldRepository.Deadline deadline : page) {
+                holdExpiry.schedule(deadline.getId(), deadline.getExpiresAt());
+            }
+            loaded += page.size();
+            if (page.size() < LOAD_PAGE_SIZE) break;
+            after = page.get(page.size() - 1).getId();
+        }
+        log.info("Loaded {} active hold(s) into the expiry wheel", loaded);
+    }
+}
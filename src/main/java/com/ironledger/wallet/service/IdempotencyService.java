@@ -0,0 +1,260 @@
+package com.ironledger.wallet.service;
+
+import com.ironledger.wallet.dto.Ledger.AmountRequest;
+import com.ironledger.wallet.dto.Ledger.BatchPostingItem;
+import com.ironledger.wallet.dto.Ledger.BatchPostingRequest;
+import com.ironledger.wallet.dto.Ledger.BatchPostingResponse;
+import com.ironledger.wallet.dto.Ledger.LedgerResponse;
+import com.ironledger.wallet.engine.EngineIdempotencyKey;
+import com.ironledger.wallet.entity.IdempotencyKey;
+import com.ironledger.wallet.exception.DuplicateResourceException;
+import com.ironledger.wallet.exception.InvalidRequestException;
+import com.ironledger.wallet.repository.IdempotencyKeyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Deduplicates client retries of ledger operations using the {@code Idempotency-Key} header.
+ *
+ * Completed responses are kept in a bounded, in-memory LRU cache so that most retries are
+ * answered without touching the database. Misses fall through to the unique-indexed
+ * {@code core_idempotency_key} table, which is the source of truth across nodes.
+ *
+ * Batch postings claim a key the same way and store their whole response with it; they are replayed
+ * from the table only. Keys are purged {@code ironledger.idempotency.retention-hours} after they were
+ * claimed, so a retry is only recognised within that window.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final int MAX_KEY_LENGTH = 128;
+    private static final int PURGE_BATCH = 10_000;
+    private static final ZoneId SG_ZONE = ZoneId.of("Asia/Singapore");
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final Map<String, CachedResponse> cache;
+    private final Duration retention;
+
+    private record CachedResponse(String fingerprint, LedgerResponse response) {}
+
+    public IdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository,
+                              @Value("${ironledger.idempotency.cache-size:10000}") int cacheSize,
+                              @Value("${ironledger.idempotency.retention-hours:168}") long retentionHours) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.retention = Duration.ofHours(retentionHours);
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(cacheSize, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Look up a completed response for the given key in the in-memory cache only.
+     * Safe to call before any transaction or lock is taken.
+     */
+    public Optional<LedgerResponse> cached(UUID userId, String key, String operation, UUID accountId, AmountRequest request) {
+        if (key == null) return Optional.empty();
+
+        CachedResponse hit = cache.get(cacheKey(userId, key));
+        if (hit == null) return Optional.empty();
+
+        assertSameRequest(hit.fingerprint(), fingerprint(operation, accountId, request));
+        return Optional.of(hit.response());
+    }
+
+    /**
+     * Claim the key for the current transaction, or return the stored response of the request
+     * that claimed it first. Must be called inside the transaction that performs the posting.
+     *
+     * @return the stored response to replay, or empty if the caller now owns the key
+     */
+    public Optional<LedgerResponse> claim(UUID userId, String key, String operation, UUID accountId, AmountRequest request) {
+        if (key == null) return Optional.empty();
+        validateKey(key);
+
+        String fingerprint = fingerprint(operation, accountId, request);
+        Optional<LedgerResponse> hit = cached(userId, key, operation, accountId, request);
+        if (hit.isPresent()) return hit;
+
+        int claimed = idempotencyKeyRepository.claim(UUID.randomUUID(), userId, key, fingerprint, OffsetDateTime.now(SG_ZONE));
+        if (claimed == 1) return Optional.empty();
+
+        return Optional.of(stored(userId, key, fingerprint));
+    }
+
+    /**
+     * Record the response for a claimed key. The cache is only populated once the
+     * surrounding transaction commits, so a rolled-back posting is never replayed.
+     */
+    public void complete(UUID userId, String key, String operation, UUID accountId, AmountRequest request, LedgerResponse response) {
+        if (key == null) return;
+
+        idempotencyKeyRepository.complete(userId, key, response.getTransactionId(), response.getReferenceId(),
+                response.getType(), response.getAmount(), response.getCreatedAt());
+
+        CachedResponse entry = new CachedResponse(fingerprint(operation, accountId, request), response);
+        String cacheKey = cacheKey(userId, key);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.put(cacheKey, entry);
+                }
+            });
+        } else {
+            cache.put(cacheKey, entry);
+        }
+    }
+
+    /**
+     * Key for a posting made by the balance engine, which records it completed in its own batch
+     * transaction instead of claiming it first.
+     *
+     * @return null if the request has no key
+     */
+    public EngineIdempotencyKey engineKey(UUID userId, String key, String operation, UUID accountId, AmountRequest request) {
+        if (key == null) return null;
+        validateKey(key);
+        return new EngineIdempotencyKey(userId, key, fingerprint(operation, accountId, request));
+    }
+
+    /**
+     * Stored response for a key the balance engine found already used.
+     */
+    public LedgerResponse replay(UUID userId, String key, String operation, UUID accountId, AmountRequest request) {
+        return stored(userId, key, fingerprint(operation, accountId, request));
+    }
+
+    /**
+     * Cache the response of a posting whose key has already been committed with it.
+     */
+    public void remember(UUID userId, String key, String operation, UUID accountId, AmountRequest request, LedgerResponse response) {
+        if (key == null) return;
+        cache.put(cacheKey(userId, key), new CachedResponse(fingerprint(operation, accountId, request), response));
+    }
+
+    /**
+     * Claim the key of a batch posting for the current transaction, or return the stored response of the
+     * batch that claimed it first. Must be called inside the transaction that performs the postings.
+     *
+     * @return the stored response to replay, or empty if the caller now owns the key
+     */
+    public Optional<BatchPostingResponse> claimBatch(UUID userId, String key, BatchPostingRequest request) {
+        if (key == null) return Optional.empty();
+        validateKey(key);
+
+        String fingerprint = batchFingerprint(request);
+        int claimed = idempotencyKeyRepository.claim(UUID.randomUUID(), userId, key, fingerprint, OffsetDateTime.now(SG_ZONE));
+        if (claimed == 1) return Optional.empty();
+
+        return Optional.of(storedKey(userId, key, fingerprint).getBatchResponse());
+    }
+
+    /**
+     * Record the response of a batch posting for a claimed key, in the batch's transaction.
+     */
+    public void completeBatch(UUID userId, String key, BatchPostingResponse response) {
+        if (key == null) return;
+        idempotencyKeyRepository.completeBatch(userId, key, response);
+    }
+
+    @Scheduled(fixedDelayString = "${ironledger.idempotency.purge-interval-ms:3600000}",
+               initialDelayString = "${ironledger.idempotency.purge-initial-delay-ms:300000}")
+    public void purgeExpired() {
+        OffsetDateTime cutoff = OffsetDateTime.now(SG_ZONE).minus(retention);
+        long purged = 0;
+        try {
+            int deleted;
+            do {
+                deleted = idempotencyKeyRepository.deleteCreatedBefore(cutoff, PURGE_BATCH);
+                purged += deleted;
+            } while (deleted == PURGE_BATCH);
+        } catch (RuntimeException e) {
+            log.error("Idempotency key purge failed after {} key(s)", purged, e);
+            return;
+        }
+        if (purged > 0) log.info("Purged {} idempotency key(s) created before {}", purged, cutoff);
+    }
+
+    private LedgerResponse stored(UUID userId, String key, String fingerprint) {
+        IdempotencyKey stored = storedKey(userId, key, fingerprint);
+
+        LedgerResponse response = new LedgerResponse(
+                stored.getTransactionId(), stored.getReferenceId(), stored.getType(),
+                stored.getAmount(), stored.getTransactionCreatedAt(), null
+        );
+        cache.put(cacheKey(userId, key), new CachedResponse(fingerprint, response));
+        return response;
+    }
+
+    // The completed key, claimed by a request with the same fingerprint
+    private IdempotencyKey storedKey(UUID userId, String key, String fingerprint) {
+        IdempotencyKey stored = idempotencyKeyRepository.findByUserIdAndIdempotencyKey(userId, key)
+                .orElseThrow(() -> new IllegalStateException("Idempotency key vanished"));
+
+        assertSameRequest(stored.getFingerprint(), fingerprint);
+
+        if (!stored.isCompleted()) {
+            throw new DuplicateResourceException("A request with this idempotency key is still being processed");
+        }
+        return stored;
+    }
+
+    private void validateKey(String key) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidRequestException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+    }
+
+    private void assertSameRequest(String storedFingerprint, String fingerprint) {
+        if (!storedFingerprint.equals(fingerprint)) {
+            throw new DuplicateResourceException("Idempotency key was already used for a different request");
+        }
+    }
+
+    private static String cacheKey(UUID userId, String key) {
+        return userId + ":" + key;
+    }
+
+    private static String fingerprint(String operation, UUID accountId, AmountRequest request) {
+        return operation + "|" + accountId + "|" + request.getAmount() + "|" + request.getCurrency();
+    }
+
+    // BATCH| and the SHA-256 of every item in order; a batch can hold thousands of items
+    private static String batchFingerprint(BatchPostingRequest request) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 algorithm not available", e);
+        }
+        for (BatchPostingItem item : request.getItems()) {
+            digest.update((item.getOperation() + "|" + item.getAccountId() + "|" + item.getAmount() + "|"
+                    + item.getCurrency() + ";").getBytes(StandardCharsets.UTF_8));
+        }
+        return "BATCH|" + HexFormat.of().formatHex(digest.digest());
+    }
+}
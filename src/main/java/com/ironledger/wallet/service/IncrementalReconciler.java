@@ -0,0 +1,191 @@
+package com.ironledger.wallet.service;
+
+import com.ironledger.wallet.entity.ReconciliationRun;
+import com.ironledger.wallet.repository.ReconciliationRepository;
+import com.ironledger.wallet.repository.ReconciliationRunRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Continuous reconciliation of recently written accounts.
+ *
+ * A high-watermark over core_ledger_transaction.created_at marks how far the ledger has been checked.
+ * Each cycle takes the accounts with rows created between the watermark and {@code settle-seconds}
+ * ago, checks their chain from the last row before the watermark onwards plus their stored balances
+ * (see {@link ReconciliationService}), and advances the watermark. Cost follows write volume, not the
+ * size of the ledger. The settle delay leaves time for transactions that picked their created_at
+ * before committing, and for balance engine batches.
+ *
+ * Every cycle is recorded as an INCREMENTAL run carrying its watermark; the next start resumes from
+ * the latest completed one. A batch of accounts that fails to check does not stop the cycle: its
+ * accounts are counted as failed and reported as CHECK_FAILED discrepancies of the run, and the
+ * watermark still advances; the next full run checks them again.
+ */
+@Slf4j
+@Service
+public class IncrementalReconciler {
+
+    private static final ZoneId SG_ZONE = ZoneId.of("Asia/Singapore");
+
+    private final ReconciliationService reconciliationService;
+    private final ReconciliationRepository reconciliationRepository;
+    private final ReconciliationRunRepository runRepository;
+    private final ReconciliationService.ModeMeters meters;
+    private final boolean enabled;
+    private final long settleSeconds;
+    private final int batchAccounts;
+    private final long maxDiscrepancies;
+
+    private volatile OffsetDateTime watermark;
+    private final AtomicLong accountsPerSecond = new AtomicLong();
+    private final AtomicLong lastDiscrepancies = new AtomicLong();
+
+    public IncrementalReconciler(ReconciliationService reconciliationService,
+                                 ReconciliationRepository reconciliationRepository,
+                                 ReconciliationRunRepository runRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${ironledger.reconciliation.incremental.enabled:true}") boolean enabled,
+                                 @Value("${ironledger.reconciliation.incremental.settle-seconds:30}") long settleSeconds,
+                                 @Value("${ironledger.reconciliation.incremental.batch-accounts:256}") int batchAccounts,
+                                 @Value("${ironledger.reconciliation.max-discrepancies:10000}") long maxDiscrepancies) {
+        this.reconciliationService = reconciliationService;
+        this.reconciliationRepository = reconciliationRepository;
+        this.runRepository = runRepository;
+        this.meters = ReconciliationService.meters(meterRegistry, ReconciliationService.INCREMENTAL);
+        this.enabled = enabled;
+        this.settleSeconds = settleSeconds;
+        this.batchAccounts = batchAccounts;
+        this.maxDiscrepancies = maxDiscrepancies;
+
+        String mode = ReconciliationService.INCREMENTAL.toLowerCase(Locale.ROOT);
+        Gauge.builder("ironledger.reconciliation.lag", this, r -> r.lag().toMillis() / 1000.0)
+                .description("Age of the newest ledger rows already reconciled")
+                .tag("mode", mode)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("ironledger.reconciliation.accounts.rate", accountsPerSecond, AtomicLong::get)
+                .description("Accounts per second checked by the last incremental cycle")
+                .tag("mode", mode)
+                .baseUnit("accounts/s")
+                .register(meterRegistry);
+    }
+
+    /**
+     * State of the incremental reconciler, for the actuator endpoint.
+     */
+    public record Status(OffsetDateTime watermark, long lagSeconds, long accountsPerSecond, long lastDiscrepancies) {
+    }
+
+    public Status status() {
+        return new Status(watermark, lag().toSeconds(), accountsPerSecond.get(), lastDiscrepancies.get());
+    }
+
+    @Scheduled(fixedDelayString = "${ironledger.reconciliation.incremental.interval-ms:60000}",
+               initialDelayString = "${ironledger.reconciliation.incremental.initial-delay-ms:60000}")
+    public void cycle() {
+        if (!enabled) return;
+        try {
+            reconcileSinceWatermark();
+        } catch (RuntimeException e) {
+            log.error("Incremental reconciliation failed at watermark {}", watermark, e);
+        }
+    }
+
+    /**
+     * Check the accounts written since the watermark and advance it.
+     */
+    public ReconciliationRun reconcileSinceWatermark() {
+        OffsetDateTime from = currentWatermark();
+        OffsetDateTime to = OffsetDateTime.now(SG_ZONE).minusSeconds(settleSeconds);
+        if (!to.isAfter(from)) return null;
+
+        ReconciliationRun run = runRepository.save(ReconciliationRun.builder()
+                .mode(ReconciliationService.INCREMENTAL)
+                .status(ReconciliationRun.RUNNING)
+                .startedAt(OffsetDateTime.now(SG_ZONE))
+                .build());
+
+        long started = System.nanoTime();
+        List<UUID> touched = reconciliationRepository.touchedAccounts(from, to);
+        AtomicLong stored = new AtomicLong();
+        ReconciliationService.Totals totals = ReconciliationService.Totals.EMPTY;
+        try {
+            for (int i = 0; i < touched.size(); i += batchAccounts) {
+                List<UUID> batch = touched.subList(i, Math.min(touched.size(), i + batchAccounts));
+                try {
+                    totals = totals.plus(reconciliationService.check(run.getId(), batch, stored,
+                            (ids, consumer) -> reconciliationRepository.forEachChainRowSince(ids, from, consumer), meters));
+                } catch (RuntimeException e) {
+                    // Reported and left to the next full run, so one bad batch does not hold the watermark back
+                    log.error("Incremental reconciliation of {} accounts from {} failed", batch.size(), batch.get(0), e);
+                    totals = totals.plus(reconciliationService.failed(run.getId(), batch, stored));
+                }
+            }
+        } catch (RuntimeException e) {
+            run.setStatus(ReconciliationRun.FAILED);
+            run.setFinishedAt(OffsetDateTime.now(SG_ZONE));
+            runRepository.save(run);
+            throw e;
+        }
+
+        long elapsed = Math.max(1, System.nanoTime() - started);
+        accountsPerSecond.set(totals.accounts() * 1_000_000_000L / elapsed);
+        lastDiscrepancies.set(totals.discrepancies());
+        if (stored.get() > maxDiscrepancies) {
+            log.warn("Incremental reconciliation {} found {} discrepancies; only {} recorded",
+                    run.getId(), totals.discrepancies(), maxDiscrepancies);
+        }
+
+        run.setAccountsChecked(totals.accounts());
+        run.setRowsChecked(totals.rows());
+        run.setDiscrepancies(totals.discrepancies());
+        run.setFailedAccounts(totals.failedAccounts());
+        run.setWatermark(to);
+        run.setStatus(ReconciliationRun.COMPLETED);
+        run.setFinishedAt(OffsetDateTime.now(SG_ZONE));
+        runRepository.save(run);
+        watermark = to;
+
+        if (totals.failedAccounts() > 0) {
+            log.warn("Incremental reconciliation {} could not check {} accounts touched in ({}, {}]; see its CHECK_FAILED discrepancies",
+                    run.getId(), totals.failedAccounts(), from, to);
+        }
+        if (totals.discrepancies() > 0) {
+            log.warn("Incremental reconciliation {} found {} discrepancies in {} accounts touched in ({}, {}]",
+                    run.getId(), totals.discrepancies(), totals.accounts(), from, to);
+        } else {
+            log.debug("Incremental reconciliation checked {} accounts, {} rows in {} ms",
+                    totals.accounts(), totals.rows(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+        }
+        return run;
+    }
+
+    private OffsetDateTime currentWatermark() {
+        if (watermark == null) {
+            // Resume from the last completed cycle; a first start only checks what is written from now on
+            watermark = runRepository
+                    .findTopByModeAndStatusOrderByStartedAtDesc(ReconciliationService.INCREMENTAL, ReconciliationRun.COMPLETED)
+                    .map(ReconciliationRun::getWatermark)
+                    .orElseGet(() -> OffsetDateTime.now(SG_ZONE).minusSeconds(settleSeconds));
+        }
+        return watermark;
+    }
+
+    private Duration lag() {
+        OffsetDateTime current = watermark;
+        return current == null ? Duration.ZERO : Duration.between(current, OffsetDateTime.now(SG_ZONE));
+    }
+}
@@ -0,0 +1,236 @@
+package com.ironledger.wallet.service;
+
+import com.ironledger.wallet.archive.LedgerArchive;
+import com.ironledger.wallet.dto.Account.AccountVerificationResponse;
+import com.ironledger.wallet.entity.Account;
+import com.ironledger.wallet.entity.LedgerCheckpoint;
+import com.ironledger.wallet.exception.ResourceNotFoundException;
+import com.ironledger.wallet.repository.AccountRepository;
+import com.ironledger.wallet.repository.LedgerCheckpointRepository;
+import com.ironledger.wallet.repository.LedgerReplayRepository;
+import com.ironledger.wallet.repository.LedgerReplayRepository.ArchiveReplay;
+import com.ironledger.wallet.repository.LedgerReplayRepository.LedgerReplay;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Per-account balance checkpoints, and account rebuild/verification from the ledger.
+ *
+ * A checkpoint records the balance implied by an account's ledger rows up to a position. Only rows
+ * older than the settle window are checkpointed, so a row that was written before but committed after
+ * the checkpoint cannot fall behind it. Rebuilding an account replays only the rows after its latest
+ * checkpoint. Rows of months that were moved to the ledger archive are replayed from it.
+ */
+@Slf4j
+@Service
+public class LedgerCheckpointService {
+
+    private static final ZoneId SG_ZONE = ZoneId.of("Asia/Singapore");
+    private static final int PAGE_SIZE = 500;
+
+    private final AccountRepository accountRepository;
+    private final LedgerCheckpointRepository checkpointRepository;
+    private final LedgerReplayRepository replayRepository;
+    private final AccountStripingService accountStripingService;
+    private final Optional<LedgerArchive> ledgerArchive;
+    private final TransactionTemplate writeTemplate;
+    private final TransactionTemplate snapshotTemplate;
+    private final boolean enabled;
+    private final long settleSeconds;
+    private final long minRows;
+
+    public LedgerCheckpointService(AccountRepository accountRepository,
+                                   LedgerCheckpointRepository checkpointRepository,
+                                   LedgerReplayRepository replayRepository,
+                                   AccountStripingService accountStripingService,
+                                   Optional<LedgerArchive> ledgerArchive,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${ironledger.checkpoint.enabled:true}") boolean enabled,
+                                   @Value("${ironledger.checkpoint.settle-seconds:300}") long settleSeconds,
+                                   @Value("${ironledger.checkpoint.min-rows:1000}") long minRows) {
+        this.accountRepository = accountRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.replayRepository = replayRepository;
+        this.accountStripingService = accountStripingService;
+        this.ledgerArchive = ledgerArchive;
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        // Account row and ledger rows must come from the same snapshot
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTemplate.setReadOnly(true);
+        this.enabled = enabled;
+        this.settleSeconds = settleSeconds;
+        this.minRows = minRows;
+    }
+
+    /**
+     * The balances of an account rebuilt from its latest checkpoint and the ledger rows after it.
+     */
+    public record AccountRebuild(UUID accountId, long checkpointSequence, long replayedRows, long unknownRows,
+                                 long balanceAvailable, long balancePending) {
+    }
+
+    // -------------------------------------------------------------------------
+    // CHECKPOINTS
+    // -------------------------------------------------------------------------
+    @Scheduled(fixedDelayString = "${ironledger.checkpoint.interval-ms:3600000}",
+               initialDelayString = "${ironledger.checkpoint.initial-delay-ms:600000}")
+    public void checkpointAll() {
+        if (!enabled) return;
+
+        int created = 0;
+        Page<Account> page = accountRepository.findAll(PageRequest.of(0, PAGE_SIZE, Sort.by("id")));
+        while (true) {
+            for (Account account : page) {
+                try {
+                    if (checkpoint(account.getId(), minRows).isPresent()) created++;
+                } catch (RuntimeException e) {
+                    log.warn("Checkpoint failed for account {}", account.getId(), e);
+                }
+            }
+            if (!page.hasNext()) break;
+            page = accountRepository.findAll(page.nextPageable());
+        }
+        log.info("Created {} ledger checkpoints", created);
+    }
+
+    /**
+     * Write a new checkpoint if at least {@code minRows} settled ledger rows follow the latest one.
+     */
+    public Optional<LedgerCheckpoint> checkpoint(UUID accountId, long minRows) {
+        return writeTemplate.execute(status -> {
+            Optional<LedgerCheckpoint> latest = checkpointRepository.findTopByAccountIdOrderBySequenceDesc(accountId);
+            OffsetDateTime horizon = OffsetDateTime.now(SG_ZONE).minusSeconds(settleSeconds);
+
+            LedgerReplay replay = replayFrom(accountId, latest, horizon);
+            if (replay.rows() == 0 || replay.rows() < minRows) return Optional.<LedgerCheckpoint>empty();
+            if (replay.unknownRows() > 0) {
+                log.warn("Account {} has {} ledger rows of unknown type; checkpoint skipped", accountId, replay.unknownRows());
+                return Optional.<LedgerCheckpoint>empty();
+            }
+
+            LedgerCheckpoint checkpoint = LedgerCheckpoint.builder()
+                    .accountId(accountId)
+                    .sequence(latest.map(LedgerCheckpoint::getSequence).orElse(0L) + 1)
+                    .lastCreatedAt(replay.lastCreatedAt())
+                    .lastLedgerId(replay.lastId())
+                    .balanceAvailable(latest.map(LedgerCheckpoint::getBalanceAvailable).orElse(0L) + replay.availableDelta())
+                    .balancePending(latest.map(LedgerCheckpoint::getBalancePending).orElse(0L) + replay.pendingDelta())
+                    .rowCount(latest.map(LedgerCheckpoint::getRowCount).orElse(0L) + replay.rows())
+                    .createdAt(OffsetDateTime.now(SG_ZONE))
+                    .build();
+            return Optional.of(checkpointRepository.save(checkpoint));
+        });
+    }
+
+    // -------------------------------------------------------------------------
+    // REBUILD / VERIFY
+    // -------------------------------------------------------------------------
+    public AccountRebuild rebuild(UUID accountId) {
+        return snapshotTemplate.execute(status -> rebuildInSnapshot(accountId));
+    }
+
+    /**
+     * Compare an account's stored balances (including striped buckets) with the balances rebuilt from the ledger.
+     */
+    public AccountVerificationResponse verify(UUID userId, UUID accountId) {
+        return snapshotTemplate.execute(status -> {
+            Account account = accountRepository.findById(accountId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Account not found"));
+            if (!account.getUserId().equals(userId)) {
+                throw new ResourceNotFoundException("Account not found");
+            }
+            return verifyInSnapshot(account);
+        });
+    }
+
+    /**
+     * {@link #verify(UUID, UUID)} without the ownership check, for background jobs.
+     */
+    public AccountVerificationResponse verify(UUID accountId) {
+        return snapshotTemplate.execute(status -> verifyInSnapshot(accountRepository.findById(accountId)
+                .orElseThrow(() -> new ResourceNotFoundException("Account not found"))));
+    }
+
+    private AccountVerificationResponse verifyInSnapshot(Account account) {
+        UUID accountId = account.getId();
+        AccountRebuild rebuilt = rebuildInSnapshot(accountId);
+        Map<UUID, Long> buckets = accountStripingService.bucketTotals(List.of(account));
+        long actualAvailable = account.getBalanceAvailable() + buckets.getOrDefault(accountId, 0L);
+
+        return AccountVerificationResponse.builder()
+                .accountId(accountId)
+                .checkpointSequence(rebuilt.checkpointSequence())
+                .replayedRows(rebuilt.replayedRows())
+                .unknownRows(rebuilt.unknownRows())
+                .expectedAvailable(rebuilt.balanceAvailable())
+                .expectedPending(rebuilt.balancePending())
+                .actualAvailable(actualAvailable)
+                .actualPending(account.getBalancePending())
+                .consistent(rebuilt.unknownRows() == 0
+                        && rebuilt.balanceAvailable() == actualAvailable
+                        && rebuilt.balancePending() == account.getBalancePending())
+                .build();
+    }
+
+    /**
+     * The balances of an account as of an instant (inclusive), rebuilt from the latest checkpoint
+     * before it and the ledger rows between the two.
+     */
+    public AccountRebuild rebuildAsOf(UUID accountId, OffsetDateTime asOf) {
+        Optional<LedgerCheckpoint> latest =
+                checkpointRepository.findTopByAccountIdAndLastCreatedAtLessThanEqualOrderBySequenceDesc(accountId, asOf);
+        // Row timestamps have microsecond precision; "< asOf + 1µs" is "<= asOf"
+        LedgerReplay replay = replayFrom(accountId, latest, asOf.truncatedTo(ChronoUnit.MICROS).plus(1, ChronoUnit.MICROS));
+
+        return new AccountRebuild(accountId,
+                latest.map(LedgerCheckpoint::getSequence).orElse(0L),
+                replay.rows(),
+                replay.unknownRows(),
+                latest.map(LedgerCheckpoint::getBalanceAvailable).orElse(0L) + replay.availableDelta(),
+                latest.map(LedgerCheckpoint::getBalancePending).orElse(0L) + replay.pendingDelta());
+    }
+
+    private AccountRebuild rebuildInSnapshot(UUID accountId) {
+        Optional<LedgerCheckpoint> latest = checkpointRepository.findTopByAccountIdOrderBySequenceDesc(accountId);
+        LedgerReplay replay = replayFrom(accountId, latest, null);
+
+        return new AccountRebuild(accountId,
+                latest.map(LedgerCheckpoint::getSequence).orElse(0L),
+                replay.rows(),
+                replay.unknownRows(),
+                latest.map(LedgerCheckpoint::getBalanceAvailable).orElse(0L) + replay.availableDelta(),
+                latest.map(LedgerCheckpoint::getBalancePending).orElse(0L) + replay.pendingDelta());
+    }
+
+    private LedgerReplay replayFrom(UUID accountId, Optional<LedgerCheckpoint> checkpoint, OffsetDateTime before) {
+        OffsetDateTime afterCreatedAt = checkpoint.map(LedgerCheckpoint::getLastCreatedAt).orElse(LedgerReplayRepository.START_CREATED_AT);
+        UUID afterId = checkpoint.map(LedgerCheckpoint::getLastLedgerId).orElse(LedgerReplayRepository.START_ID);
+        LedgerReplay hot = replayRepository.replay(accountId, afterCreatedAt, afterId, before);
+
+        // Archived months were dropped from the database; a checkpoint before the horizon replays them from the archive
+        Optional<OffsetDateTime> horizon = ledgerArchive.flatMap(LedgerArchive::horizon);
+        if (horizon.isEmpty() || !afterCreatedAt.isBefore(horizon.get())) return hot;
+
+        OffsetDateTime archiveEnd = before != null && before.isBefore(horizon.get()) ? before : horizon.get();
+        ArchiveReplay archived = new ArchiveReplay();
+        ledgerArchive.get().scanAfter(accountId, afterCreatedAt, afterId, archiveEnd, archived);
+        return archived.result().followedBy(hot);
+    }
+}
@@ -0,0 +1,251 @@
+package com.ironledger.wallet.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ironledger.wallet.archive.LedgerArchive;
+import com.ironledger.wallet.dto.Ledger.LedgerEntryResponse;
+import com.ironledger.wallet.dto.Ledger.LedgerHistoryResponse;
+import com.ironledger.wallet.entity.Account;
+import com.ironledger.wallet.exception.InvalidRequestException;
+import com.ironledger.wallet.exception.ResourceNotFoundException;
+import com.ironledger.wallet.repository.AccountRepository;
+import com.ironledger.wallet.repository.LedgerRepository;
+import com.ironledger.wallet.utils.LedgerCursor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Read side of the ledger: account history and statement export.
+ *
+ * With the ledger archive enabled, reads go through to it: rows older than the archive horizon come
+ * from archive segments, newer rows from PostgreSQL, and both are merged in order.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LedgerHistoryService {
+    private final AccountRepository accountRepository;
+    private final LedgerRepository ledgerRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Optional<LedgerArchive> ledgerArchive;
+
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private static final int EXPORT_FETCH_SIZE = 2000;
+    private static final int EXPORT_BUFFER_BYTES = 64 * 1024;
+
+    private static final String EXPORT_SQL =
+            "SELECT id, reference_id, type, status, amount, currency, " +
+            "balance_before, balance_after, pending_before, pending_after, created_at, bucket_credit " +
+            "FROM core_ledger_transaction " +
+            "WHERE account_id = ? AND created_at >= ? AND created_at < ? " +
+            "ORDER BY created_at, id";
+
+    private static final String CSV_HEADER =
+            "transaction_id,reference_id,type,status,amount,currency," +
+            "balance_before,balance_after,pending_before,pending_after,created_at,bucket_credit\n";
+
+    // Last line of a complete export; a statement without it was cut off
+    private static final String CSV_TRAILER = "#end,%d\n";
+    private static final String NDJSON_TRAILER = "{\"end\":true,\"rows\":%d}\n";
+
+    public enum ExportFormat {
+        CSV("text/csv"), NDJSON("application/x-ndjson");
+
+        private final String contentType;
+
+        ExportFormat(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public static ExportFormat parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidRequestException("Export format must be csv or ndjson");
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // HISTORY (keyset pagination, newest first)
+    // -------------------------------------------------------------------------
+    public LedgerHistoryResponse history(UUID userId, UUID accountId, String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidRequestException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        requireOwnedAccount(userId, accountId);
+
+        // One extra row tells whether another page exists
+        LedgerCursor after = cursor == null || cursor.isBlank() ? null : LedgerCursor.decode(cursor);
+        Limit fetch = Limit.of(limit + 1);
+        List<LedgerEntryResponse> rows = after == null
+                ? ledgerRepository.findHistory(accountId, fetch)
+                : ledgerRepository.findHistoryBefore(accountId, after.createdAt(), after.id(), fetch);
+
+        // Hot rows ran out: continue below the last row seen in the archive, which only holds older rows
+        if (rows.size() <= limit && ledgerArchive.isPresent()) {
+            rows = new ArrayList<>(rows);
+            LedgerEntryResponse last = rows.isEmpty() ? null : rows.get(rows.size() - 1);
+            OffsetDateTime beforeCreatedAt = last != null ? last.getCreatedAt() : after != null ? after.createdAt() : null;
+            UUID beforeId = last != null ? last.getTransactionId() : after != null ? after.id() : null;
+            for (var row : ledgerArchive.get().history(accountId, beforeCreatedAt, beforeId, limit + 1 - rows.size())) {
+                rows.add(row.toEntry());
+            }
+        }
+
+        if (rows.size() <= limit) return new LedgerHistoryResponse(rows, null);
+
+        List<LedgerEntryResponse> page = rows.subList(0, limit);
+        LedgerEntryResponse last = page.get(limit - 1);
+        return new LedgerHistoryResponse(page, new LedgerCursor(last.getCreatedAt(), last.getTransactionId()).encode());
+    }
+
+    Account requireOwnedAccount(UUID userId, UUID accountId) {
+        Account account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new ResourceNotFoundException("Account not found"));
+        if (!account.getUserId().equals(userId)) {
+            throw new ResourceNotFoundException("Account not found");
+        }
+        return account;
+    }
+
+    // -------------------------------------------------------------------------
+    // STATEMENT EXPORT (streamed, constant memory)
+    // -------------------------------------------------------------------------
+
+    /**
+     * Prepare a statement export of [from, to) in chronological order.
+     * Ownership is checked here, so errors still become normal error responses; rows are only read
+     * once the returned body is written. Rows are pulled through a server-side cursor
+     * ({@code EXPORT_FETCH_SIZE} at a time, inside a transaction so PostgreSQL keeps the portal open)
+     * and written straight to the response.
+     *
+     * A complete export ends with a trailer line carrying the number of rows written:
+     * {@code #end,<rows>} for CSV, {@code {"end":true,"rows":<rows>}} for NDJSON. It is only written once
+     * every row has been, so a statement cut off by a timeout or a failed read can be told apart from a
+     * complete one.
+     */
+    public StreamingResponseBody export(UUID userId, UUID accountId, OffsetDateTime from, OffsetDateTime to,
+                                        ExportFormat format, boolean gzip) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new InvalidRequestException("'from' must be before 'to'");
+        }
+        requireOwnedAccount(userId, accountId);
+
+        OffsetDateTime start = from != null ? from : OffsetDateTime.parse("1970-01-01T00:00:00Z");
+        OffsetDateTime end = to != null ? to : OffsetDateTime.parse("9999-12-31T00:00:00Z");
+
+        return out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, EXPORT_BUFFER_BYTES) : out;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), EXPORT_BUFFER_BYTES);
+            long[] rows = {0};
+            try {
+                if (format == ExportFormat.CSV) writer.write(CSV_HEADER);
+
+                // Archived rows are all older than the horizon, hot rows all at or after it
+                OffsetDateTime hotStart = start;
+                Optional<OffsetDateTime> horizon = ledgerArchive.flatMap(LedgerArchive::horizon);
+                if (horizon.isPresent() && horizon.get().isAfter(start)) {
+                    OffsetDateTime archiveEnd = horizon.get().isBefore(end) ? horizon.get() : end;
+                    ledgerArchive.get().scan(accountId, start, archiveEnd,
+                            row -> {
+                                writeEntry(writer, format, row.toEntry());
+                                rows[0]++;
+                            });
+                    hotStart = archiveEnd;
+                }
+
+                OffsetDateTime hotFrom = hotStart;
+                if (hotFrom.isBefore(end)) {
+                    transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(
+                            con -> {
+                                var ps = con.prepareStatement(EXPORT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                                ps.setFetchSize(EXPORT_FETCH_SIZE);
+                                ps.setObject(1, accountId);
+                                ps.setObject(2, hotFrom);
+                                ps.setObject(3, end);
+                                return ps;
+                            },
+                            rs -> {
+                                writeRow(writer, format, rs);
+                                rows[0]++;
+                            }));
+                }
+
+                writer.write(String.format(format == ExportFormat.CSV ? CSV_TRAILER : NDJSON_TRAILER, rows[0]));
+                writer.flush();
+                if (target instanceof GZIPOutputStream gz) gz.finish();
+            } catch (UncheckedIOException e) {
+                // Client went away: the failed write aborted the query and rolled back; nothing left to send
+                log.debug("Ledger export for account {} aborted: {}", accountId, e.getCause().getMessage());
+            }
+        };
+    }
+
+    private void writeRow(Writer writer, ExportFormat format, ResultSet rs) throws SQLException {
+        LedgerEntryResponse entry = new LedgerEntryResponse(
+                rs.getObject(1, UUID.class), rs.getString(2), rs.getString(3), rs.getInt(4),
+                rs.getLong(5), rs.getString(6), rs.getLong(7), rs.getLong(8), rs.getLong(9), rs.getLong(10),
+                rs.getObject(11, OffsetDateTime.class), rs.getBoolean(12));
+        writeEntry(writer, format, entry);
+    }
+
+    private void writeEntry(Writer writer, ExportFormat format, LedgerEntryResponse entry) {
+        try {
+            if (format == ExportFormat.NDJSON) {
+                writer.write(objectMapper.writeValueAsString(entry));
+            } else {
+                writer.write(entry.getTransactionId().toString());
+                writer.write(',');
+                writer.write(csv(entry.getReferenceId()));
+                writer.write(',');
+                writer.write(csv(entry.getType()));
+                writer.write(',' + entry.getStatus().toString());
+                writer.write(',' + entry.getAmount().toString());
+                writer.write(',');
+                writer.write(csv(entry.getCurrency()));
+                // Empty for bucket credits
+                writer.write(',' + Objects.toString(entry.getBalanceBefore(), ""));
+                writer.write(',' + Objects.toString(entry.getBalanceAfter(), ""));
+                writer.write(',' + entry.getPendingBefore().toString());
+                writer.write(',' + entry.getPendingAfter().toString());
+                writer.write(',');
+                writer.write(entry.getCreatedAt().toString());
+                writer.write(',' + entry.getBucketCredit().toString());
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String csv(String value) {
+        if (value == null) return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,163 @@
+package com.ironledger.wallet.service;
+
+import com.ironledger.wallet.archive.LedgerArchive;
+import com.ironledger.wallet.repository.LedgerPartitionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Keeps the monthly partitions of core_ledger_transaction in shape (see db/ledger_partitioning.sql).
+ *
+ * Partitions for the current month and {@code months-ahead} months after it are created in advance,
+ * so inserts never wait on DDL and never fail for lack of a partition. With {@code retention-months}
+ * above zero, partitions that ended more than that many months ago are detached (the table is kept
+ * for archiving). Before detaching, every account with rows in the partition is checkpointed past
+ * them, so rebuilds and verification stay correct without the detached rows.
+ *
+ * With the ledger archive enabled, months older than {@code ironledger.archive.after-months} are
+ * first written to an archive segment, checked against the partition's row count, and then
+ * detached and dropped. Reads switch to the segment as soon as it is written. This only happens once the
+ * archive directory is declared shared by every node ({@code ironledger.archive.shared}, see LedgerArchiveConfig).
+ *
+ * Does nothing while the table is not partitioned.
+ */
+@Slf4j
+@Service
+public class LedgerPartitionManager {
+
+    private static final ZoneId SG_ZONE = ZoneId.of("Asia/Singapore");
+
+    private final LedgerPartitionRepository partitionRepository;
+    private final LedgerCheckpointService checkpointService;
+    private final Optional<LedgerArchive> ledgerArchive;
+    private final TransactionTemplate readTemplate;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final int archiveAfterMonths;
+    private final boolean archiveShared;
+
+    public LedgerPartitionManager(LedgerPartitionRepository partitionRepository,
+                                  LedgerCheckpointService checkpointService,
+                                  Optional<LedgerArchive> ledgerArchive,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${ironledger.partitioning.enabled:true}") boolean enabled,
+                                  @Value("${ironledger.partitioning.months-ahead:3}") int monthsAhead,
+                                  @Value("${ironledger.partitioning.retention-months:0}") int retentionMonths,
+                                  @Value("${ironledger.archive.after-months:18}") int archiveAfterMonths,
+                                  @Value("${ironledger.archive.shared:false}") boolean archiveShared) {
+        this.partitionRepository = partitionRepository;
+        this.checkpointService = checkpointService;
+        this.ledgerArchive = ledgerArchive;
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        // Row count and row stream must come from the same snapshot
+        this.readTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.readTemplate.setReadOnly(true);
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.archiveAfterMonths = archiveAfterMonths;
+        this.archiveShared = archiveShared;
+    }
+
+    @Scheduled(fixedDelayString = "${ironledger.partitioning.interval-ms:21600000}",
+               initialDelayString = "${ironledger.partitioning.initial-delay-ms:10000}")
+    public void maintain() {
+        if (!enabled) return;
+        if (!partitionRepository.isPartitioned()) {
+            log.debug("{} is not partitioned; skipping partition maintenance", LedgerPartitionRepository.PARENT);
+            return;
+        }
+
+        YearMonth current = YearMonth.now(SG_ZONE);
+        createAhead(current);
+        ledgerArchive.ifPresent(archive -> archiveExpired(archive, current.minusMonths(archiveAfterMonths)));
+        if (retentionMonths > 0) detachExpired(current.minusMonths(retentionMonths));
+    }
+
+    // -------------------------------------------------------------------------
+    // CREATE
+    // -------------------------------------------------------------------------
+    private void createAhead(YearMonth current) {
+        List<YearMonth> attached = partitionRepository.attachedMonths();
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            if (attached.contains(month)) continue;
+
+            partitionRepository.create(month);
+            log.info("Created ledger partition {}", LedgerPartitionRepository.nameOf(month));
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // RETENTION
+    // -------------------------------------------------------------------------
+
+    // Detaches attached partitions of months before the cutoff month, oldest first
+    private void detachExpired(YearMonth cutoff) {
+        for (YearMonth month : partitionRepository.attachedMonths()) {
+            if (!month.isBefore(cutoff)) break;
+            if (!coverWithCheckpoints(month)) {
+                log.warn("Ledger partition {} not detached: some accounts could not be checkpointed past it",
+                        LedgerPartitionRepository.nameOf(month));
+                break;
+            }
+
+            partitionRepository.detach(month);
+            log.info("Detached expired ledger partition {}", LedgerPartitionRepository.nameOf(month));
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // ARCHIVE
+    // -------------------------------------------------------------------------
+
+    // Moves attached partitions of months before the cutoff month into the archive, oldest first
+    private void archiveExpired(LedgerArchive archive, YearMonth cutoff) {
+        if (!archiveShared) {
+            log.warn("Ledger archive enabled but ironledger.archive.shared is not set; no partition archived or dropped");
+            return;
+        }
+        for (YearMonth month : partitionRepository.attachedMonths()) {
+            if (!month.isBefore(cutoff)) break;
+            String name = LedgerPartitionRepository.nameOf(month);
+            if (!coverWithCheckpoints(month)) {
+                log.warn("Ledger partition {} not archived: some accounts could not be checkpointed past it", name);
+                break;
+            }
+
+            // A segment left by an earlier run that stopped before the drop is reused
+            if (!archive.contains(month)) {
+                long archived = readTemplate.execute(status -> archive.archive(month,
+                        partitionRepository.count(month), sink -> partitionRepository.forEachRow(month, sink)));
+                log.info("Archived {} rows of ledger partition {}", archived, name);
+            }
+
+            partitionRepository.detach(month);
+            partitionRepository.drop(month);
+            log.info("Dropped archived ledger partition {}", name);
+        }
+    }
+
+    private boolean coverWithCheckpoints(YearMonth month) {
+        for (UUID accountId : partitionRepository.accountsWithoutCheckpoint(month)) {
+            try {
+                checkpointService.checkpoint(accountId, 1);
+            } catch (RuntimeException e) {
+                log.warn("Checkpoint failed for account {}", accountId, e);
+            }
+        }
+        return partitionRepository.accountsWithoutCheckpoint(month).isEmpty();
+    }
+}
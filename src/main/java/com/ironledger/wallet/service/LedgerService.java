@@ -2,51 +2,94 @@ package com.ironledger.wallet.service;
 
 import com.ironledger.wallet.context.RequestContextHolder;
 import com.ironledger.wallet.dto.Ledger.AmountRequest;
+import com.ironledger.wallet.dto.Ledger.BatchPostingItem;
+import com.ironledger.wallet.dto.Ledger.BatchPostingRequest;
+import com.ironledger.wallet.dto.Ledger.BatchPostingResponse;
+import com.ironledger.wallet.dto.Ledger.BatchPostingResult;
 import com.ironledger.wallet.dto.Ledger.LedgerResponse;
+import com.ironledger.wallet.engine.BalanceEngine;
+import com.ironledger.wallet.engine.DuplicateIdempotencyKeyException;
+import com.ironledger.wallet.engine.EngineIdempotencyKey;
+import com.ironledger.wallet.engine.EngineOperation;
 import com.ironledger.wallet.entity.Account;
+import com.ironledger.wallet.entity.Hold;
 import com.ironledger.wallet.entity.LedgerTransaction;
 import com.ironledger.wallet.exception.InvalidRequestException;
 import com.ironledger.wallet.exception.ResourceNotFoundException;
+import com.ironledger.wallet.repository.AccountBucketRepository.BucketCredit;
 import com.ironledger.wallet.repository.AccountRepository;
+import com.ironledger.wallet.repository.HoldRepository;
+import com.ironledger.wallet.repository.LedgerBatchRepository;
+import com.ironledger.wallet.repository.LedgerPostingRepository;
 import com.ironledger.wallet.repository.LedgerRepository;
-import com.ironledger.wallet.utils.MetaBuilder;
-import com.ironledger.wallet.utils.RefIdGenerator;
+import com.ironledger.wallet.utils.MonotonicUlidGenerator;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 public class LedgerService {
     private final LedgerRepository ledgerRepository;
     private final AccountRepository accountRepository;
+    private final LedgerBatchRepository ledgerBatchRepository;
+    private final LedgerPostingRepository ledgerPostingRepository;
+    private final IdempotencyService idempotencyService;
+    private final MonotonicUlidGenerator refIdGenerator;
+    private final Optional<BalanceEngine> balanceEngine;
+    private final AccountStripingService accountStripingService;
+    private final PostingPolicy postingPolicy;
+    private final RetryingTransactionExecutor transactionExecutor;
+    private final Optional<GroupCommitDispatcher> groupCommit;
+    private final HoldRepository holdRepository;
+    private final HoldExpiry holdExpiry;
 
     private static final ZoneId SG_ZONE = ZoneId.of("Asia/Singapore");
 
     // ------------------------------
     // CREDIT
     // ------------------------------
-    @Transactional
-    public LedgerResponse credit(UUID userId, UUID accountId, AmountRequest creditRequest) {
+    public LedgerResponse credit(UUID userId, UUID accountId, AmountRequest creditRequest, String idempotencyKey) {
+        return post("CREDIT", userId, accountId, creditRequest, idempotencyKey,
+                () -> doCredit(userId, accountId, creditRequest, idempotencyKey));
+    }
+
+    private LedgerResponse doCredit(UUID userId, UUID accountId, AmountRequest creditRequest, String idempotencyKey) {
         if(creditRequest.getAmount() <= 0) throw new InvalidRequestException("Amount must be positive");
 
+        //Idempotency
+        Optional<LedgerResponse> replay = idempotencyService.claim(userId, idempotencyKey, "CREDIT", accountId, creditRequest);
+        if (replay.isPresent()) return replay.get();
+
         String referenceId = generateReferenceId();
 
-        //Idempotency
-        Optional<LedgerTransaction> existing = findByReference(referenceId);
-        if (existing.isPresent()) return (new LedgerResponse(
-                existing.get().getId(), existing.get().getReferenceId(), existing.get().getType(),
-                existing.get().getAmount(), existing.get().getCreatedAt()
-        ));
+        // Striped accounts take credits on a bucket row, without the account lock
+        Optional<BucketCredit> bucketCredit = accountStripingService.tryCredit(
+                accountId, userId, creditRequest.getCurrency(), creditRequest.getAmount());
+        if (bucketCredit.isPresent()) {
+            LedgerTransaction tx = ledgerRepository.save(buildBucketCredit(userId, accountId, creditRequest.getAmount(),
+                    "CREDIT", referenceId, creditRequest.getCurrency(), bucketCredit.get()));
+            return respond(userId, idempotencyKey, "CREDIT", accountId, creditRequest, tx);
+        }
+
+        if (postingPolicy.modeFor("CREDIT", accountId) == PostingMode.SINGLE_STATEMENT) {
+            return postSingleStatement(userId, accountId, creditRequest.getAmount(), "CREDIT", referenceId,
+                    creditRequest, idempotencyKey);
+        }
 
-        //Lock account
-        Account account = lockAccount(userId, accountId);
+        Account account = loadAccount(userId, accountId, "CREDIT");
 
         if (!account.getCurrency().equals(creditRequest.getCurrency())) {
             throw new InvalidRequestException("Currency mismatch");
@@ -55,42 +98,43 @@ public class LedgerService {
         long before = account.getBalanceAvailable();
 
         account.setBalanceAvailable(before + amount);
-        accountRepository.save(account);
 
         LedgerTransaction tx = writeLedger(account, amount, "CREDIT", 1,
-                referenceId, account.getCurrency());
-
-        tx.setBalanceBefore(before);
-        tx.setBalanceAfter(account.getBalanceAvailable());
-
-        ledgerRepository.save(tx);
+                referenceId, before, account.getBalancePending());
+        accountRepository.save(account);
 
-        return (new LedgerResponse(
-                tx.getId(), tx.getReferenceId(), tx.getType(), tx.getAmount(), tx.getCreatedAt()
-        ));
+        return respond(userId, idempotencyKey, "CREDIT", accountId, creditRequest, tx);
     }
 
     // -------------------------------------------------------------------------
     // DIRECT DEBIT (available → decrease)
     // -------------------------------------------------------------------------
-    @Transactional
-    public LedgerResponse debit(UUID userId, UUID accountId, AmountRequest debitRequest) {
+    public LedgerResponse debit(UUID userId, UUID accountId, AmountRequest debitRequest, String idempotencyKey) {
+        return post("DEBIT", userId, accountId, debitRequest, idempotencyKey,
+                () -> doDebit(userId, accountId, debitRequest, idempotencyKey));
+    }
+
+    private LedgerResponse doDebit(UUID userId, UUID accountId, AmountRequest debitRequest, String idempotencyKey) {
         if(debitRequest.getAmount() <= 0) throw new InvalidRequestException("Amount must be positive");
+        //Idempotency
+        Optional<LedgerResponse> replay = idempotencyService.claim(userId, idempotencyKey, "DEBIT", accountId, debitRequest);
+        if (replay.isPresent()) return replay.get();
+
         String referenceId = generateReferenceId();
 
-        //Idempotency
-        Optional<LedgerTransaction> existing = findByReference(referenceId);
-        if (existing.isPresent()) return (new LedgerResponse(
-                existing.get().getId(), existing.get().getReferenceId(), existing.get().getType(),
-                existing.get().getAmount(), existing.get().getCreatedAt()
-        ));
-
-        //Lock account
-        Account account = lockAccount(userId, accountId);
+        // Striped accounts take the locking path, which can drain their buckets into the account first
+        if (postingPolicy.modeFor("DEBIT", accountId) == PostingMode.SINGLE_STATEMENT
+                && !accountStripingService.isStriped(accountId)) {
+            return postSingleStatement(userId, accountId, -debitRequest.getAmount(), "DEBIT", referenceId,
+                    debitRequest, idempotencyKey);
+        }
+
+        Account account = loadAccount(userId, accountId, "DEBIT");
         if (!account.getCurrency().equals(debitRequest.getCurrency())) {
             throw new InvalidRequestException("Currency mismatch");
         }
         long amount = debitRequest.getAmount();
+        accountStripingService.ensureAvailable(account, amount);
 
         if (account.getBalanceAvailable() < amount) {
             throw new InvalidRequestException("Insufficient funds");
@@ -99,42 +143,41 @@ public class LedgerService {
         long before = account.getBalanceAvailable();
 
         account.setBalanceAvailable(before - amount);
-        accountRepository.save(account);
 
         LedgerTransaction tx = writeLedger(account, -amount, "DEBIT", 1,
-                referenceId, account.getCurrency());
-
-        tx.setBalanceBefore(before);
-        tx.setBalanceAfter(account.getBalanceAvailable());
-
-        ledgerRepository.save(tx);
+                referenceId, before, account.getBalancePending());
+        accountRepository.save(account);
 
-        return (new LedgerResponse(
-                tx.getId(), tx.getReferenceId(), tx.getType(), tx.getAmount(), tx.getCreatedAt()
-        ));
+        return respond(userId, idempotencyKey, "DEBIT", accountId, debitRequest, tx);
     }
 
     // -------------------------------------------------------------------------
     // PENDING DEBIT (authorization hold)
     // -------------------------------------------------------------------------
-    @Transactional
-    public LedgerResponse pendingDebit(UUID userId, UUID accountId, AmountRequest debitRequest) {
+    /**
+     * Move funds from available to pending and open a {@link Hold} for them, to be captured or released
+     * by hold ID (HoldService). The hold is written in the same transaction as its ledger row, so pending
+     * debits always take the locking path, even with the balance engine enabled.
+     */
+    public LedgerResponse pendingDebit(UUID userId, UUID accountId, AmountRequest debitRequest, String idempotencyKey) {
+        return post("PENDING_DEBIT", userId, accountId, debitRequest, idempotencyKey,
+                () -> doPendingDebit(userId, accountId, debitRequest, idempotencyKey));
+    }
+
+    private LedgerResponse doPendingDebit(UUID userId, UUID accountId, AmountRequest debitRequest, String idempotencyKey) {
         if(debitRequest.getAmount() <= 0) throw new InvalidRequestException("Amount must be positive");
+        //Idempotency
+        Optional<LedgerResponse> replay = idempotencyService.claim(userId, idempotencyKey, "PENDING_DEBIT", accountId, debitRequest);
+        if (replay.isPresent()) return withHold(replay.get());
+
         String referenceId = generateReferenceId();
 
-        //Idempotency
-        Optional<LedgerTransaction> existing = findByReference(referenceId);
-        if (existing.isPresent()) return (new LedgerResponse(
-                existing.get().getId(), existing.get().getReferenceId(), existing.get().getType(),
-                existing.get().getAmount(), existing.get().getCreatedAt()
-        ));
-
-        //Lock account
-        Account account = lockAccount(userId, accountId);
+        Account account = loadAccount(userId, accountId, "PENDING_DEBIT");
         if (!account.getCurrency().equals(debitRequest.getCurrency())) {
             throw new InvalidRequestException("Currency mismatch");
         }
         long amount = debitRequest.getAmount();
+        accountStripingService.ensureAvailable(account, amount);
 
         if (account.getBalanceAvailable() < amount) {
             throw new InvalidRequestException("Insufficient funds");
@@ -146,90 +189,104 @@ public class LedgerService {
         // Move funds available → pending
         account.setBalanceAvailable(beforeAvail - amount);
         account.setBalancePending(beforePending + amount);
-        accountRepository.save(account);
 
-        LedgerTransaction tx = writeLedger(account, -amount, "PENDING_DEBIT", 0,
-                referenceId, account.getCurrency());
+        OffsetDateTime now = OffsetDateTime.now(SG_ZONE);
+        Hold hold = holdRepository.save(Hold.builder()
+                .accountId(accountId)
+                .userId(userId)
+                .currency(account.getCurrency())
+                .amount(amount)
+                .remaining(amount)
+                .status(Hold.ACTIVE)
+                .referenceId(referenceId)
+                .expiresAt(holdExpiry.deadlineFor(now))
+                .createdAt(now)
+                .updatedAt(now)
+                .build());
 
-        tx.setBalanceBefore(beforeAvail);
-        tx.setBalanceAfter(account.getBalanceAvailable());
-        tx.setPendingBefore(beforePending);
-        tx.setPendingAfter(account.getBalancePending());
+        LedgerTransaction tx = writeLedger(account, -amount, "PENDING_DEBIT", 0,
+                referenceId, hold.getId().toString(), beforeAvail, beforePending);
+        accountRepository.save(account);
+        holdExpiry.scheduleAfterCommit(hold.getId(), hold.getExpiresAt());
 
-        ledgerRepository.save(tx);
+        LedgerResponse response = toResponse(tx);
+        response.setHoldId(hold.getId());
+        idempotencyService.complete(userId, idempotencyKey, "PENDING_DEBIT", accountId, debitRequest, response);
+        return response;
+    }
 
-        return (new LedgerResponse(
-                tx.getId(), tx.getReferenceId(), tx.getType(), tx.getAmount(), tx.getCreatedAt()
-        ));
+    // Responses replayed from core_idempotency_key do not record the hold
+    private LedgerResponse withHold(LedgerResponse response) {
+        if (response.getHoldId() == null) {
+            holdRepository.findByReferenceId(response.getReferenceId()).ifPresent(h -> response.setHoldId(h.getId()));
+        }
+        return response;
     }
 
     // -------------------------------------------------------------------------
     // CAPTURE (pending → available decrease)
     // -------------------------------------------------------------------------
-    @Transactional
-    public LedgerResponse capture(UUID userId, UUID accountId, AmountRequest captureRequest) {
+    /**
+     * Amount-only capture, for pending funds that no active {@link Hold} covers (pending debits made
+     * before holds existed). Funds held by a hold can only be captured through HoldService, otherwise
+     * the hold would later release them a second time. Always takes the locking path.
+     */
+    public LedgerResponse capture(UUID userId, UUID accountId, AmountRequest captureRequest, String idempotencyKey) {
+        return post("CAPTURE", userId, accountId, captureRequest, idempotencyKey,
+                () -> doCapture(userId, accountId, captureRequest, idempotencyKey));
+    }
+
+    private LedgerResponse doCapture(UUID userId, UUID accountId, AmountRequest captureRequest, String idempotencyKey) {
         if(captureRequest.getAmount() <= 0) throw new InvalidRequestException("Amount must be positive");
+        //Idempotency
+        Optional<LedgerResponse> replay = idempotencyService.claim(userId, idempotencyKey, "CAPTURE", accountId, captureRequest);
+        if (replay.isPresent()) return replay.get();
+
         String referenceId = generateReferenceId();
 
-        //Idempotency
-        Optional<LedgerTransaction> existing = findByReference(referenceId);
-        if (existing.isPresent()) return (new LedgerResponse(
-                existing.get().getId(), existing.get().getReferenceId(), existing.get().getType(),
-                existing.get().getAmount(), existing.get().getCreatedAt()
-        ));
-
-        //Lock account
-        Account account = lockAccount(userId, accountId);
+        Account account = loadAccount(userId, accountId, "CAPTURE");
         if (!account.getCurrency().equals(captureRequest.getCurrency())) {
             throw new InvalidRequestException("Currency mismatch");
         }
         long amount = captureRequest.getAmount();
-
-        if (account.getBalanceAvailable() < amount) {
-            throw new InvalidRequestException("Insufficient funds");
-        }
+        ensureUnheldPending(account, amount);
 
         long pendingBefore = account.getBalancePending();
 
         account.setBalancePending(pendingBefore - amount);
-        accountRepository.save(account);
 
         LedgerTransaction tx = writeLedger(account, -amount, "CAPTURE", 1,
-                referenceId, account.getCurrency());
-
-        tx.setPendingBefore(pendingBefore);
-        tx.setPendingAfter(account.getBalancePending());
-
-        ledgerRepository.save(tx);
+                referenceId, account.getBalanceAvailable(), pendingBefore);
+        accountRepository.save(account);
 
-        return (new LedgerResponse(
-                tx.getId(), tx.getReferenceId(), tx.getType(), tx.getAmount(), tx.getCreatedAt()
-        ));
+        return respond(userId, idempotencyKey, "CAPTURE", accountId, captureRequest, tx);
     }
 
     // -------------------------------------------------------------------------
     // RELEASE (void pending debit)
     // -------------------------------------------------------------------------
-    @Transactional
-    public LedgerResponse release(UUID userId, UUID accountId, AmountRequest releaseRequest) {
+    /**
+     * Amount-only release, for pending funds that no active {@link Hold} covers; see {@link #capture}.
+     */
+    public LedgerResponse release(UUID userId, UUID accountId, AmountRequest releaseRequest, String idempotencyKey) {
+        return post("RELEASE", userId, accountId, releaseRequest, idempotencyKey,
+                () -> doRelease(userId, accountId, releaseRequest, idempotencyKey));
+    }
+
+    private LedgerResponse doRelease(UUID userId, UUID accountId, AmountRequest releaseRequest, String idempotencyKey) {
         if(releaseRequest.getAmount() <= 0) throw new InvalidRequestException("Amount must be positive");
-        String referenceId = generateReferenceId();
+        //Idempotency
+        Optional<LedgerResponse> replay = idempotencyService.claim(userId, idempotencyKey, "RELEASE", accountId, releaseRequest);
+        if (replay.isPresent()) return replay.get();
 
-        Optional<LedgerTransaction> existing = findByReference(referenceId);
-        if (existing.isPresent()) return (new LedgerResponse(
-                existing.get().getId(), existing.get().getReferenceId(), existing.get().getType(),
-                existing.get().getAmount(), existing.get().getCreatedAt()
-        ));
+        String referenceId = generateReferenceId();
 
-        Account account = lockAccount(userId, accountId);
+        Account account = loadAccount(userId, accountId, "RELEASE");
         if (!account.getCurrency().equals(releaseRequest.getCurrency())) {
             throw new InvalidRequestException("Currency mismatch");
         }
         long amount = releaseRequest.getAmount();
-
-        if (account.getBalancePending() < amount) {
-            throw new InvalidRequestException("Insufficient pending funds");
-        }
+        ensureUnheldPending(account, amount);
 
         long pendingBefore = account.getBalancePending();
         long availBefore = account.getBalanceAvailable();
@@ -237,37 +294,196 @@ public class LedgerService {
         // Move pending → available
         account.setBalancePending(pendingBefore - amount);
         account.setBalanceAvailable(availBefore + amount);
-        accountRepository.save(account);
 
         LedgerTransaction tx = writeLedger(account, amount, "RELEASE", 1,
-                referenceId, account.getCurrency());
+                referenceId, availBefore, pendingBefore);
+        accountRepository.save(account);
 
-        tx.setPendingBefore(pendingBefore);
-        tx.setPendingAfter(account.getBalancePending());
-        tx.setBalanceBefore(availBefore);
-        tx.setBalanceAfter(account.getBalanceAvailable());
+        return respond(userId, idempotencyKey, "RELEASE", accountId, releaseRequest, tx);
+    }
+
+    // Holds change only together with their account's row (locked, or version-checked on commit),
+    // so the sum read here cannot move under this posting
+    private void ensureUnheldPending(Account account, long amount) {
+        long unheld = account.getBalancePending() - holdRepository.sumActiveRemaining(account.getId());
+        if (unheld < amount) {
+            throw new InvalidRequestException("Insufficient pending funds outside active holds; capture or release the hold instead");
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // BATCH POSTING (many credits/debits, one transaction)
+    // -------------------------------------------------------------------------
+    @Transactional
+    public BatchPostingResponse postBatch(UUID userId, BatchPostingRequest request, String idempotencyKey) {
+        Optional<BatchPostingResponse> replay = idempotencyService.claimBatch(userId, idempotencyKey, request);
+        if (replay.isPresent()) return replay.get();
+
+        List<BatchPostingItem> items = request.getItems();
+
+        // Lock every touched account of the caller once, in sorted order; other users' accounts are never locked
+        Set<UUID> accountIds = new TreeSet<>();
+        for (BatchPostingItem item : items) accountIds.add(item.getAccountId());
+
+        Map<UUID, Account> accounts = new HashMap<>();
+        for (Account account : accountRepository.findAllByIdAndUserIdForUpdate(accountIds, userId)) {
+            accounts.put(account.getId(), account);
+        }
+
+        List<BatchPostingResult> results = new ArrayList<>(items.size());
+        List<LedgerTransaction> rows = new ArrayList<>(items.size());
+
+        for (int i = 0; i < items.size(); i++) {
+            BatchPostingItem item = items.get(i);
+            Account account = accounts.get(item.getAccountId());
+            if (account != null && "DEBIT".equals(item.getOperation())) {
+                accountStripingService.ensureAvailable(account, item.getAmount());
+            }
+
+            String error = validateBatchItem(userId, account, item);
+            if (error != null) {
+                results.add(BatchPostingResult.rejected(i, item.getAccountId(), error));
+                continue;
+            }
+
+            long amount = item.getAmount();
+            boolean credit = "CREDIT".equals(item.getOperation());
+            long before = account.getBalanceAvailable();
+            long after = credit ? before + amount : before - amount;
+
+            String referenceId = generateReferenceId();
+
+            account.setBalanceAvailable(after);
+
+            LedgerTransaction tx = buildLedger(account, credit ? amount : -amount, item.getOperation(), 1,
+                    referenceId, account.getCurrency());
+            tx.setId(UUID.randomUUID());
+            tx.setBalanceBefore(before);
+            tx.setBalanceAfter(after);
+            rows.add(tx);
+
+            results.add(BatchPostingResult.posted(i, account.getId(), tx.getId(), referenceId));
+        }
+
+        // One batched INSERT for all ledger rows; locked accounts are flushed once each on commit
+        ledgerBatchRepository.insertAll(rows);
+
+        BatchPostingResponse response = new BatchPostingResponse(rows.size(), items.size() - rows.size(), results);
+        idempotencyService.completeBatch(userId, idempotencyKey, response);
+        return response;
+    }
+
+    private String validateBatchItem(UUID userId, Account account, BatchPostingItem item) {
+        if (account == null || !account.getUserId().equals(userId)) return "Account not found";
+        if (!account.isActive()) return "Account is not active";
+        if (!account.getCurrency().equals(item.getCurrency())) return "Currency mismatch";
+        if ("DEBIT".equals(item.getOperation()) && account.getBalanceAvailable() < item.getAmount()) {
+            return "Insufficient funds";
+        }
+        return null;
+    }
+
+    // -------------------------------------------------------------------------
+    // SINGLE-WRITER ENGINE (optional, ironledger.ledger.engine.mode=sharded)
+    // -------------------------------------------------------------------------
+    // Runs outside any transaction: the engine commits the posting and its idempotency key together
+    // in its own batch transaction, so there is nothing for the caller to claim, complete or retry
+    private LedgerResponse postViaEngine(EngineOperation operation, UUID userId, UUID accountId,
+                                         AmountRequest request, String idempotencyKey) {
+        if (request.getAmount() <= 0) throw new InvalidRequestException("Amount must be positive");
+
+        String op = operation.name();
+        EngineIdempotencyKey key = idempotencyService.engineKey(userId, idempotencyKey, op, accountId, request);
+        try {
+            LedgerTransaction posted = balanceEngine.get().execute(operation, userId, accountId, request.getAmount(),
+                    request.getCurrency(), generateReferenceId(), RequestContextHolder.getLedgerMeta(), key);
+            LedgerResponse response = toResponse(posted);
+            idempotencyService.remember(userId, idempotencyKey, op, accountId, request, response);
+            return response;
+        } catch (DuplicateIdempotencyKeyException e) {
+            return idempotencyService.replay(userId, idempotencyKey, op, accountId, request);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // SINGLE-STATEMENT POSTING (check + update + ledger insert in one CTE)
+    // -------------------------------------------------------------------------
+    private LedgerResponse postSingleStatement(UUID userId, UUID accountId, long signedAmount, String type,
+                                               String referenceId, AmountRequest request, String idempotencyKey) {
+        // Balances and created_at are filled in by the statement, once it holds the account's row lock
+        LedgerTransaction row = buildLedger(accountId, userId, signedAmount, type, 1, referenceId,
+                request.getCurrency(), 0, 0, 0, 0);
+        row.setId(UUID.randomUUID());
+
+        // The statement keeps the account locked until commit, so it runs last: the response is recorded
+        // first, and the statement stamps its created_at on the idempotency key
+        LedgerResponse response = new LedgerResponse(row.getId(), referenceId, type, signedAmount, null, null);
+        idempotencyService.complete(userId, idempotencyKey, type, accountId, request, response);
+
+        ledgerPostingRepository.postAvailable(row, idempotencyKey)
+                .orElseThrow(() -> singleStatementRejection(userId, accountId, request.getCurrency()));
+
+        // Also the instance cached for the idempotency key once the transaction commits
+        response.setCreatedAt(row.getCreatedAt());
+        return response;
+    }
+
+    // The statement matched no row; read the account once to report the same error as the locking path
+    private RuntimeException singleStatementRejection(UUID userId, UUID accountId, String currency) {
+        Account account = accountRepository.findById(accountId).orElse(null);
+        if (account == null || !account.getUserId().equals(userId)) {
+            return new ResourceNotFoundException("Account not found");
+        }
+        if (!account.isActive()) return new InvalidRequestException("Account is not active");
+        if (!account.getCurrency().equals(currency)) return new InvalidRequestException("Currency mismatch");
+        return new InvalidRequestException("Insufficient funds");
+    }
 
-        ledgerRepository.save(tx);
+    private LedgerResponse respond(UUID userId, String idempotencyKey, String operation, UUID accountId,
+                                   AmountRequest request, LedgerTransaction tx) {
+        LedgerResponse response = toResponse(tx);
+        idempotencyService.complete(userId, idempotencyKey, operation, accountId, request, response);
+        return response;
+    }
 
-        return (new LedgerResponse(
-                tx.getId(), tx.getReferenceId(), tx.getType(), tx.getAmount(), tx.getCreatedAt()
-        ));
+    private LedgerResponse toResponse(LedgerTransaction tx) {
+        return new LedgerResponse(
+                tx.getId(), tx.getReferenceId(), tx.getType(), tx.getAmount(), tx.getCreatedAt(), null
+        );
     }
 
     // -------------------------------------------------------------------------
-    // IDEMPOTENCY CHECK
+    // CORE: Transaction + retry around a single posting
     // -------------------------------------------------------------------------
-    private Optional<LedgerTransaction> findByReference(String referenceId) {
-        if (referenceId == null) return Optional.empty();
-        return ledgerRepository.findByReferenceId(referenceId);
+    private LedgerResponse post(String operation, UUID userId, UUID accountId, AmountRequest request,
+                                String idempotencyKey, Supplier<LedgerResponse> posting) {
+        // Replays answered from memory never open a transaction
+        Optional<LedgerResponse> cached = idempotencyService.cached(userId, idempotencyKey, operation, accountId, request);
+        if (cached.isPresent()) return cached.get();
+
+        // Plain credits and debits go to the balance engine when it is enabled, or may share a commit with
+        // concurrent requests. Striped accounts are excluded because a failed debit may already have
+        // drained buckets into the in-memory account.
+        boolean plain = ("CREDIT".equals(operation) || "DEBIT".equals(operation))
+                && !accountStripingService.isStriped(accountId);
+        if (balanceEngine.isPresent() && plain) {
+            return postViaEngine(EngineOperation.valueOf(operation), userId, accountId, request, idempotencyKey);
+        }
+        if (groupCommit.isPresent() && plain) {
+            return groupCommit.get().execute(operation, accountId, posting);
+        }
+
+        return transactionExecutor.execute(posting);
     }
 
     // -------------------------------------------------------------------------
-    // CORE: Pessimistic Lock Account
+    // CORE: Load Account (pessimistic lock or versioned read, per posting policy)
     // -------------------------------------------------------------------------
-    private Account lockAccount(UUID userId, UUID accountId) {
-        Account account = accountRepository.findByIdForUpdate(accountId)
-                .orElseThrow(() -> new ResourceNotFoundException("Account not found"));
+    private Account loadAccount(UUID userId, UUID accountId, String operation) {
+        Optional<Account> loaded = postingPolicy.modeFor(operation, accountId) == PostingMode.OPTIMISTIC
+                ? accountRepository.findById(accountId)
+                : accountRepository.findByIdForUpdate(accountId);
+        Account account = loaded.orElseThrow(() -> new ResourceNotFoundException("Account not found"));
 
         if (!account.getUserId().equals(userId)) {
             throw new ResourceNotFoundException("Account not found");
@@ -283,44 +499,85 @@ public class LedgerService {
     // -------------------------------------------------------------------------
     // WRITE LEDGER
     // -------------------------------------------------------------------------
-    public LedgerTransaction writeLedger(Account account, long amount, String type, int status, String referenceId, String currency) {
-        Map<String, Object> meta = MetaBuilder.buildBaseMeta(
-                type,
-                RequestContextHolder.getIp(),
-                RequestContextHolder.getUserAgent()
-        );
-        meta.put("reference_id", referenceId);
+    /**
+     * Write the ledger row for a change already applied to the locked account.
+     * The "after" balances are taken from the account. The row is written exactly once, through JPA.
+     */
+    public LedgerTransaction writeLedger(Account account, long amount, String type, int status, String referenceId,
+                                         long balanceBefore, long pendingBefore) {
+        return writeLedger(account, amount, type, status, referenceId, null, balanceBefore, pendingBefore);
+    }
+
+    /**
+     * Same as {@link #writeLedger(Account, long, String, int, String, long, long)}, with an external reference
+     * (the hold ID for hold postings).
+     */
+    public LedgerTransaction writeLedger(Account account, long amount, String type, int status, String referenceId,
+                                         String externalRef, long balanceBefore, long pendingBefore) {
+        LedgerTransaction tx = stamped(account, buildLedger(account.getId(), account.getUserId(), amount, type, status,
+                referenceId, account.getCurrency(), balanceBefore, account.getBalanceAvailable(),
+                pendingBefore, account.getBalancePending()));
+        tx.setExternalRef(externalRef);
+        return ledgerRepository.save(tx);
+    }
+
+    /**
+     * Build, without writing it, the confirmed ledger row for a change already applied to the locked account.
+     * Written later together with others through {@link LedgerBatchRepository#insertAll}.
+     */
+    public LedgerTransaction buildPosting(Account account, long amount, String type, String referenceId,
+                                          long balanceBefore, long pendingBefore) {
+        return stamped(account, buildLedger(account.getId(), account.getUserId(), amount, type, 1, referenceId,
+                account.getCurrency(), balanceBefore, account.getBalanceAvailable(),
+                pendingBefore, account.getBalancePending()));
+    }
+
+    private LedgerTransaction buildLedger(Account account, long amount, String type, int status, String referenceId, String currency) {
+        return stamped(account, buildLedger(account.getId(), account.getUserId(), amount, type, status, referenceId,
+                currency, account.getBalanceAvailable(), account.getBalanceAvailable(),
+                account.getBalancePending(), account.getBalancePending()));
+    }
 
-        LedgerTransaction ledgerTransaction = LedgerTransaction.builder()
-                .accountId(account.getId())
-                .userId(account.getUserId())
+    // Rows written under the account's lock are stamped in posting order, so (created_at, id) orders them
+    private LedgerTransaction stamped(Account account, LedgerTransaction tx) {
+        tx.setCreatedAt(account.stampPosting(OffsetDateTime.now(SG_ZONE)));
+        return tx;
+    }
+
+    // Striped credits record the bucket's balance, since the account total is not read under lock.
+    // For the same reason they are stamped with the current time: they are not part of the account's chain.
+    public LedgerTransaction buildBucketCredit(UUID userId, UUID accountId, long amount, String type,
+                                               String referenceId, String currency, BucketCredit credit) {
+        LedgerTransaction tx = buildLedger(accountId, userId, amount, type, 1, referenceId, currency,
+                credit.bucketBefore(), credit.bucketAfter(), credit.accountPending(), credit.accountPending());
+        tx.setBucketCredit(true);
+        return tx;
+    }
+
+    private LedgerTransaction buildLedger(UUID accountId, UUID userId, long amount, String type, int status,
+                                          String referenceId, String currency,
+                                          long balanceBefore, long balanceAfter, long pendingBefore, long pendingAfter) {
+        return LedgerTransaction.builder()
+                .accountId(accountId)
+                .userId(userId)
                 .amount(amount)
                 .type(type)
                 .status(status)
                 .referenceId(referenceId)
-                .balanceBefore(account.getBalanceAvailable())
-                .balanceAfter(account.getBalanceAvailable())
-                .pendingBefore(account.getBalancePending())
-                .pendingAfter(account.getBalancePending())
+                .balanceBefore(balanceBefore)
+                .balanceAfter(balanceAfter)
+                .pendingBefore(pendingBefore)
+                .pendingAfter(pendingAfter)
                 .createdAt(OffsetDateTime.now(SG_ZONE))
-                .meta(meta)
+                .meta(RequestContextHolder.getLedgerMeta())
                 .currency(currency)
                 .build();
-
-        return ledgerRepository.save(ledgerTransaction);
     }
 
     // -------------------------------------------------------------------------
     // Reference ID Generation
     // -------------------------------------------------------------------------
     public String generateReferenceId() {
-        for (int i = 0; i < 5; i++) {
-            String refId = RefIdGenerator.generateRefId();
-            if (ledgerRepository.findByReferenceId(refId).isEmpty()) {
-                return refId;
-            }
-        }
-
-        throw new IllegalStateException("Unable to generate reference ID");
+        return refIdGenerator.nextRefId();
     }
 }
@@ -0,0 +1,306 @@
+package com.ironledger.wallet.service;
+
+import com.ironledger.wallet.dto.Transfer.PayoutLeg;
+import com.ironledger.wallet.dto.Transfer.PayoutLegResult;
+import com.ironledger.wallet.dto.Transfer.PayoutRequest;
+import com.ironledger.wallet.dto.Transfer.PayoutResponse;
+import com.ironledger.wallet.entity.Account;
+import com.ironledger.wallet.entity.LedgerTransaction;
+import com.ironledger.wallet.entity.Payout;
+import com.ironledger.wallet.entity.PayoutChunk;
+import com.ironledger.wallet.entity.Transfer;
+import com.ironledger.wallet.exception.DuplicateResourceException;
+import com.ironledger.wallet.exception.InvalidRequestException;
+import com.ironledger.wallet.exception.ResourceNotFoundException;
+import com.ironledger.wallet.repository.AccountBucketRepository.BucketCredit;
+import com.ironledger.wallet.repository.AccountRepository;
+import com.ironledger.wallet.repository.LedgerBatchRepository;
+import com.ironledger.wallet.repository.PayoutChunkRepository;
+import com.ironledger.wallet.repository.PayoutRepository;
+import com.ironledger.wallet.repository.TransferBatchRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * One-to-many payouts: one sender account, thousands of receivers (payroll, marketplace payouts).
+ *
+ * Legs are settled in chunks of {@code ironledger.payouts.chunk-size}, each chunk in one transaction.
+ * A chunk locks the sender once, together with its unstriped receivers, in ascending ID order like
+ * transfers; striped receivers are credited on a bucket row and stay unlocked. The chunk's total is
+ * checked against the sender's available balance up front: a chunk is either funded as a whole or
+ * all its legs are rejected. Credits are applied in receiver ID order, and the transfer and ledger
+ * rows of the chunk are written in JDBC batches.
+ *
+ * Legs are rejected one by one (unknown receiver, currency mismatch, ...) without affecting the
+ * others. Chunks commit independently; if one fails unexpectedly, it and every later chunk are
+ * reported NOT_PROCESSED.
+ *
+ * A payout requires an {@code Idempotency-Key}, claimed in core_payout before any leg is paid. Each
+ * chunk records its leg results in core_payout_chunk in its own transaction, under the payout's row
+ * lock. Submitting the same payout again with the same key replays the recorded chunks and settles
+ * only the rest, so a retry after a timeout or a NOT_PROCESSED chunk never pays a leg twice.
+ */
+@Slf4j
+@Service
+public class PayoutService {
+
+    private static final ZoneId SG_ZONE = ZoneId.of("Asia/Singapore");
+    private static final int MAX_KEY_LENGTH = 128;
+
+    private final AccountRepository accountRepository;
+    private final PayoutRepository payoutRepository;
+    private final PayoutChunkRepository payoutChunkRepository;
+    private final TransferBatchRepository transferBatchRepository;
+    private final LedgerBatchRepository ledgerBatchRepository;
+    private final LedgerService ledgerService;
+    private final AccountStripingService accountStripingService;
+    private final RetryingTransactionExecutor transactionExecutor;
+    private final int chunkSize;
+
+    public PayoutService(AccountRepository accountRepository,
+                         PayoutRepository payoutRepository,
+                         PayoutChunkRepository payoutChunkRepository,
+                         TransferBatchRepository transferBatchRepository,
+                         LedgerBatchRepository ledgerBatchRepository,
+                         LedgerService ledgerService,
+                         AccountStripingService accountStripingService,
+                         RetryingTransactionExecutor transactionExecutor,
+                         @Value("${ironledger.payouts.chunk-size:1000}") int chunkSize) {
+        if (chunkSize < 1) throw new IllegalArgumentException("ironledger.payouts.chunk-size must be positive");
+        this.accountRepository = accountRepository;
+        this.payoutRepository = payoutRepository;
+        this.payoutChunkRepository = payoutChunkRepository;
+        this.transferBatchRepository = transferBatchRepository;
+        this.ledgerBatchRepository = ledgerBatchRepository;
+        this.ledgerService = ledgerService;
+        this.accountStripingService = accountStripingService;
+        this.transactionExecutor = transactionExecutor;
+        this.chunkSize = chunkSize;
+    }
+
+    public PayoutResponse payout(UUID userId, PayoutRequest request, String idempotencyKey) {
+        // Plain read: a wrong sender fails the whole request before anything is locked
+        Account sender = accountRepository.findById(request.getFromAccount())
+                .filter(a -> a.getUserId().equals(userId))
+                .orElseThrow(() -> new ResourceNotFoundException("Sender account not found"));
+        if (!sender.getCurrency().equals(request.getCurrency())) {
+            throw new InvalidRequestException("Currency mismatch");
+        }
+
+        Payout payout = transactionExecutor.execute(() -> claim(userId, idempotencyKey, request));
+        UUID payoutId = payout.getId();
+        List<PayoutLeg> legs = request.getLegs();
+        List<PayoutLegResult> results = new ArrayList<>(legs.size());
+
+        // A retry first replays the chunks already settled
+        for (PayoutChunk chunk : payoutChunkRepository.findByPayoutIdOrderByFirstLegAsc(payoutId)) {
+            if (chunk.getFirstLeg() != results.size()) break;
+            results.addAll(chunk.getResults());
+        }
+
+        while (results.size() < legs.size()) {
+            int start = results.size();
+            try {
+                results.addAll(transactionExecutor.execute(() -> settleChunk(userId, payoutId, request, start)));
+            } catch (RuntimeException e) {
+                log.error("Payout {}: chunk from leg {} failed; {} leg(s) not processed",
+                        payoutId, start, legs.size() - start, e);
+                String error = e instanceof InvalidRequestException || e instanceof ResourceNotFoundException
+                        ? e.getMessage() : "Payout aborted";
+                for (int i = start; i < legs.size(); i++) {
+                    results.add(PayoutLegResult.notProcessed(i, legs.get(i), error));
+                }
+                break;
+            }
+        }
+
+        int completed = 0, rejected = 0, notProcessed = 0;
+        long totalPaid = 0;
+        for (PayoutLegResult result : results) {
+            switch (result.getStatus()) {
+                case PayoutLegResult.COMPLETED -> {
+                    completed++;
+                    totalPaid += result.getAmount();
+                }
+                case PayoutLegResult.REJECTED -> rejected++;
+                default -> notProcessed++;
+            }
+        }
+        return new PayoutResponse(payoutId, completed, rejected, notProcessed, totalPaid, results);
+    }
+
+    // Claim the key in its own transaction, or find the payout that claimed it first
+    private Payout claim(UUID userId, String idempotencyKey, PayoutRequest request) {
+        if (idempotencyKey == null || idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new InvalidRequestException("Payouts require an Idempotency-Key of 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String fingerprint = fingerprint(request);
+        payoutRepository.claim(UUID.randomUUID(), userId, idempotencyKey, fingerprint, OffsetDateTime.now(SG_ZONE));
+
+        Payout payout = payoutRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                .orElseThrow(() -> new IllegalStateException("Payout key vanished"));
+        if (!payout.getFingerprint().equals(fingerprint)) {
+            throw new DuplicateResourceException("Idempotency key was already used for a different request");
+        }
+        return payout;
+    }
+
+    // One transaction; re-run from scratch if the executor retries it
+    private List<PayoutLegResult> settleChunk(UUID userId, UUID payoutId, PayoutRequest request, int from) {
+        // 0. Lock the payout; a concurrent retry may have settled this chunk meanwhile
+        payoutRepository.findByIdForUpdate(payoutId)
+                .orElseThrow(() -> new IllegalStateException("Payout vanished"));
+        Optional<PayoutChunk> settled = payoutChunkRepository.findById(new PayoutChunk.Key(payoutId, from));
+        if (settled.isPresent()) return settled.get().getResults();
+
+        int to = Math.min(request.getLegs().size(), from + chunkSize);
+        List<PayoutLeg> legs = request.getLegs().subList(from, to);
+        UUID senderId = request.getFromAccount();
+
+        // 1. Lock the sender and the unstriped receivers in one query, in ascending ID order
+        Set<UUID> lockIds = new TreeSet<>();
+        Set<UUID> striped = new HashSet<>();
+        lockIds.add(senderId);
+        for (PayoutLeg leg : legs) {
+            UUID receiverId = leg.getToAccount();
+            if (!receiverId.equals(senderId) && accountStripingService.isStriped(receiverId)) striped.add(receiverId);
+            else lockIds.add(receiverId);
+        }
+        Map<UUID, Account> accounts = new HashMap<>();
+        for (Account account : accountRepository.findAllByIdForUpdate(lockIds)) accounts.put(account.getId(), account);
+        // Striped receivers are read without a lock; their version still guards the row
+        if (!striped.isEmpty()) {
+            for (Account account : accountRepository.findAllById(striped)) accounts.put(account.getId(), account);
+        }
+
+        Account sender = accounts.get(senderId);
+        if (sender == null || !sender.getUserId().equals(userId)) {
+            throw new ResourceNotFoundException("Sender account not found");
+        }
+        String currency = sender.getCurrency();
+
+        // 2. Reject the invalid legs and fund the rest as a whole
+        PayoutLegResult[] results = new PayoutLegResult[legs.size()];
+        List<Integer> valid = new ArrayList<>(legs.size());
+        long total = 0;
+        for (int i = 0; i < legs.size(); i++) {
+            PayoutLeg leg = legs.get(i);
+            String error = validateLeg(accounts.get(leg.getToAccount()), senderId, currency);
+            if (error != null) {
+                results[i] = PayoutLegResult.rejected(from + i, leg, error);
+                continue;
+            }
+            valid.add(i);
+            total += leg.getAmount();
+        }
+
+        if (!valid.isEmpty()) accountStripingService.ensureAvailable(sender, total);
+        if (sender.getBalanceAvailable() < total) {
+            for (int i : valid) results[i] = PayoutLegResult.rejected(from + i, legs.get(i), "Insufficient funds");
+            return record(payoutId, from, results);
+        }
+
+        // 3. Debit the sender and credit the receivers, in receiver ID order
+        valid.sort(Comparator.comparing(i -> legs.get(i).getToAccount()));
+        OffsetDateTime now = OffsetDateTime.now(SG_ZONE);
+        List<Transfer> transfers = new ArrayList<>(valid.size());
+        List<LedgerTransaction> rows = new ArrayList<>(valid.size() * 2);
+
+        for (int i : valid) {
+            PayoutLeg leg = legs.get(i);
+            Account receiver = accounts.get(leg.getToAccount());
+            long amount = leg.getAmount();
+            String referenceId = ledgerService.generateReferenceId();
+
+            long senderBefore = sender.getBalanceAvailable();
+            sender.setBalanceAvailable(senderBefore - amount);
+            rows.add(ledgerService.buildPosting(sender, -amount, "DEBIT", referenceId,
+                    senderBefore, sender.getBalancePending()));
+
+            Optional<BucketCredit> bucketCredit = striped.contains(receiver.getId())
+                    ? accountStripingService.tryCredit(receiver.getId(), null, currency, amount)
+                    : Optional.empty();
+            if (bucketCredit.isPresent()) {
+                rows.add(ledgerService.buildBucketCredit(receiver.getUserId(), receiver.getId(), amount, "CREDIT",
+                        referenceId, currency, bucketCredit.get()));
+            } else {
+                long receiverBefore = receiver.getBalanceAvailable();
+                receiver.setBalanceAvailable(receiverBefore + amount);
+                rows.add(ledgerService.buildPosting(receiver, amount, "CREDIT", referenceId,
+                        receiverBefore, receiver.getBalancePending()));
+            }
+
+            Transfer transfer = Transfer.builder()
+                    .id(UUID.randomUUID())
+                    .fromAccount(senderId)
+                    .toAccount(receiver.getId())
+                    .amount(amount)
+                    .currency(currency)
+                    .transferStatus("COMPLETED")
+                    .meta(legMeta(request, payoutId, from + i, leg))
+                    .createdBy(userId)
+                    .createdAt(now)
+                    .completedAt(now)
+                    .build();
+            transfers.add(transfer);
+            results[i] = PayoutLegResult.completed(from + i, leg, transfer.getId(), referenceId);
+        }
+
+        // 4. Batched INSERTs for all rows; locked accounts are flushed once each on commit
+        transferBatchRepository.insertAll(transfers);
+        ledgerBatchRepository.insertAll(rows);
+
+        return record(payoutId, from, results);
+    }
+
+    // 5. The chunk's results, committed with it
+    private List<PayoutLegResult> record(UUID payoutId, int from, PayoutLegResult[] results) {
+        List<PayoutLegResult> list = Arrays.asList(results);
+        payoutChunkRepository.save(PayoutChunk.builder()
+                .payoutId(payoutId)
+                .firstLeg(from)
+                .results(list)
+                .createdAt(OffsetDateTime.now(SG_ZONE))
+                .build());
+        return list;
+    }
+
+    private String validateLeg(Account receiver, UUID senderId, String currency) {
+        if (receiver == null) return "Receiver account not found";
+        if (receiver.getId().equals(senderId)) return "Cannot pay out to the sending account";
+        if (!receiver.getCurrency().equals(currency)) return "Currency mismatch";
+        return null;
+    }
+
+    // SHA-256 of what is paid: sender, currency and every leg in order
+    private static String fingerprint(PayoutRequest request) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 algorithm not available", e);
+        }
+        digest.update((request.getFromAccount() + "|" + request.getCurrency()).getBytes(StandardCharsets.UTF_8));
+        for (PayoutLeg leg : request.getLegs()) {
+            digest.update(("|" + leg.getToAccount() + ":" + leg.getAmount() + ":" + leg.getReference())
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private Map<String, Object> legMeta(PayoutRequest request, UUID payoutId, int index, PayoutLeg leg) {
+        Map<String, Object> meta = request.getMetadata() == null ? new HashMap<>() : new HashMap<>(request.getMetadata());
+        meta.put("payout_id", payoutId);
+        meta.put("payout_leg", index);
+        if (leg.getReference() != null) meta.put("reference", leg.getReference());
+        return meta;
+    }
+}
@@ -0,0 +1,14 @@
+package com.ironledger.wallet.service;
+
+/**
+ * How a balance mutation protects the account row against concurrent writers.
+ */
+public enum PostingMode {
+    // SELECT ... FOR UPDATE, held until commit
+    PESSIMISTIC,
+    // Plain read, then a version-checked (compare-and-set) update; conflicts are retried
+    OPTIMISTIC,
+    // Conditional UPDATE ... RETURNING plus ledger INSERT in one statement; credit and debit only,
+    // other operations treat it as PESSIMISTIC
+    SINGLE_STATEMENT
+}
@@ -0,0 +1,40 @@
+package com.ironledger.wallet.service;
+
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Chooses the posting mode per operation type.
+ *
+ * Configured with {@code ironledger.posting.mode.<operation>=PESSIMISTIC|OPTIMISTIC|SINGLE_STATEMENT}, where the operation is
+ * one of credit, debit, pending-debit, capture, release, transfer, reversal. Everything defaults to
+ * PESSIMISTIC. Striped accounts are hot by definition and always stay pessimistic.
+ */
+@Component
+public class PostingPolicy {
+
+    private static final List<String> OPERATIONS =
+            List.of("CREDIT", "DEBIT", "PENDING_DEBIT", "CAPTURE", "RELEASE", "TRANSFER", "REVERSAL");
+
+    private final Map<String, PostingMode> modes = new HashMap<>();
+    private final AccountStripingService accountStripingService;
+
+    public PostingPolicy(Environment environment, AccountStripingService accountStripingService) {
+        this.accountStripingService = accountStripingService;
+        for (String operation : OPERATIONS) {
+            String key = "ironledger.posting.mode." + operation.toLowerCase(Locale.ROOT).replace('_', '-');
+            modes.put(operation, environment.getProperty(key, PostingMode.class, PostingMode.PESSIMISTIC));
+        }
+    }
+
+    public PostingMode modeFor(String operation, UUID accountId) {
+        if (accountStripingService.isStriped(accountId)) return PostingMode.PESSIMISTIC;
+        return modes.getOrDefault(operation, PostingMode.PESSIMISTIC);
+    }
+}
@@ -0,0 +1,425 @@
+package com.ironledger.wallet.service;
+
+import com.ironledger.wallet.dto.Account.AccountVerificationResponse;
+import com.ironledger.wallet.entity.LedgerCheckpoint;
+import com.ironledger.wallet.entity.ReconciliationDiscrepancy;
+import com.ironledger.wallet.entity.ReconciliationRun;
+import com.ironledger.wallet.repository.LedgerCheckpointRepository;
+import com.ironledger.wallet.repository.ReconciliationDiscrepancyRepository;
+import com.ironledger.wallet.repository.ReconciliationRepository;
+import com.ironledger.wallet.repository.ReconciliationRepository.AccountBalance;
+import com.ironledger.wallet.repository.ReconciliationRepository.ChainRow;
+import com.ironledger.wallet.repository.ReconciliationRunRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Checks core_account balances against the ledger.
+ *
+ * For every account, each ledger row's balance_before and pending_before must equal the previous
+ * row's balance_after and pending_after, and the last row's after-balances must equal the account's
+ * stored balances. Striped accounts, and accounts with bucket credits in their history, do not keep
+ * one chain per account; they are checked by rebuilding their balances from checkpoints instead.
+ *
+ * A full run splits the sorted account IDs into ranges and checks them in parallel on a ForkJoinPool.
+ * Each leaf range is read in one REPEATABLE READ snapshot, so account balances and ledger rows agree.
+ * Postings still in flight in the balance engine show up as discrepancies until their batch commits.
+ */
+@Slf4j
+@Service
+public class ReconciliationService {
+
+    private static final ZoneId SG_ZONE = ZoneId.of("Asia/Singapore");
+    public static final String FULL = "FULL";
+    public static final String INCREMENTAL = "INCREMENTAL";
+
+    private final ReconciliationRepository reconciliationRepository;
+    private final ReconciliationRunRepository runRepository;
+    private final ReconciliationDiscrepancyRepository discrepancyRepository;
+    private final LedgerCheckpointRepository checkpointRepository;
+    private final LedgerCheckpointService checkpointService;
+    private final TransactionTemplate snapshotTemplate;
+    private final boolean enabled;
+    private final int parallelism;
+    private final int leafAccounts;
+    private final long maxDiscrepancies;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong lastRowsPerSecond = new AtomicLong();
+    private final ModeMeters fullMeters;
+    private final Timer runTimer;
+
+    public ReconciliationService(ReconciliationRepository reconciliationRepository,
+                                 ReconciliationRunRepository runRepository,
+                                 ReconciliationDiscrepancyRepository discrepancyRepository,
+                                 LedgerCheckpointRepository checkpointRepository,
+                                 LedgerCheckpointService checkpointService,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${ironledger.reconciliation.enabled:true}") boolean enabled,
+                                 @Value("${ironledger.reconciliation.parallelism:4}") int parallelism,
+                                 @Value("${ironledger.reconciliation.leaf-accounts:256}") int leafAccounts,
+                                 @Value("${ironledger.reconciliation.max-discrepancies:10000}") long maxDiscrepancies) {
+        this.reconciliationRepository = reconciliationRepository;
+        this.runRepository = runRepository;
+        this.discrepancyRepository = discrepancyRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.checkpointService = checkpointService;
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTemplate.setReadOnly(true);
+        this.enabled = enabled;
+        this.parallelism = parallelism;
+        this.leafAccounts = leafAccounts;
+        this.maxDiscrepancies = maxDiscrepancies;
+
+        this.fullMeters = meters(meterRegistry, FULL);
+        this.runTimer = Timer.builder("ironledger.reconciliation.duration")
+                .description("Duration of a reconciliation run")
+                .tag("mode", FULL.toLowerCase(Locale.ROOT))
+                .register(meterRegistry);
+        Gauge.builder("ironledger.reconciliation.throughput", lastRowsPerSecond, AtomicLong::get)
+                .description("Ledger rows per second checked by the last full reconciliation")
+                .tag("mode", FULL.toLowerCase(Locale.ROOT))
+                .baseUnit("rows/s")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Counters of one reconciliation mode, tagged {@code mode=full|incremental}.
+     */
+    record ModeMeters(Counter accounts, Counter rows, Counter discrepancies) {
+    }
+
+    static ModeMeters meters(MeterRegistry meterRegistry, String mode) {
+        String tag = mode.toLowerCase(Locale.ROOT);
+        return new ModeMeters(
+                Counter.builder("ironledger.reconciliation.accounts")
+                        .description("Accounts checked by reconciliation")
+                        .tag("mode", tag)
+                        .register(meterRegistry),
+                Counter.builder("ironledger.reconciliation.rows")
+                        .description("Ledger rows checked by reconciliation")
+                        .tag("mode", tag)
+                        .register(meterRegistry),
+                Counter.builder("ironledger.reconciliation.discrepancies")
+                        .description("Discrepancies found by reconciliation")
+                        .tag("mode", tag)
+                        .register(meterRegistry));
+    }
+
+    /**
+     * Reads the ledger rows to check for a set of accounts, grouped by account and in (created_at, id)
+     * order within each. Called inside the snapshot transaction.
+     */
+    interface ChainSource {
+        void forEach(Collection<UUID> accountIds, Consumer<ChainRow> consumer);
+    }
+
+    /**
+     * Totals of a range of accounts.
+     */
+    record Totals(long accounts, long rows, long discrepancies, long failedAccounts) {
+
+        static final Totals EMPTY = new Totals(0, 0, 0, 0);
+
+        Totals plus(Totals other) {
+            return new Totals(accounts + other.accounts, rows + other.rows,
+                    discrepancies + other.discrepancies, failedAccounts + other.failedAccounts);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // FULL RUN
+    // -------------------------------------------------------------------------
+    @Scheduled(cron = "${ironledger.reconciliation.cron:0 30 2 * * *}", zone = "Asia/Singapore")
+    public void nightly() {
+        if (!enabled) return;
+        try {
+            reconcileAll();
+        } catch (RuntimeException e) {
+            log.error("Nightly reconciliation failed", e);
+        }
+    }
+
+    /**
+     * Check every account. Only one full run executes at a time.
+     */
+    public ReconciliationRun reconcileAll() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A full reconciliation is already running");
+        }
+        try {
+            ReconciliationRun run = runRepository.save(ReconciliationRun.builder()
+                    .mode(FULL)
+                    .status(ReconciliationRun.RUNNING)
+                    .startedAt(OffsetDateTime.now(SG_ZONE))
+                    .build());
+
+            long started = System.nanoTime();
+            List<UUID> accountIds = reconciliationRepository.accountIds();
+            AtomicLong stored = new AtomicLong();
+
+            Totals totals;
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                totals = pool.invoke(new RangeTask(run.getId(), accountIds, 0, accountIds.size(), stored));
+            } catch (RuntimeException e) {
+                run.setStatus(ReconciliationRun.FAILED);
+                run.setFinishedAt(OffsetDateTime.now(SG_ZONE));
+                runRepository.save(run);
+                throw e;
+            } finally {
+                pool.shutdown();
+            }
+
+            long elapsed = System.nanoTime() - started;
+            runTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            long rowsPerSecond = totals.rows() * 1_000_000_000L / Math.max(1, elapsed);
+            lastRowsPerSecond.set(rowsPerSecond);
+
+            run.setAccountsChecked(totals.accounts());
+            run.setRowsChecked(totals.rows());
+            run.setDiscrepancies(totals.discrepancies());
+            run.setFailedAccounts(totals.failedAccounts());
+            run.setStatus(totals.failedAccounts() == 0 ? ReconciliationRun.COMPLETED : ReconciliationRun.FAILED);
+            run.setFinishedAt(OffsetDateTime.now(SG_ZONE));
+            runRepository.save(run);
+
+            log.info("Reconciliation {}: {} accounts, {} rows in {} ms ({} rows/s), {} discrepancies, {} accounts failed",
+                    run.getId(), totals.accounts(), totals.rows(), TimeUnit.NANOSECONDS.toMillis(elapsed),
+                    rowsPerSecond, totals.discrepancies(), totals.failedAccounts());
+            return run;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private final class RangeTask extends RecursiveTask<Totals> {
+
+        private final UUID runId;
+        private final List<UUID> accountIds;
+        private final int from;
+        private final int to;
+        private final AtomicLong stored;
+
+        RangeTask(UUID runId, List<UUID> accountIds, int from, int to, AtomicLong stored) {
+            this.runId = runId;
+            this.accountIds = accountIds;
+            this.from = from;
+            this.to = to;
+            this.stored = stored;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (to - from <= leafAccounts) {
+                List<UUID> range = accountIds.subList(from, to);
+                try {
+                    return check(runId, range, stored, reconciliationRepository::forEachChainRow, fullMeters);
+                } catch (RuntimeException e) {
+                    log.error("Reconciliation of {} accounts from {} failed", range.size(), range.get(0), e);
+                    return failed(runId, range, stored);
+                }
+            }
+            int mid = (from + to) >>> 1;
+            RangeTask left = new RangeTask(runId, accountIds, from, mid, stored);
+            left.fork();
+            Totals right = new RangeTask(runId, accountIds, mid, to, stored).compute();
+            return right.plus(left.join());
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // CHECKS
+    // -------------------------------------------------------------------------
+
+    /**
+     * Check a set of accounts and record what is wrong with them under the given run.
+     * The chain check starts at the first row the source returns per account; the balance check
+     * compares the last one with the stored balances.
+     *
+     * @param stored discrepancies recorded so far by the run, to cap the report size
+     */
+    Totals check(UUID runId, Collection<UUID> accountIds, AtomicLong stored, ChainSource source, ModeMeters meters) {
+        if (accountIds.isEmpty()) return Totals.EMPTY;
+
+        List<ReconciliationDiscrepancy> found = new ArrayList<>();
+        Set<UUID> rebuild = new HashSet<>();
+        long[] rows = {0};
+
+        Map<UUID, AccountBalance> balances = snapshotTemplate.execute(status -> {
+            Map<UUID, AccountBalance> accounts = reconciliationRepository.balances(accountIds);
+            ChainWalker walker = new ChainWalker(runId, accounts, found, rebuild);
+            source.forEach(accountIds, row -> {
+                rows[0]++;
+                walker.accept(row);
+            });
+            walker.finish();
+            return accounts;
+        });
+
+        for (UUID accountId : rebuild) {
+            AccountVerificationResponse verified = checkpointService.verify(accountId);
+            if (verified.getUnknownRows() > 0) {
+                found.add(discrepancy(runId, accountId, null, ReconciliationDiscrepancy.UNKNOWN_ROWS,
+                        0, verified.getUnknownRows()));
+            }
+            if (!verified.getExpectedAvailable().equals(verified.getActualAvailable())) {
+                found.add(discrepancy(runId, accountId, null, ReconciliationDiscrepancy.BALANCE_AVAILABLE,
+                        verified.getExpectedAvailable(), verified.getActualAvailable()));
+            }
+            if (!verified.getExpectedPending().equals(verified.getActualPending())) {
+                found.add(discrepancy(runId, accountId, null, ReconciliationDiscrepancy.BALANCE_PENDING,
+                        verified.getExpectedPending(), verified.getActualPending()));
+            }
+        }
+
+        if (!found.isEmpty()) {
+            long room = maxDiscrepancies - stored.getAndAdd(found.size());
+            if (room > 0) discrepancyRepository.saveAll(found.subList(0, (int) Math.min(room, found.size())));
+        }
+
+        meters.accounts().increment(balances.size());
+        meters.rows().increment(rows[0]);
+        meters.discrepancies().increment(found.size());
+        return new Totals(balances.size(), rows[0], found.size(), 0);
+    }
+
+    /**
+     * Record a set of accounts whose check failed: one CHECK_FAILED discrepancy each, within the run's
+     * report cap, so they show up in the run's report and can be checked again.
+     */
+    Totals failed(UUID runId, List<UUID> accountIds, AtomicLong stored) {
+        List<ReconciliationDiscrepancy> found = new ArrayList<>(accountIds.size());
+        for (UUID accountId : accountIds) {
+            found.add(discrepancy(runId, accountId, null, ReconciliationDiscrepancy.CHECK_FAILED, 0, 0));
+        }
+        long room = maxDiscrepancies - stored.getAndAdd(found.size());
+        if (room > 0) discrepancyRepository.saveAll(found.subList(0, (int) Math.min(room, found.size())));
+        return new Totals(0, 0, 0, accountIds.size());
+    }
+
+    // Follows the ledger rows of a range, account by account, as they stream in
+    private final class ChainWalker {
+
+        private final UUID runId;
+        private final Map<UUID, AccountBalance> balances;
+        private final List<ReconciliationDiscrepancy> found;
+        private final Set<UUID> rebuild;
+        private final Set<UUID> seen = new HashSet<>();
+        private final List<ReconciliationDiscrepancy> current = new ArrayList<>();
+
+        private UUID accountId;
+        private ChainRow previous;
+        private boolean chained;
+
+        ChainWalker(UUID runId, Map<UUID, AccountBalance> balances,
+                    List<ReconciliationDiscrepancy> found, Set<UUID> rebuild) {
+            this.runId = runId;
+            this.balances = balances;
+            this.found = found;
+            this.rebuild = rebuild;
+        }
+
+        void accept(ChainRow row) {
+            if (!row.accountId().equals(accountId)) {
+                finishAccount();
+                accountId = row.accountId();
+                seen.add(accountId);
+                previous = null;
+                AccountBalance balance = balances.get(accountId);
+                chained = balance != null && balance.stripeCount() <= 1;
+                if (balance != null && !chained) rebuild.add(accountId);
+            }
+            if (!chained) return;
+
+            if (row.bucketCredit()) {
+                // Bucket credits sit outside the account's chain: check this account by rebuild instead
+                chained = false;
+                current.clear();
+                rebuild.add(accountId);
+                return;
+            }
+            if (previous != null) {
+                if (row.balanceBefore() != previous.balanceAfter()) {
+                    current.add(discrepancy(runId, accountId, row.ledgerId(), ReconciliationDiscrepancy.CHAIN_AVAILABLE,
+                            previous.balanceAfter(), row.balanceBefore()));
+                }
+                if (row.pendingBefore() != previous.pendingAfter()) {
+                    current.add(discrepancy(runId, accountId, row.ledgerId(), ReconciliationDiscrepancy.CHAIN_PENDING,
+                            previous.pendingAfter(), row.pendingBefore()));
+                }
+            }
+            previous = row;
+        }
+
+        void finish() {
+            finishAccount();
+            // Accounts without ledger rows must still hold what their latest checkpoint (or nothing) says
+            for (AccountBalance balance : balances.values()) {
+                if (seen.contains(balance.accountId())) continue;
+                if (balance.stripeCount() > 1) {
+                    rebuild.add(balance.accountId());
+                    continue;
+                }
+                Optional<LedgerCheckpoint> checkpoint =
+                        checkpointRepository.findTopByAccountIdOrderBySequenceDesc(balance.accountId());
+                compare(balance, checkpoint.map(LedgerCheckpoint::getBalanceAvailable).orElse(0L),
+                        checkpoint.map(LedgerCheckpoint::getBalancePending).orElse(0L), found);
+            }
+        }
+
+        private void finishAccount() {
+            if (accountId != null && chained && previous != null) {
+                compare(balances.get(accountId), previous.balanceAfter(), previous.pendingAfter(), current);
+            }
+            found.addAll(current);
+            current.clear();
+        }
+
+        private void compare(AccountBalance balance, long expectedAvailable, long expectedPending,
+                             List<ReconciliationDiscrepancy> into) {
+            if (balance.available() != expectedAvailable) {
+                into.add(discrepancy(runId, balance.accountId(), null, ReconciliationDiscrepancy.BALANCE_AVAILABLE,
+                        expectedAvailable, balance.available()));
+            }
+            if (balance.pending() != expectedPending) {
+                into.add(discrepancy(runId, balance.accountId(), null, ReconciliationDiscrepancy.BALANCE_PENDING,
+                        expectedPending, balance.pending()));
+            }
+        }
+    }
+
+    private static ReconciliationDiscrepancy discrepancy(UUID runId, UUID accountId, UUID ledgerId, String kind,
+                                                         long expected, long actual) {
+        return ReconciliationDiscrepancy.builder()
+                .runId(runId)
+                .accountId(accountId)
+                .ledgerId(ledgerId)
+                .kind(kind)
+                .expected(expected)
+                .actual(actual)
+                .createdAt(OffsetDateTime.now(SG_ZONE))
+                .build();
+    }
+}
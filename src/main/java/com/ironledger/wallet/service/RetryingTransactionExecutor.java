@@ -0,0 +1,102 @@
+package com.ironledger.wallet.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs a unit of work in its own transaction and retries it on concurrency failures:
+ * optimistic version conflicts, serialization failures, lock timeouts and deadlock aborts.
+ *
+ * Retries back off exponentially with full jitter, so colliding writers spread out instead of
+ * colliding again. Business exceptions are never retried.
+ *
+ * Every failure is counted in {@code ironledger.posting.concurrency.failures}, tagged with its
+ * reason (deadlock, serialization, optimistic, lock) and whether it was retried or gave up.
+ */
+@Slf4j
+@Component
+public class RetryingTransactionExecutor {
+
+    private static final String FAILURES_METRIC = "ironledger.posting.concurrency.failures";
+
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public RetryingTransactionExecutor(
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${ironledger.posting.retry.max-attempts:5}") int maxAttempts,
+            @Value("${ironledger.posting.retry.base-backoff-ms:5}") long baseBackoffMillis,
+            @Value("${ironledger.posting.retry.max-backoff-ms:200}") long maxBackoffMillis
+    ) {
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public <T> T execute(Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (ConcurrencyFailureException e) {
+                String reason = reason(e);
+                if (attempt >= maxAttempts) {
+                    count(reason, "exhausted");
+                    throw e;
+                }
+                count(reason, "retried");
+                log.debug("Concurrency failure ({}) on attempt {}, retrying: {}", reason, attempt, e.getMessage());
+                backoff(attempt);
+            }
+        }
+    }
+
+    private void count(String reason, String outcome) {
+        Counter.builder(FAILURES_METRIC)
+                .tag("reason", reason)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    // Classified by PostgreSQL SQLSTATE where available, since the Spring exception type depends on the translator
+    private static String reason(ConcurrencyFailureException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql && sql.getSQLState() != null) {
+                switch (sql.getSQLState()) {
+                    case "40P01": return "deadlock";
+                    case "40001": return "serialization";
+                    default: break;
+                }
+            }
+        }
+        return e instanceof OptimisticLockingFailureException ? "optimistic" : "lock";
+    }
+
+    private void backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt, 20));
+        long sleep = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        try {
+            TimeUnit.MILLISECONDS.sleep(sleep);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while backing off", e);
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.ironledger.wallet.service;
+
+import com.ironledger.wallet.context.RequestContextHolder;
+import com.ironledger.wallet.dto.Transfer.TransferRequest;
+import com.ironledger.wallet.dto.Transfer.TransferResponse;
+import com.ironledger.wallet.entity.Account;
+import com.ironledger.wallet.entity.LedgerTransaction;
+import com.ironledger.wallet.entity.Transfer;
+import com.ironledger.wallet.exception.InvalidRequestException;
+import com.ironledger.wallet.exception.ResourceNotFoundException;
+import com.ironledger.wallet.exception.ServiceUnavailableException;
+import com.ironledger.wallet.repository.AccountRepository;
+import com.ironledger.wallet.repository.LedgerBatchRepository;
+import com.ironledger.wallet.repository.TransferBatchRepository;
+import com.ironledger.wallet.utils.TransferNetting;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Netting mode for transfers ({@code ironledger.transfers.netting.enabled=true}).
+ *
+ * Transfers are queued and a dispatcher thread collects them for a settlement window, like
+ * {@link GroupCommitDispatcher}. The whole window is settled in one transaction: its accounts are
+ * locked once, in ascending ID order, the transfers are checked and applied in arrival order to
+ * in-memory balances ({@link TransferNetting}), and only the net change of each account is written
+ * back. Each transfer still gets its own Transfer row and DEBIT/CREDIT ledger rows, written in JDBC
+ * batches. Account updates therefore scale with the distinct accounts of a window rather than with its
+ * transfers; an account whose transfers cancel out is not updated at all.
+ *
+ * A rejected transfer (unknown account, currency mismatch, insufficient funds) fails on its own.
+ * Callers are completed once the window has committed. Striped accounts are not netted.
+ *
+ * The queue is bounded; a transfer that finds it full is rejected with 503 instead of waiting. Transfers
+ * still queued when the dispatchers stop on shutdown are failed rather than left waiting.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "ironledger.transfers.netting.enabled", havingValue = "true")
+public class TransferNettingDispatcher {
+
+    private static final ZoneId SG_ZONE = ZoneId.of("Asia/Singapore");
+
+    private final RetryingTransactionExecutor transactionExecutor;
+    private final AccountRepository accountRepository;
+    private final TransferBatchRepository transferBatchRepository;
+    private final LedgerBatchRepository ledgerBatchRepository;
+    private final LedgerService ledgerService;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final BlockingQueue<Request> queue;
+    private final List<Thread> dispatchers = new ArrayList<>();
+    private final DistributionSummary batchSize;
+    private final DistributionSummary accountUpdates;
+
+    private volatile boolean running = true;
+
+    private record Request(UUID userId, TransferRequest transfer, String ip, String userAgent,
+                           CompletableFuture<TransferResponse> result) {}
+
+    public TransferNettingDispatcher(
+            RetryingTransactionExecutor transactionExecutor,
+            AccountRepository accountRepository,
+            TransferBatchRepository transferBatchRepository,
+            LedgerBatchRepository ledgerBatchRepository,
+            LedgerService ledgerService,
+            MeterRegistry meterRegistry,
+            @Value("${ironledger.transfers.netting.window-micros:2000}") long windowMicros,
+            @Value("${ironledger.transfers.netting.max-batch:256}") int maxBatch,
+            @Value("${ironledger.transfers.netting.queue-capacity:4096}") int queueCapacity,
+            @Value("${ironledger.transfers.netting.threads:1}") int threads
+    ) {
+        this.transactionExecutor = transactionExecutor;
+        this.accountRepository = accountRepository;
+        this.transferBatchRepository = transferBatchRepository;
+        this.ledgerBatchRepository = ledgerBatchRepository;
+        this.ledgerService = ledgerService;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatch = maxBatch;
+
+        this.batchSize = DistributionSummary.builder("ironledger.transfers.netting.batch.size")
+                .description("Transfers settled together in one netting window")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.accountUpdates = DistributionSummary.builder("ironledger.transfers.netting.account.updates")
+                .description("Account rows updated per netting window")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        for (int i = 0; i < threads; i++) {
+            Thread thread = new Thread(this::run, "transfer-netting-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            dispatchers.add(thread);
+        }
+    }
+
+    /**
+     * Queue a transfer and wait until the window containing it has committed.
+     * Business errors are rethrown unchanged.
+     *
+     * @throws ServiceUnavailableException if the queue is full
+     */
+    public TransferResponse execute(UUID userId, TransferRequest transfer) {
+        if (!running) throw new IllegalStateException("Transfer netting is shutting down");
+
+        CompletableFuture<TransferResponse> result = new CompletableFuture<>();
+        Request request = new Request(userId, transfer, RequestContextHolder.getIp(), RequestContextHolder.getUserAgent(), result);
+        if (!queue.offer(request)) throw new ServiceUnavailableException("Too many transfers in progress, retry later");
+        // Queued after shutdown drained the queue: nothing would ever complete it
+        if (!running && queue.remove(request)) throw new IllegalStateException("Transfer netting is shutting down");
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            for (Thread thread : dispatchers) {
+                thread.join(TimeUnit.SECONDS.toMillis(30));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Whatever the dispatchers did not get to would otherwise wait forever
+            List<Request> leftover = new ArrayList<>();
+            queue.drainTo(leftover);
+            if (!leftover.isEmpty()) log.warn("Failing {} queued transfers on shutdown", leftover.size());
+            failAll(leftover, new IllegalStateException("Transfer netting is shutting down"));
+        }
+    }
+
+    private void run() {
+        List<Request> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Request first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        queue.drainTo(batch, maxBatch - batch.size());
+                        break;
+                    }
+                    Request next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                settle(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+                failAll(batch, new IllegalStateException("Transfer netting is shutting down"));
+            } catch (Throwable e) {
+                log.error("Netting window failed for {} transfers", batch.size(), e);
+                failAll(batch, e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private static void failAll(List<Request> requests, Throwable error) {
+        for (Request request : requests) request.result().completeExceptionally(error);
+    }
+
+    private void settle(List<Request> batch) {
+        batchSize.record(batch.size());
+
+        Object[] outcomes = transactionExecutor.execute(() -> apply(batch));
+
+        for (int i = 0; i < batch.size(); i++) {
+            if (outcomes[i] instanceof TransferResponse response) {
+                batch.get(i).result().complete(response);
+            } else {
+                batch.get(i).result().completeExceptionally((RuntimeException) outcomes[i]);
+            }
+        }
+    }
+
+    // Runs inside the window's transaction; re-run from scratch if the executor retries it
+    private Object[] apply(List<Request> batch) {
+        // 1. Lock every account of the window once, in ascending ID order
+        Set<UUID> lockIds = new TreeSet<>();
+        for (Request request : batch) {
+            if (request.transfer().getFromAccount() != null) lockIds.add(request.transfer().getFromAccount());
+            if (request.transfer().getToAccount() != null) lockIds.add(request.transfer().getToAccount());
+        }
+        Map<UUID, Account> accounts = new HashMap<>();
+        for (Account account : accountRepository.findAllByIdForUpdate(lockIds)) accounts.put(account.getId(), account);
+
+        // 2. Reject invalid transfers, net the rest in arrival order
+        Object[] outcomes = new Object[batch.size()];
+        List<Integer> legIndexes = new ArrayList<>(batch.size());
+        List<TransferNetting.Leg> legs = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Request request = batch.get(i);
+            RuntimeException error = validate(request, accounts);
+            if (error != null) {
+                outcomes[i] = error;
+                continue;
+            }
+            legIndexes.add(i);
+            legs.add(new TransferNetting.Leg(request.transfer().getFromAccount(), request.transfer().getToAccount(),
+                    request.transfer().getAmount()));
+        }
+
+        Map<UUID, Long> opening = new HashMap<>();
+        for (Account account : accounts.values()) opening.put(account.getId(), account.getBalanceAvailable());
+        TransferNetting.Result netting = TransferNetting.net(opening, legs);
+
+        // 3. One Transfer row and a DEBIT/CREDIT pair per accepted transfer, with its own running balances
+        OffsetDateTime now = OffsetDateTime.now(SG_ZONE);
+        List<Transfer> transfers = new ArrayList<>(legs.size());
+        List<LedgerTransaction> rows = new ArrayList<>(legs.size() * 2);
+        for (int k = 0; k < legs.size(); k++) {
+            int i = legIndexes.get(k);
+            if (!netting.accepted(k)) {
+                outcomes[i] = new InvalidRequestException("Insufficient funds");
+                continue;
+            }
+
+            Request request = batch.get(i);
+            TransferNetting.Posting posting = netting.postings().get(k);
+            Account sender = accounts.get(legs.get(k).from());
+            Account receiver = accounts.get(legs.get(k).to());
+            long amount = legs.get(k).amount();
+            String referenceId = ledgerService.generateReferenceId();
+
+            RequestContextHolder.set(request.ip(), request.userAgent());
+            try {
+                LedgerTransaction debit = ledgerService.buildPosting(sender, -amount, "DEBIT", referenceId,
+                        posting.fromBefore(), sender.getBalancePending());
+                debit.setBalanceAfter(posting.fromAfter());
+                LedgerTransaction credit = ledgerService.buildPosting(receiver, amount, "CREDIT", referenceId,
+                        posting.toBefore(), receiver.getBalancePending());
+                credit.setBalanceAfter(posting.toAfter());
+                rows.add(debit);
+                rows.add(credit);
+            } finally {
+                RequestContextHolder.clear();
+            }
+
+            Transfer transfer = Transfer.builder()
+                    .id(UUID.randomUUID())
+                    .fromAccount(sender.getId())
+                    .toAccount(receiver.getId())
+                    .amount(amount)
+                    .currency(sender.getCurrency())
+                    .transferStatus("COMPLETED")
+                    .meta(request.transfer().getMetadata())
+                    .createdBy(request.userId())
+                    .createdAt(now)
+                    .completedAt(now)
+                    .build();
+            transfers.add(transfer);
+            outcomes[i] = new TransferResponse(transfer.getId(), transfer.getTransferStatus());
+        }
+
+        // 4. One balance update per account with a non-zero net, flushed on commit; rows in JDBC batches.
+        // Accounts that net to zero are still updated once, for the posting time their rows were stamped with.
+        for (Map.Entry<UUID, Long> delta : netting.deltas().entrySet()) {
+            Account account = accounts.get(delta.getKey());
+            account.setBalanceAvailable(account.getBalanceAvailable() + delta.getValue());
+        }
+        accountUpdates.record(netting.deltas().size());
+
+        transferBatchRepository.insertAll(transfers);
+        ledgerBatchRepository.insertAll(rows);
+        return outcomes;
+    }
+
+    // Same checks, in the same order, as a transfer settled on its own
+    private static RuntimeException validate(Request request, Map<UUID, Account> accounts) {
+        Account sender = request.transfer().getFromAccount() == null ? null : accounts.get(request.transfer().getFromAccount());
+        if (sender == null) return new ResourceNotFoundException("Sender account not found");
+
+        Account receiver = request.transfer().getToAccount() == null ? null : accounts.get(request.transfer().getToAccount());
+        if (receiver == null) return new ResourceNotFoundException("Receiver account not found");
+
+        if (!sender.getCurrency().equals(receiver.getCurrency())) return new InvalidRequestException("Currency mismatch");
+        if (!sender.getUserId().equals(request.userId())) return new ResourceNotFoundException("Sender account not found");
+        return null;
+    }
+}
@@ -0,0 +1,142 @@
+package com.ironledger.wallet.service;
+
+import com.ironledger.wallet.context.RequestContextHolder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Worker pipeline for asynchronous transfers ({@code ironledger.transfers.async.enabled=true}).
+ *
+ * Transfers are partitioned by sender account onto a fixed number of partitions. Each partition runs
+ * its transfers one at a time on its own virtual thread, in the order they were submitted, so the
+ * debits of an account are always applied in submission order. The number of partitions also caps
+ * the database connections the pipeline uses, however large the burst of accepted transfers.
+ *
+ * Only transfer IDs are queued; the transfers themselves are already persisted as PENDING, and
+ * whatever is still queued on shutdown is picked up again from the database on the next start.
+ * Like the other in-memory ledger state, this assumes a single application instance.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "ironledger.transfers.async.enabled", havingValue = "true")
+public class TransferPipeline {
+
+    private final ExecutorService[] partitions;
+    private final Set<UUID> queued = ConcurrentHashMap.newKeySet();
+    // One future per subscriber; the sets are only changed inside the map's atomic operations
+    private final Map<UUID, Set<CompletableFuture<Void>>> completions = new ConcurrentHashMap<>();
+    private final Timer waitTime;
+
+    public TransferPipeline(MeterRegistry meterRegistry,
+                            @Value("${ironledger.transfers.async.partitions:8}") int partitions) {
+        if (partitions < 1) throw new IllegalArgumentException("ironledger.transfers.async.partitions must be positive");
+
+        this.partitions = new ExecutorService[partitions];
+        for (int i = 0; i < partitions; i++) {
+            this.partitions[i] = Executors.newSingleThreadExecutor(
+                    Thread.ofVirtual().name("transfer-pipeline-" + i).factory());
+        }
+
+        this.waitTime = Timer.builder("ironledger.transfers.pipeline.wait")
+                .description("Time an asynchronous transfer waited in the pipeline before it started")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("ironledger.transfers.pipeline.queued", queued, Set::size)
+                .description("Asynchronous transfers queued or running")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queue a persisted transfer on the partition of its sender account. The request metadata of the
+     * calling thread is carried over to the worker.
+     *
+     * @return false if the transfer is already queued or running
+     */
+    public boolean submit(UUID transferId, UUID fromAccount, Consumer<UUID> execution) {
+        if (!queued.add(transferId)) return false;
+
+        String ip = RequestContextHolder.getIp();
+        String userAgent = RequestContextHolder.getUserAgent();
+        long enqueuedAt = System.nanoTime();
+
+        partitions[Math.floorMod(fromAccount.hashCode(), partitions.length)].execute(() -> {
+            waitTime.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+            RequestContextHolder.set(ip, userAgent);
+            try {
+                execution.accept(transferId);
+            } catch (RuntimeException e) {
+                log.error("Asynchronous transfer {} failed unexpectedly", transferId, e);
+            } finally {
+                RequestContextHolder.clear();
+                queued.remove(transferId);
+            }
+        });
+        return true;
+    }
+
+    public boolean isQueued(UUID transferId) {
+        return queued.contains(transferId);
+    }
+
+    /**
+     * Future completed once the transfer has reached a final status. Pass it to {@link #unsubscribe}
+     * if the subscriber goes away first.
+     */
+    public CompletableFuture<Void> completion(UUID transferId) {
+        CompletableFuture<Void> completion = new CompletableFuture<>();
+        completions.compute(transferId, (id, subscribers) -> {
+            Set<CompletableFuture<Void>> set = subscribers == null ? new HashSet<>() : subscribers;
+            set.add(completion);
+            return set;
+        });
+        return completion;
+    }
+
+    /**
+     * Drop a subscriber that no longer waits (timed out, disconnected); the entry of the transfer goes
+     * with its last subscriber.
+     */
+    public void unsubscribe(UUID transferId, CompletableFuture<Void> completion) {
+        completions.computeIfPresent(transferId, (id, subscribers) -> {
+            subscribers.remove(completion);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    /**
+     * Notify the subscribers of a transfer that reached a final status; call after the commit.
+     */
+    public void complete(UUID transferId) {
+        Set<CompletableFuture<Void>> subscribers = completions.remove(transferId);
+        if (subscribers != null) subscribers.forEach(completion -> completion.complete(null));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ExecutorService partition : partitions) partition.shutdown();
+        try {
+            for (ExecutorService partition : partitions) {
+                if (!partition.awaitTermination(30, TimeUnit.SECONDS)) partition.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -2,124 +2,347 @@ package com.ironledger.wallet.service;
 
 import com.ironledger.wallet.dto.Transfer.*;
 import com.ironledger.wallet.entity.Account;
-import com.ironledger.wallet.entity.LedgerTransaction;
 import com.ironledger.wallet.entity.Transfer;
 import com.ironledger.wallet.exception.InvalidRequestException;
 import com.ironledger.wallet.exception.ResourceNotFoundException;
+import com.ironledger.wallet.repository.AccountBucketRepository.BucketCredit;
 import com.ironledger.wallet.repository.AccountRepository;
 import com.ironledger.wallet.repository.LedgerRepository;
 import com.ironledger.wallet.repository.TransferRepository;
 import jakarta.transaction.Transactional;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
-
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Transfers between two accounts, and their reversal.
+ *
+ * By default a transfer is settled synchronously, inside the request. With
+ * {@code ironledger.transfers.async.enabled=true} the request only stores the transfer as PENDING and
+ * returns; {@link TransferPipeline} settles it in the background, debits of the same account in
+ * submission order. A transfer that is rejected at that point (insufficient funds, currency mismatch,
+ * ...) ends FAILED with the reason. Clients poll {@link #transferGet} or {@link #subscribe} to the outcome.
+ *
+ * With {@code ironledger.transfers.netting.enabled=true}, synchronous transfers are settled in netting
+ * windows by {@link TransferNettingDispatcher}: one balance update per account per window instead of
+ * two per transfer.
+ */
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class TransferService {
     private final AccountRepository accountRepo;
     private final TransferRepository transferRepo;
     private final LedgerRepository ledgerRepo;
     private final LedgerService ledgerService;
+    private final AccountStripingService accountStripingService;
+    private final PostingPolicy postingPolicy;
+    private final RetryingTransactionExecutor transactionExecutor;
+    private final Optional<TransferPipeline> pipeline;
+    private final Optional<TransferNettingDispatcher> netting;
+    private final long staleAfterSeconds;
+    private final long subscribeTimeoutMs;
 
     private static final ZoneId SG_ZONE = ZoneId.of("Asia/Singapore");
+    private static final int RECOVERY_PAGE_SIZE = 1_000;
+
+    public TransferService(AccountRepository accountRepo,
+                           TransferRepository transferRepo,
+                           LedgerRepository ledgerRepo,
+                           LedgerService ledgerService,
+                           AccountStripingService accountStripingService,
+                           PostingPolicy postingPolicy,
+                           RetryingTransactionExecutor transactionExecutor,
+                           Optional<TransferPipeline> pipeline,
+                           Optional<TransferNettingDispatcher> netting,
+                           @Value("${ironledger.transfers.async.stale-after-seconds:60}") long staleAfterSeconds,
+                           @Value("${ironledger.transfers.async.subscribe-timeout-ms:30000}") long subscribeTimeoutMs) {
+        this.accountRepo = accountRepo;
+        this.transferRepo = transferRepo;
+        this.ledgerRepo = ledgerRepo;
+        this.ledgerService = ledgerService;
+        this.accountStripingService = accountStripingService;
+        this.postingPolicy = postingPolicy;
+        this.transactionExecutor = transactionExecutor;
+        this.pipeline = pipeline;
+        this.netting = netting;
+        this.staleAfterSeconds = staleAfterSeconds;
+        this.subscribeTimeoutMs = subscribeTimeoutMs;
+    }
 
-    @Transactional
     public TransferResponse transfer(UUID userId, TransferRequest request){
-        // 1. Lock sender
-        Account sender = accountRepo.findByIdForUpdate(request.getFromAccount())
+        if (pipeline.isPresent()) return submit(userId, request);
+        // Striped accounts keep part of their balance in buckets and are never netted
+        if (netting.isPresent() && !accountStripingService.isStriped(request.getFromAccount())
+                && !accountStripingService.isStriped(request.getToAccount())) {
+            return netting.get().execute(userId, request);
+        }
+        return transactionExecutor.execute(() -> doTransfer(userId, request));
+    }
+
+    private TransferResponse doTransfer(UUID userId, TransferRequest request){
+        Transfer transfer = new Transfer();
+        transfer.setFromAccount(request.getFromAccount());
+        transfer.setToAccount(request.getToAccount());
+        transfer.setAmount(request.getAmount());
+        transfer.setMeta(request.getMetadata());
+        transfer.setCreatedBy(userId);
+        transfer.setCreatedAt(OffsetDateTime.now(SG_ZONE));
+
+        // Written once, already COMPLETED: a rejected transfer rolls back and leaves no row
+        settle(transfer);
+        transferRepo.save(transfer);
+
+        return new TransferResponse(transfer.getId(), transfer.getTransferStatus());
+    }
+
+    /**
+     * Move the funds of a transfer and mark it COMPLETED.
+     */
+    private void settle(Transfer transfer) {
+        UUID fromAccount = transfer.getFromAccount();
+        UUID toAccount = transfer.getToAccount();
+        long amount = transfer.getAmount();
+
+        // 1. Lock sender and receiver in one query, in ascending ID order, so that A→B and B→A
+        //    never wait on each other. A striped receiver is credited on a bucket row and stays unlocked.
+        Set<UUID> lockIds = new TreeSet<>();
+        lockIds.add(fromAccount);
+        if (!accountStripingService.isStriped(toAccount)) lockIds.add(toAccount);
+        Map<UUID, Account> accounts = loadAccounts(lockIds, "TRANSFER");
+
+        Account sender = Optional.ofNullable(accounts.get(fromAccount))
                 .orElseThrow(() -> new ResourceNotFoundException("Sender account not found"));
 
-        // 2. Fetch receiver
-        Account receiver = accountRepo.findById(request.getToAccount())
+        // 2. Fetch receiver (a striped receiver is read without a lock; its version still guards the row)
+        Account receiver = Optional.ofNullable(accounts.get(toAccount))
+                .or(() -> accountRepo.findById(toAccount))
                 .orElseThrow(() -> new ResourceNotFoundException("Receiver account not found"));
 
         if (!sender.getCurrency().equals(receiver.getCurrency()))
             throw new InvalidRequestException("Currency mismatch");
 
-        if (!sender.getUserId().equals(userId))
+        if (!sender.getUserId().equals(transfer.getCreatedBy()))
             throw new ResourceNotFoundException("Sender account not found");
 
+        accountStripingService.ensureAvailable(sender, amount);
         long available = sender.getBalanceAvailable();
 
-        if (available < request.getAmount())
+        if (available < amount)
             throw new InvalidRequestException("Insufficient funds");
 
         String referenceId = ledgerService.generateReferenceId();
-
-        // 3. Create a transfer row (PENDING)
-        Transfer transfer = new Transfer();
-        transfer.setFromAccount(sender.getId());
-        transfer.setToAccount(receiver.getId());
-        transfer.setAmount(request.getAmount());
         transfer.setCurrency(sender.getCurrency());
-        transfer.setMeta(request.getMetadata());
-        transfer.setCreatedBy(userId);
-        transfer.setCreatedAt(OffsetDateTime.now(SG_ZONE));
-        transfer.setTransferStatus("PENDING");
-        transferRepo.save(transfer);
 
-        // 4. Compute balances before/after
+        // 3. Compute balances before/after
         long senderBefore = sender.getBalanceAvailable();
-        long senderAfter = senderBefore - request.getAmount();
+        long senderAfter = senderBefore - amount;
 
         long receiverBefore = receiver.getBalanceAvailable();
-        long receiverAfter = receiverBefore + request.getAmount();
+        long receiverAfter = receiverBefore + amount;
 
-        // 5. Create sender DEBIT ledger row (using LedgerService internals)
-        LedgerTransaction debitTx = ledgerService.writeLedger(
+        // 4. Debit sender and write its DEBIT ledger row (using LedgerService internals)
+        sender.setBalanceAvailable(senderAfter);
+        ledgerService.writeLedger(
                 sender,
-                -request.getAmount(),
+                -amount,
                 "DEBIT",
                 1,
                 referenceId,
-                sender.getCurrency()
+                senderBefore,
+                sender.getBalancePending()
         );
-        debitTx.setBalanceBefore(senderBefore);
-        debitTx.setBalanceAfter(senderAfter);
-        debitTx.setPendingBefore(sender.getBalancePending());
-        debitTx.setPendingAfter(sender.getBalancePending());
-        ledgerRepo.save(debitTx);
-
-        // 6. Create a receiver CREDIT ledger row
-        LedgerTransaction creditTx = ledgerService.writeLedger(
-                receiver,
-                request.getAmount(),
-                "CREDIT",
-                1,
-                referenceId,
-                receiver.getCurrency()
-        );
-        creditTx.setBalanceBefore(receiverBefore);
-        creditTx.setBalanceAfter(receiverAfter);
-        creditTx.setPendingBefore(receiver.getBalancePending());
-        creditTx.setPendingAfter(receiver.getBalancePending());
-        ledgerRepo.save(creditTx);
 
-        // 7. Update account balances
-        sender.setBalanceAvailable(senderAfter);
-        receiver.setBalanceAvailable(receiverAfter);
+        // 5. Create a receiver CREDIT ledger row (striped receivers are credited on a bucket, unlocked)
+        Optional<BucketCredit> bucketCredit = accountStripingService.tryCredit(
+                receiver.getId(), null, receiver.getCurrency(), amount);
+        if (bucketCredit.isPresent()) {
+            ledgerRepo.save(ledgerService.buildBucketCredit(receiver.getUserId(), receiver.getId(),
+                    amount, "CREDIT", referenceId, receiver.getCurrency(), bucketCredit.get()));
+        } else {
+            receiver.setBalanceAvailable(receiverAfter);
+            ledgerService.writeLedger(
+                    receiver,
+                    amount,
+                    "CREDIT",
+                    1,
+                    referenceId,
+                    receiverBefore,
+                    receiver.getBalancePending()
+            );
+            accountRepo.save(receiver);
+        }
+
+        // 6. Save sender balance
         accountRepo.save(sender);
-        accountRepo.save(receiver);
 
-        // 8. Mark completed
+        // 7. Mark completed
         transfer.setTransferStatus("COMPLETED");
         transfer.setCompletedAt(OffsetDateTime.now());
-        transferRepo.save(transfer);
+    }
+
+    // -------------------------------------------------------------------------
+    // ASYNC: accept, settle in the pipeline, recover
+    // -------------------------------------------------------------------------
+    private TransferResponse submit(UUID userId, TransferRequest request) {
+        // Plain read: only ownership is checked up front, everything else when the transfer is settled
+        Account sender = accountRepo.findById(request.getFromAccount())
+                .filter(a -> a.getUserId().equals(userId))
+                .orElseThrow(() -> new ResourceNotFoundException("Sender account not found"));
+
+        Transfer transfer = new Transfer();
+        transfer.setFromAccount(sender.getId());
+        transfer.setToAccount(request.getToAccount());
+        transfer.setAmount(request.getAmount());
+        transfer.setCurrency(sender.getCurrency());
+        transfer.setMeta(request.getMetadata());
+        transfer.setCreatedBy(userId);
+        transfer.setCreatedAt(OffsetDateTime.now(SG_ZONE));
+        transfer.setTransferStatus("PENDING");
+        transactionExecutor.execute(() -> transferRepo.save(transfer));
 
+        // Committed: from here on the transfer is recovered from the database if the queue is lost
+        pipeline.get().submit(transfer.getId(), transfer.getFromAccount(), this::settleQueued);
         return new TransferResponse(transfer.getId(), transfer.getTransferStatus());
     }
 
+    // Runs on the transfer's pipeline partition
+    private void settleQueued(UUID transferId) {
+        try {
+            transactionExecutor.execute(() -> {
+                Transfer transfer = transferRepo.findByIdForUpdate(transferId).orElse(null);
+                // Settled already (a duplicate from the sweep), or gone
+                if (transfer == null || !"PENDING".equals(transfer.getTransferStatus())) return null;
+                settle(transfer);
+                return transfer;
+            });
+        } catch (InvalidRequestException | ResourceNotFoundException e) {
+            transactionExecutor.execute(() -> markFailed(transferId, e.getMessage()));
+        } catch (RuntimeException e) {
+            // Left PENDING; the sweep queues it again
+            log.error("Settling transfer {} failed; retrying after {}s", transferId, staleAfterSeconds, e);
+            return;
+        }
+        pipeline.get().complete(transferId);
+    }
+
+    private Transfer markFailed(UUID transferId, String reason) {
+        Transfer transfer = transferRepo.findByIdForUpdate(transferId).orElse(null);
+        if (transfer == null || !"PENDING".equals(transfer.getTransferStatus())) return transfer;
+
+        transfer.setTransferStatus("FAILED");
+        transfer.setFailureReason(reason);
+        transfer.setCompletedAt(OffsetDateTime.now());
+        return transferRepo.save(transfer);
+    }
+
+    /**
+     * Queue the PENDING transfers left over from before the last shutdown.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverPending() {
+        if (pipeline.isEmpty()) return;
+        int queued = requeuePending(OffsetDateTime.now(SG_ZONE));
+        log.info("Queued {} pending transfer(s) for settlement", queued);
+    }
+
+    /**
+     * Queue PENDING transfers that have been waiting for a while and are not in the pipeline,
+     * i.e. whose settlement failed on a database error.
+     */
+    @Scheduled(fixedDelayString = "${ironledger.transfers.async.sweep-interval-ms:60000}",
+               initialDelayString = "${ironledger.transfers.async.sweep-interval-ms:60000}")
+    public void sweepPending() {
+        if (pipeline.isEmpty()) return;
+        int queued = requeuePending(OffsetDateTime.now(SG_ZONE).minusSeconds(staleAfterSeconds));
+        if (queued > 0) log.warn("Queued {} stale pending transfer(s) again", queued);
+    }
+
+    // In submission order; transfers still in the pipeline are skipped
+    private int requeuePending(OffsetDateTime cutoff) {
+        TransferPipeline transferPipeline = pipeline.get();
+        OffsetDateTime afterAt = Instant.EPOCH.atOffset(ZoneOffset.UTC);
+        UUID afterId = new UUID(0L, 0L);
+        int queued = 0;
+        while (true) {
+            List<TransferRepository.Pending> page =
+                    transferRepo.findPending(cutoff, afterAt, afterId, Limit.of(RECOVERY_PAGE_SIZE));
+            for (TransferRepository.Pending pending : page) {
+                if (transferPipeline.submit(pending.getId(), pending.getFromAccount(), this::settleQueued)) queued++;
+            }
+            if (page.size() < RECOVERY_PAGE_SIZE) return queued;
+            TransferRepository.Pending last = page.get(page.size() - 1);
+            afterAt = last.getCreatedAt();
+            afterId = last.getId();
+        }
+    }
+
+    /**
+     * Stream the outcome of a transfer: one "transfer" event with its view once it is no longer
+     * PENDING (immediately if it already is), then the stream ends. No thread waits meanwhile.
+     */
+    public SseEmitter subscribe(UUID userId, UUID transferId) {
+        Transfer transfer = transferRepo.findById(transferId)
+                .filter(t -> t.getCreatedBy().equals(userId))
+                .orElseThrow(() -> new ResourceNotFoundException("Transfer not found"));
+
+        SseEmitter emitter = new SseEmitter(subscribeTimeoutMs);
+        if (!"PENDING".equals(transfer.getTransferStatus()) || pipeline.isEmpty()) {
+            send(emitter, toView(transfer));
+            return emitter;
+        }
+
+        // Registered before re-reading, so a transfer settled in between is not missed
+        CompletableFuture<Void> completion = pipeline.get().completion(transferId);
+        completion.thenRun(() -> send(emitter, transferGet(transferId)));
+        // A client that times out or disconnects first must not leave its entry behind
+        Runnable unsubscribe = () -> pipeline.get().unsubscribe(transferId, completion);
+        emitter.onTimeout(unsubscribe);
+        emitter.onCompletion(unsubscribe);
+        emitter.onError(e -> unsubscribe.run());
+        transferRepo.findById(transferId)
+                .filter(t -> !"PENDING".equals(t.getTransferStatus()))
+                .ifPresent(t -> pipeline.get().complete(transferId));
+        return emitter;
+    }
+
+    private static void send(SseEmitter emitter, TransferView view) {
+        try {
+            emitter.send(SseEmitter.event().name("transfer").data(view));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            // Client gone or timed out; it can still poll
+            emitter.completeWithError(e);
+        }
+    }
+
     @Transactional
     public TransferView transferGet(UUID transferId) {
         Transfer transfer = transferRepo.findById(transferId)
                 .orElseThrow(() -> new ResourceNotFoundException("Transfer not found"));
 
+        return toView(transfer);
+    }
+
+    private static TransferView toView(Transfer transfer) {
         return new TransferView(
                 transfer.getId(),
                 transfer.getFromAccount(),
@@ -127,12 +350,16 @@ public class TransferService {
                 transfer.getCurrency(),
                 transfer.getTransferStatus(),
                 transfer.getCreatedAt(),
-                transfer.getCompletedAt()
+                transfer.getCompletedAt(),
+                transfer.getFailureReason()
         );
     }
 
-    @Transactional
     public ReversalResponse transferReversal(ReversalRequest request, UUID userId) {
+        return transactionExecutor.execute(() -> doTransferReversal(request, userId));
+    }
+
+    private ReversalResponse doTransferReversal(ReversalRequest request, UUID userId) {
         // 1. Fetch original
         Transfer original = transferRepo.findById(request.getOriginalTransferId())
                 .orElseThrow(() -> new ResourceNotFoundException("Original transfer not found"));
@@ -145,18 +372,26 @@ public class TransferService {
             throw new InvalidRequestException("Transfer has already been reversed");
         }
 
+        // PENDING and FAILED transfers never moved any funds
+        if(!original.getTransferStatus().equals("COMPLETED")){
+            throw new InvalidRequestException("Only completed transfers can be reversed");
+        }
+
         UUID senderId = original.getFromAccount();
         UUID receiverId = original.getToAccount();
         long amount = original.getAmount();
         String referenceId = ledgerService.generateReferenceId();
 
-        // 2. Lock receiver (they must have enough balances to return funds)
-        Account receiver = accountRepo.findByIdForUpdate(receiverId)
+        // 2. Lock both accounts in one query, in ascending ID order (the receiver must have enough to return funds)
+        Map<UUID, Account> accounts = loadAccounts(new TreeSet<>(List.of(receiverId, senderId)), "REVERSAL");
+
+        Account receiver = Optional.ofNullable(accounts.get(receiverId))
                 .orElseThrow(() -> new ResourceNotFoundException("Receiver account not found"));
 
-        Account sender = accountRepo.findByIdForUpdate(senderId)
+        Account sender = Optional.ofNullable(accounts.get(senderId))
                 .orElseThrow(() -> new ResourceNotFoundException("Sender account not found"));
 
+        accountStripingService.ensureAvailable(receiver, amount);
         if(receiver.getBalanceAvailable() < amount){
             throw new InvalidRequestException("Insufficient funds");
         }
@@ -181,26 +416,20 @@ public class TransferService {
         long senderBefore = sender.getBalanceAvailable();
         long senderAfter  = senderBefore + amount;
 
-        // 5. Write ledger entries
-        LedgerTransaction debit = ledgerService.writeLedger(
+        // 5. Update balances and write ledger entries
+        receiver.setBalanceAvailable(receiverAfter);
+        sender.setBalanceAvailable(senderAfter);
+
+        ledgerService.writeLedger(
                 receiver, -amount, "REVERSAL_DEBIT", 1,
-                referenceId, receiver.getCurrency()
+                referenceId, receiverBefore, receiver.getBalancePending()
         );
-        debit.setBalanceBefore(receiverBefore);
-        debit.setBalanceAfter(receiverAfter);
-        ledgerRepo.save(debit);
-
-        LedgerTransaction credit = ledgerService.writeLedger(
+        ledgerService.writeLedger(
                 sender, amount, "REVERSAL_CREDIT", 1,
-                referenceId, sender.getCurrency()
+                referenceId, senderBefore, sender.getBalancePending()
         );
-        credit.setBalanceBefore(senderBefore);
-        credit.setBalanceAfter(senderAfter);
-        ledgerRepo.save(credit);
 
-        // 6. Update balances
-        receiver.setBalanceAvailable(receiverAfter);
-        sender.setBalanceAvailable(senderAfter);
+        // 6. Save balances
         accountRepo.save(receiver);
         accountRepo.save(sender);
 
@@ -215,6 +444,19 @@ public class TransferService {
         return new ReversalResponse(reversal.getId(), reversal.getTransferStatus());
     }
 
+    // Pessimistic lock in ascending ID order, or a versioned read when every account is in optimistic mode
+    private Map<UUID, Account> loadAccounts(Set<UUID> accountIds, String operation) {
+        boolean optimistic = accountIds.stream()
+                .allMatch(id -> postingPolicy.modeFor(operation, id) == PostingMode.OPTIMISTIC);
+        List<Account> loaded = optimistic
+                ? accountRepo.findAllById(accountIds)
+                : accountRepo.findAllByIdForUpdate(accountIds);
+
+        Map<UUID, Account> accounts = new HashMap<>();
+        for (Account account : loaded) accounts.put(account.getId(), account);
+        return accounts;
+    }
+
     private Map<String, Object> getReversalMetaData(Transfer transfer){
         Map<String, Object> metaData = new HashMap<>();
         metaData.put("action", "REVERSAL");
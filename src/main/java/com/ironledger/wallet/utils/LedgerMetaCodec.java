@@ -0,0 +1,93 @@
+package com.ironledger.wallet.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.ironledger.wallet.entity.LedgerMeta;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+
+/**
+ * JSON form of {@link LedgerMeta} for the jsonb meta column, written and read with Jackson's streaming
+ * API, without an intermediate map or tree.
+ *
+ * New rows use short keys ({@code {"ip":"..","ua":".."}}) and omit absent fields. Decoding also
+ * accepts the free-form maps of older rows, taking {@code ip_address} and {@code user_agent} and
+ * skipping every other key.
+ */
+public final class LedgerMetaCodec {
+
+    static final String IP = "ip";
+    static final String USER_AGENT = "ua";
+
+    // Thread-safe once configured
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private LedgerMetaCodec() {
+    }
+
+    /**
+     * @return the JSON text, or null when there is nothing to store
+     */
+    public static String encode(LedgerMeta meta) {
+        if (meta == null || (meta.ipAddress() == null && meta.userAgent() == null)) return null;
+
+        StringWriter json = new StringWriter(24 + length(meta.ipAddress()) + length(meta.userAgent()));
+        try (JsonGenerator generator = JSON.createGenerator(json)) {
+            generator.writeStartObject();
+            if (meta.ipAddress() != null) generator.writeStringField(IP, meta.ipAddress());
+            if (meta.userAgent() != null) generator.writeStringField(USER_AGENT, meta.userAgent());
+            generator.writeEndObject();
+        } catch (IOException e) {
+            // A StringWriter does not fail
+            throw new UncheckedIOException(e);
+        }
+        return json.toString();
+    }
+
+    /**
+     * @return the metadata, or null for a null or empty column
+     * @throws IllegalArgumentException if the text is not a JSON object
+     */
+    public static LedgerMeta decode(String json) {
+        if (json == null) return null;
+        String ip = null;
+        String userAgent = null;
+
+        try (JsonParser parser = JSON.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) throw invalid(parser, "object expected");
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String key = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (key) {
+                    case IP, "ip_address" -> ip = stringOrNull(parser, value);
+                    case USER_AGENT, "user_agent" -> userAgent = stringOrNull(parser, value);
+                    // Values of unknown keys are skipped without being built
+                    default -> parser.skipChildren();
+                }
+            }
+            if (parser.currentToken() != JsonToken.END_OBJECT) throw invalid(parser, "'}' expected");
+            if (parser.nextToken() != null) throw invalid(parser, "trailing characters");
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid ledger meta: " + e.getMessage(), e);
+        }
+        return LedgerMeta.of(ip, userAgent);
+    }
+
+    private static String stringOrNull(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) return null;
+        if (value != JsonToken.VALUE_STRING) throw invalid(parser, "string expected");
+        return parser.getText();
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private static IllegalArgumentException invalid(JsonParser parser, String message) {
+        return new IllegalArgumentException("Invalid ledger meta at " + parser.currentLocation().getCharOffset() + ": " + message);
+    }
+}
@@ -0,0 +1,82 @@
+package com.ironledger.wallet.utils;
+
+import com.github.f4b6a3.ulid.Ulid;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free, node-aware, monotonic ULID generator for reference IDs.
+ *
+ * Layout of the 128 bits:
+ * <pre>
+ *   48 bits  unix time in milliseconds
+ *   16 bits  node ID (unique per running instance)
+ *   16 bits  per-millisecond sequence
+ *   48 bits  random
+ * </pre>
+ * The (time, sequence) pair is advanced with a single CAS, so IDs issued by one node are
+ * strictly increasing and never repeat, even if the wall clock steps backwards. If more than
+ * 65,536 IDs are requested within one millisecond the generator borrows from the next
+ * millisecond instead of blocking. Uniqueness across nodes comes from the node ID, so no
+ * database lookup is needed to prove that an ID is unused.
+ */
+public final class MonotonicUlidGenerator {
+
+    public static final int MAX_NODE_ID = 0xFFFF;
+
+    private static final int SEQUENCE_BITS = 16;
+    private static final long RANDOM_MASK = 0xFFFF_FFFF_FFFFL;
+
+    private final long nodeId;
+    private final LongSupplier clock;
+
+    // (epoch millis << 16) | sequence of the last issued ID
+    private final AtomicLong lastTick = new AtomicLong();
+
+    public MonotonicUlidGenerator(int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    MonotonicUlidGenerator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node ID must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    /**
+     * Generates the next ULID for this node.
+     *
+     * @return a ULID greater than every ULID previously returned by this instance
+     */
+    public Ulid next() {
+        long tick = nextTick();
+        long millis = tick >>> SEQUENCE_BITS;
+        long sequence = tick & MAX_NODE_ID;
+
+        long msb = (millis << 16) | nodeId;
+        long lsb = (sequence << 48) | (ThreadLocalRandom.current().nextLong() & RANDOM_MASK);
+        return new Ulid(msb, lsb);
+    }
+
+    /**
+     * Generates the next reference ID as a 26-character ULID string.
+     */
+    public String nextRefId() {
+        return next().toString();
+    }
+
+    private long nextTick() {
+        long now = clock.getAsLong() << SEQUENCE_BITS;
+        while (true) {
+            long last = lastTick.get();
+            long next = now > last ? now : last + 1;
+            if (lastTick.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+}
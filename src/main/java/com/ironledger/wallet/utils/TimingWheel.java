@@ -0,0 +1,194 @@
+package com.ironledger.wallet.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel for very large numbers of deadlines, with O(1) schedule and cancel.
+ *
+ * Time is counted in ticks of {@code tickMillis}. Level 0 has {@code slots} buckets of one tick each;
+ * every bucket of level {@code n + 1} spans a whole turn of level {@code n}. A deadline goes to the
+ * lowest level whose turn still reaches it. Whenever a level completes a turn, the next bucket of the
+ * level above is cascaded into the levels below, so an entry is moved at most once per level before it
+ * fires. Deadlines beyond the top level are parked in its farthest bucket and re-placed when it cascades.
+ *
+ * Entries fire on the first {@link #advance} whose time reaches their tick, never earlier. An entry
+ * that is being fired can no longer be cancelled. Not thread-safe: callers serialize access.
+ */
+public final class TimingWheel<T> {
+
+    /**
+     * Handle of a scheduled entry.
+     */
+    public final class Timeout {
+
+        private final T item;
+        private final long deadlineTick;
+        private Timeout prev;
+        private Timeout next;
+        private Bucket<T> bucket;
+
+        private Timeout(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T item() {
+            return item;
+        }
+
+        public long deadlineMillis() {
+            return deadlineTick * tickMillis;
+        }
+
+        /**
+         * @return false if the entry had already fired or been cancelled
+         */
+        public boolean cancel() {
+            if (bucket == null) return false;
+            bucket.unlink(this);
+            size--;
+            return true;
+        }
+    }
+
+    private static final class Bucket<T> {
+
+        private TimingWheel<T>.Timeout head;
+
+        void link(TimingWheel<T>.Timeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = null;
+            timeout.next = head;
+            if (head != null) head.prev = timeout;
+            head = timeout;
+        }
+
+        void unlink(TimingWheel<T>.Timeout timeout) {
+            if (timeout.prev != null) timeout.prev.next = timeout.next;
+            else head = timeout.next;
+            if (timeout.next != null) timeout.next.prev = timeout.prev;
+            timeout.prev = timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        // Detach the whole list; entries keep their links to each other but can no longer be cancelled
+        TimingWheel<T>.Timeout drain() {
+            TimingWheel<T>.Timeout first = head;
+            head = null;
+            for (TimingWheel<T>.Timeout t = first; t != null; t = t.next) t.bucket = null;
+            return first;
+        }
+    }
+
+    private final long tickMillis;
+    private final int bits;
+    private final int mask;
+    private final List<List<Bucket<T>>> levels;
+    private final Bucket<T> overdue = new Bucket<>();
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMillis resolution of the wheel
+     * @param slots      buckets per level, a power of two
+     * @param levels     number of levels; the wheel spans {@code tickMillis * slots^levels} before parking
+     * @param nowMillis  current time
+     */
+    public TimingWheel(long tickMillis, int slots, int levels, long nowMillis) {
+        if (tickMillis <= 0) throw new IllegalArgumentException("tickMillis must be positive");
+        if (slots < 2 || Integer.bitCount(slots) != 1) throw new IllegalArgumentException("slots must be a power of two");
+        if (levels < 1 || (long) Integer.numberOfTrailingZeros(slots) * levels > 62) {
+            throw new IllegalArgumentException("Unsupported number of levels");
+        }
+        this.tickMillis = tickMillis;
+        this.bits = Integer.numberOfTrailingZeros(slots);
+        this.mask = slots - 1;
+        this.levels = new ArrayList<>(levels);
+        for (int l = 0; l < levels; l++) {
+            List<Bucket<T>> level = new ArrayList<>(slots);
+            for (int i = 0; i < slots; i++) level.add(new Bucket<>());
+            this.levels.add(level);
+        }
+        this.currentTick = Math.floorDiv(nowMillis, tickMillis);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Schedule an item. A deadline that has already passed fires on the next {@link #advance}.
+     */
+    public Timeout schedule(T item, long deadlineMillis) {
+        // Rounded up, so an entry never fires before its deadline
+        Timeout timeout = new Timeout(item, Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis));
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Move the wheel to {@code nowMillis} and hand every entry whose deadline has been reached to the consumer.
+     *
+     * @return the number of entries fired
+     */
+    public int advance(long nowMillis, Consumer<T> expired) {
+        long target = Math.floorDiv(nowMillis, tickMillis);
+        int fired = 0;
+
+        while (currentTick < target) {
+            currentTick++;
+            cascade(1);
+            fired += fire(levels.get(0).get((int) (currentTick & mask)).drain(), expired);
+        }
+        // Deadlines that had passed when scheduled, or that fall on a tick just cascaded into
+        return fired + fire(overdue.drain(), expired);
+    }
+
+    // On a turn of level n - 1, re-place the entries of level n's next bucket (and above first, if due)
+    private void cascade(int level) {
+        if (level >= levels.size() || (currentTick & ((1L << (bits * level)) - 1)) != 0) return;
+        cascade(level + 1);
+
+        Timeout timeout = levels.get(level).get((int) ((currentTick >>> (bits * level)) & mask)).drain();
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            timeout.prev = timeout.next = null;
+            place(timeout);
+            timeout = next;
+        }
+    }
+
+    private void place(Timeout timeout) {
+        long delta = timeout.deadlineTick - currentTick;
+        if (delta <= 0) {
+            overdue.link(timeout);
+            return;
+        }
+        for (int level = 0; level < levels.size(); level++) {
+            if (delta < 1L << (bits * (level + 1))) {
+                levels.get(level).get((int) ((timeout.deadlineTick >>> (bits * level)) & mask)).link(timeout);
+                return;
+            }
+        }
+        // Beyond the top level: park in its farthest bucket, re-placed when that bucket cascades
+        int top = levels.size() - 1;
+        long parked = currentTick + (1L << (bits * (top + 1))) - 1;
+        levels.get(top).get((int) ((parked >>> (bits * top)) & mask)).link(timeout);
+    }
+
+    private int fire(Timeout timeout, Consumer<T> expired) {
+        int fired = 0;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            timeout.prev = timeout.next = null;
+            size--;
+            fired++;
+            expired.accept(timeout.item);
+            timeout = next;
+        }
+        return fired;
+    }
+}
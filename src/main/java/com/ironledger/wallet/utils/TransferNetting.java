@@ -0,0 +1,81 @@
+package com.ironledger.wallet.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Nets a window of transfers between accounts into one balance change per account.
+ *
+ * Transfers are applied in order to running in-memory balances, so each one is checked for funds
+ * exactly as if it had been posted on its own: a transfer can spend what an earlier transfer of the
+ * window credited, but never what a later one will. Every accepted transfer keeps its own before/after
+ * balances for its ledger rows; only the net change of each account has to be written back.
+ */
+public final class TransferNetting {
+
+    private TransferNetting() {
+    }
+
+    public record Leg(UUID from, UUID to, long amount) {
+    }
+
+    /**
+     * Balances of an accepted transfer; the debit is applied before the credit.
+     */
+    public record Posting(long fromBefore, long fromAfter, long toBefore, long toAfter) {
+    }
+
+    /**
+     * @param postings one entry per leg, in order; null where the sender could not cover the amount
+     * @param deltas   net change per account, only for accounts whose balance changed
+     */
+    public record Result(List<Posting> postings, Map<UUID, Long> deltas) {
+
+        public boolean accepted(int leg) {
+            return postings.get(leg) != null;
+        }
+    }
+
+    /**
+     * @param available opening available balance of every account the legs touch
+     * @throws IllegalArgumentException if a leg touches an account without an opening balance
+     */
+    public static Result net(Map<UUID, Long> available, List<Leg> legs) {
+        Map<UUID, Long> balances = new HashMap<>(available);
+        List<Posting> postings = new ArrayList<>(legs.size());
+
+        for (Leg leg : legs) {
+            long fromBefore = balance(balances, leg.from());
+            balance(balances, leg.to());
+            if (fromBefore < leg.amount()) {
+                postings.add(null);
+                continue;
+            }
+
+            long fromAfter = fromBefore - leg.amount();
+            balances.put(leg.from(), fromAfter);
+            // Read after the debit, so a transfer to the same account nets to nothing
+            long toBefore = balances.get(leg.to());
+            long toAfter = toBefore + leg.amount();
+            balances.put(leg.to(), toAfter);
+
+            postings.add(new Posting(fromBefore, fromAfter, toBefore, toAfter));
+        }
+
+        Map<UUID, Long> deltas = new HashMap<>();
+        for (Map.Entry<UUID, Long> entry : balances.entrySet()) {
+            long delta = entry.getValue() - available.get(entry.getKey());
+            if (delta != 0) deltas.put(entry.getKey(), delta);
+        }
+        return new Result(postings, deltas);
+    }
+
+    private static long balance(Map<UUID, Long> balances, UUID accountId) {
+        Long balance = balances.get(accountId);
+        if (balance == null) throw new IllegalArgumentException("No opening balance for account " + accountId);
+        return balance;
+    }
+}
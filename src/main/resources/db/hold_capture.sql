@@ -0,0 +1,12 @@
+-- Partial captures: core_hold records how much of a hold has been captured so far.
+--
+-- Run before deploying the version that captures holds in parts (HoldCaptureRepository writes the
+-- column). Adding a column with a constant default does not rewrite the table. Holds captured before
+-- this change were always captured in full, for the remaining amount they had at the time.
+
+ALTER TABLE core_hold ADD COLUMN IF NOT EXISTS captured bigint NOT NULL DEFAULT 0;
+
+UPDATE core_hold
+   SET captured = amount
+ WHERE status = 1
+   AND captured = 0;
@@ -0,0 +1,6 @@
+-- core_idempotency_key.batch_response: the stored response of a batch posting (POST /batch).
+--
+-- Run before deploying the version that accepts an Idempotency-Key on batch postings. Adding a
+-- nullable column does not rewrite the table; keys of single postings leave it NULL.
+
+ALTER TABLE core_idempotency_key ADD COLUMN IF NOT EXISTS batch_response jsonb;
@@ -0,0 +1,24 @@
+-- Moves the bucket_credit flag out of core_ledger_transaction.meta into its own column.
+--
+-- Run before deploying the version that reads bucket_credit: checkpoints, snapshots, rollups and
+-- reconciliation filter on it. Adding a column with a constant default does not rewrite the table;
+-- the UPDATE only touches the (few) striped credits written before this change. Run
+-- ledger_partitioning.sql first if it is still pending: its column list predates bucket_credit.
+--
+-- New rows keep only request metadata in meta, in the compact form written by LedgerMetaCodec
+-- ({"ip": .., "ua": ..}), or NULL. Older rows keep their original meta; LedgerMetaCodec reads both.
+
+ALTER TABLE core_ledger_transaction ADD COLUMN IF NOT EXISTS bucket_credit boolean NOT NULL DEFAULT false;
+
+UPDATE core_ledger_transaction
+   SET bucket_credit = true,
+       meta = meta - 'bucket_credit'
+ WHERE meta ? 'bucket_credit'
+   AND (meta ->> 'bucket_credit')::boolean;
+
+-- Optional, per partition and off-peak: shrink historical meta to the compact form.
+-- UPDATE core_ledger_transaction_pYYYYMM
+--    SET meta = NULLIF(jsonb_strip_nulls(jsonb_build_object(
+--                   'ip', meta ->> 'ip_address',
+--                   'ua', left(meta ->> 'user_agent', 256))), '{}'::jsonb)
+--  WHERE meta ? 'trace_id';
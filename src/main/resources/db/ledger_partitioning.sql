@@ -0,0 +1,102 @@
+-- Converts core_ledger_transaction into a table range-partitioned by month on created_at.
+--
+-- Run once, during a maintenance window, with writes to the ledger stopped. Afterwards
+-- LedgerPartitionManager (ironledger.partitioning.*) keeps future partitions created and
+-- detaches expired ones.
+--
+-- Postgres requires every unique constraint of a partitioned table to include the partition key,
+-- so the primary key becomes (id, created_at). The reference uniqueness cannot follow it:
+-- (reference_id, type, created_at) would only reject a repeat with the exact same timestamp, and the
+-- legs of one operation are not written with a shared created_at (each row takes its own, and a
+-- retried or replayed operation gets a new one). (reference_id, type) is therefore enforced on
+-- core_ledger_reference, an unpartitioned table every ledger row with a reference ID is recorded in
+-- by an insert trigger; a duplicate fails the ledger insert with a unique violation, as before.
+-- References are kept when partitions are detached or dropped, so archived reference IDs stay taken.
+--
+-- Partition bounds are month starts in Asia/Singapore, the zone the ledger timestamps are written in.
+-- There is deliberately no DEFAULT partition: it would have to be scanned whenever a new month is
+-- attached, and would prevent DETACH ... CONCURRENTLY.
+
+BEGIN;
+
+ALTER TABLE core_ledger_transaction RENAME TO core_ledger_transaction_legacy;
+ALTER INDEX IF EXISTS idx_ledger_account_created_id RENAME TO idx_ledger_legacy_account_created_id;
+ALTER INDEX IF EXISTS idx_ledger_user_id RENAME TO idx_ledger_legacy_user_id;
+ALTER INDEX IF EXISTS idx_ledger_created_at RENAME TO idx_ledger_legacy_created_at;
+ALTER TABLE core_ledger_transaction_legacy
+    RENAME CONSTRAINT unique_ledger_reference_type TO unique_ledger_legacy_reference_type;
+
+CREATE TABLE core_ledger_transaction (
+    id             uuid        NOT NULL,
+    account_id     uuid        NOT NULL,
+    user_id        uuid        NOT NULL,
+    amount         bigint      NOT NULL,
+    currency       varchar(3)  NOT NULL,
+    type           varchar(255) NOT NULL,
+    status         integer     NOT NULL,
+    balance_before bigint      NOT NULL,
+    balance_after  bigint      NOT NULL,
+    pending_before bigint      NOT NULL,
+    pending_after  bigint      NOT NULL,
+    reference_id   varchar(255),
+    external_ref   varchar(255),
+    meta           jsonb,
+    created_at     timestamptz NOT NULL,
+    CONSTRAINT pk_ledger_transaction PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE core_ledger_reference (
+    reference_id varchar(255) NOT NULL,
+    type         varchar(255) NOT NULL,
+    CONSTRAINT unique_ledger_reference_type PRIMARY KEY (reference_id, type)
+);
+
+CREATE FUNCTION core_ledger_reference_insert() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO core_ledger_reference (reference_id, type) VALUES (NEW.reference_id, NEW.type);
+    RETURN NULL;
+END $$ LANGUAGE plpgsql;
+
+-- Defined on the parent, cloned onto every partition
+CREATE TRIGGER trg_ledger_reference
+    AFTER INSERT ON core_ledger_transaction
+    FOR EACH ROW WHEN (NEW.reference_id IS NOT NULL)
+    EXECUTE FUNCTION core_ledger_reference_insert();
+
+-- Defined on the parent, created automatically on every partition
+CREATE INDEX idx_ledger_account_created_id ON core_ledger_transaction (account_id, created_at, id);
+CREATE INDEX idx_ledger_user_id ON core_ledger_transaction (user_id);
+CREATE INDEX idx_ledger_created_at ON core_ledger_transaction (created_at);
+
+-- One partition per month from the oldest existing row up to three months ahead
+DO $$
+DECLARE
+    first_month date;
+    last_month  date := date_trunc('month', now() AT TIME ZONE 'Asia/Singapore')::date + interval '3 months';
+    m           date;
+BEGIN
+    SELECT date_trunc('month', min(created_at) AT TIME ZONE 'Asia/Singapore')::date
+      INTO first_month FROM core_ledger_transaction_legacy;
+    m := COALESCE(first_month, date_trunc('month', now() AT TIME ZONE 'Asia/Singapore')::date);
+    WHILE m <= last_month LOOP
+        EXECUTE format(
+            'CREATE TABLE %I PARTITION OF core_ledger_transaction FOR VALUES FROM (%L) TO (%L)',
+            'core_ledger_transaction_p' || to_char(m, 'YYYYMM'),
+            (m::timestamp AT TIME ZONE 'Asia/Singapore'),
+            ((m + interval '1 month')::timestamp AT TIME ZONE 'Asia/Singapore'));
+        m := m + interval '1 month';
+    END LOOP;
+END $$;
+
+INSERT INTO core_ledger_transaction (
+    id, account_id, user_id, amount, currency, type, status, balance_before, balance_after,
+    pending_before, pending_after, reference_id, external_ref, meta, created_at)
+SELECT
+    id, account_id, user_id, amount, currency, type, status, balance_before, balance_after,
+    pending_before, pending_after, reference_id, external_ref, meta, created_at
+FROM core_ledger_transaction_legacy;
+
+COMMIT;
+
+-- After verifying row counts:
+-- DROP TABLE core_ledger_transaction_legacy;
@@ -0,0 +1,20 @@
+-- core_account.last_posted_at: created_at of the account's latest ledger row written under its lock.
+--
+-- Every path that posts under the account lock stamps its row strictly after this value and advances it
+-- (Account#stampPosting, the single-statement and capture CTEs, the balance engine), so within an account
+-- (created_at, id) is the posting order, even for rows written in the same microsecond or across a clock
+-- step back. Chains, last-row lookups, replays and history cursors all order by it.
+--
+-- Run before deploying the version that writes the column. Adding a nullable column does not rewrite
+-- the table; NULL means "no row yet" and the next posting takes the current time. The backfill reads
+-- idx_ledger_account_created_id backwards once per account and can run online, in batches if needed.
+-- Rows written before this change keep their timestamps: ties among them still fall back to the id.
+
+ALTER TABLE core_account ADD COLUMN IF NOT EXISTS last_posted_at timestamptz;
+
+UPDATE core_account a
+   SET last_posted_at = (SELECT max(t.created_at)
+                           FROM core_ledger_transaction t
+                          WHERE t.account_id = a.id
+                            AND NOT t.bucket_credit)
+ WHERE a.last_posted_at IS NULL;
@@ -0,0 +1,14 @@
+-- Asynchronous transfers (ironledger.transfers.async.enabled=true).
+--
+-- Run before enabling the async mode. An accepted transfer is stored as PENDING and settled later by
+-- TransferPipeline; one that is rejected at that point ends FAILED with the reason recorded here.
+-- Adding a nullable column does not rewrite the table.
+--
+-- Only the asynchronous mode leaves committed PENDING rows, so the partial index stays small. It serves
+-- the startup recovery and the periodic sweep, which read the PENDING transfers in submission order.
+
+ALTER TABLE core_transfer ADD COLUMN IF NOT EXISTS failure_reason varchar(255);
+
+CREATE INDEX IF NOT EXISTS idx_transfer_pending_created
+    ON core_transfer (created_at, id)
+    WHERE status = 'PENDING';
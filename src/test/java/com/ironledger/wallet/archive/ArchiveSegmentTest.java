@@ -0,0 +1,134 @@
+package com.ironledger.wallet.archive;
+
+import com.ironledger.wallet.repository.LedgerReplayRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchiveSegmentTest {
+
+    private static final UUID A = UUID.fromString("00000000-0000-0000-0000-00000000000a");
+    private static final UUID B = UUID.fromString("00000000-0000-0000-0000-00000000000b");
+    private static final UUID C = UUID.fromString("00000000-0000-0000-0000-00000000000c");
+    private static final UUID USER = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final YearMonth MONTH = YearMonth.of(2025, 1);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testWriteRead_roundTripsEveryColumn() {
+        List<ArchivedRow> rows = List.of(
+                row(A, 1, 500, "CREDIT", "{\"ip\": \"10.0.0.1\"}"),
+                row(A, 2, -200, "DEBIT", null),
+                row(B, 1, 70, "CREDIT", "{\"bucket_credit\": true}"));
+
+        ArchiveSegment segment = write(rows, 1_000);
+
+        assertEquals(3, segment.rowCount());
+        assertEquals(MONTH, segment.month());
+        List<ArchivedRow> read = new ArrayList<>();
+        for (ArchiveSegment.Block block : segment.blocks()) {
+            read.addAll(segment.read(block, A, Long.MIN_VALUE, Long.MAX_VALUE));
+            read.addAll(segment.read(block, B, Long.MIN_VALUE, Long.MAX_VALUE));
+        }
+        assertEquals(rows, read);
+        assertTrue(read.get(2).bucketCredit());
+        assertFalse(read.get(0).bucketCredit());
+        assertTrue(read.get(2).toEntry().getBucketCredit());
+        assertNull(read.get(2).toEntry().getBalanceAfter(), "Bucket balances are not the account's");
+        assertEquals(800L, read.get(1).toEntry().getBalanceAfter());
+        segment.close();
+
+        ArchiveSegment reopened = ArchiveSegment.open(dir.resolve(ArchiveSegment.fileName(MONTH)));
+        assertEquals(segment.blocks(), reopened.blocks());
+        reopened.close();
+    }
+
+    @Test
+    void testBlocks_minMaxBoundsPruneAccountsAndTime() {
+        ArchiveSegment segment = write(List.of(
+                row(A, 1, 1, "CREDIT", null), row(A, 5, 1, "CREDIT", null),
+                row(A, 9, 1, "CREDIT", null), row(C, 2, 1, "CREDIT", null)), 2);
+
+        List<ArchiveSegment.Block> blocks = segment.blocks();
+        assertEquals(2, blocks.size());
+
+        ArchiveSegment.Block first = blocks.get(0);
+        assertEquals(A, first.minAccount());
+        assertEquals(A, first.maxAccount());
+        assertEquals(ArchiveSegment.toMicros(at(1)), first.minMicros());
+        assertEquals(ArchiveSegment.toMicros(at(5)), first.maxMicros());
+        assertTrue(first.mayContain(A));
+        assertFalse(first.mayContain(B));
+        assertFalse(first.overlaps(ArchiveSegment.toMicros(at(6)), Long.MAX_VALUE));
+
+        ArchiveSegment.Block second = blocks.get(1);
+        assertTrue(second.mayContain(B), "B lies between the block's first and last account");
+        assertTrue(segment.read(second, B, Long.MIN_VALUE, Long.MAX_VALUE).isEmpty());
+        assertEquals(List.of(at(9)), segment.read(second, A, Long.MIN_VALUE, Long.MAX_VALUE).stream()
+                .map(ArchivedRow::createdAt).toList());
+        segment.close();
+    }
+
+    @Test
+    void testRead_timeRangeIsHalfOpen() {
+        ArchiveSegment segment = write(List.of(
+                row(A, 1, 1, "CREDIT", null), row(A, 2, 1, "CREDIT", null), row(A, 3, 1, "CREDIT", null)), 100);
+
+        List<ArchivedRow> read = segment.read(segment.blocks().get(0), A,
+                ArchiveSegment.toMicros(at(2)), ArchiveSegment.toMicros(at(3)));
+
+        assertEquals(List.of(at(2)), read.stream().map(ArchivedRow::createdAt).toList());
+        segment.close();
+    }
+
+    @Test
+    void testArchiveReplay_appliesReplayRules() {
+        LedgerReplayRepository.ArchiveReplay replay = new LedgerReplayRepository.ArchiveReplay();
+        List.of(row(A, 1, 500, "CREDIT", null), row(A, 2, -120, "PENDING_DEBIT", null),
+                row(A, 3, -100, "CAPTURE", null), row(A, 4, 20, "RELEASE", null),
+                row(A, 5, -50, "REVERSAL_DEBIT", null), row(A, 6, 7, "FEE", null)).forEach(replay);
+
+        LedgerReplayRepository.LedgerReplay result = replay.result();
+        assertEquals(6, result.rows());
+        assertEquals(500 - 120 + 20 - 50, result.availableDelta());
+        assertEquals(120 - 100 - 20, result.pendingDelta());
+        assertEquals(1, result.unknownRows());
+        assertEquals(at(6), result.lastCreatedAt());
+    }
+
+    @Test
+    void testCompareIds_ordersLikePostgres() {
+        UUID low = UUID.fromString("7fffffff-ffff-ffff-ffff-ffffffffffff");
+        UUID high = UUID.fromString("80000000-0000-0000-0000-000000000000");
+
+        assertTrue(ArchiveSegment.compareIds(low, high) < 0);
+        assertTrue(low.compareTo(high) > 0, "UUID.compareTo is signed");
+    }
+
+    private ArchiveSegment write(List<ArchivedRow> rows, int blockRows) {
+        try (ArchiveSegment.Writer writer = new ArchiveSegment.Writer(dir.resolve("segment.tmp"), MONTH, blockRows)) {
+            rows.forEach(writer::add);
+            return writer.seal(dir.resolve(ArchiveSegment.fileName(MONTH)));
+        }
+    }
+
+    static ArchivedRow row(UUID accountId, int day, long amount, String type, String meta) {
+        return new ArchivedRow(UUID.randomUUID(), accountId, USER, amount, "SGD", type, 1,
+                1_000, 1_000 + amount, 0, 0, "REF-" + day, null, meta, at(day));
+    }
+
+    static OffsetDateTime at(int day) {
+        return OffsetDateTime.of(2025, 1, day, 8, 30, 0, 123_456_000, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,169 @@
+package com.ironledger.wallet.archive;
+
+import com.ironledger.wallet.dto.Ledger.LedgerEntryResponse;
+import com.ironledger.wallet.dto.Ledger.LedgerHistoryResponse;
+import com.ironledger.wallet.entity.Account;
+import com.ironledger.wallet.repository.AccountRepository;
+import com.ironledger.wallet.repository.LedgerRepository;
+import com.ironledger.wallet.service.LedgerHistoryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Limit;
+
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LedgerArchiveTest {
+
+    private static final UUID ACCOUNT = UUID.fromString("00000000-0000-0000-0000-00000000000a");
+    private static final UUID OTHER = UUID.fromString("00000000-0000-0000-0000-00000000000b");
+    private static final UUID USER = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    // Newest first, by (created_at, id) in PostgreSQL order
+    private static final Comparator<LedgerEntryResponse> NEWEST_FIRST =
+            Comparator.comparing(LedgerEntryResponse::getCreatedAt)
+                    .thenComparing(LedgerEntryResponse::getTransactionId, ArchiveSegment::compareIds)
+                    .reversed();
+
+    @TempDir
+    Path dir;
+
+    private LedgerArchive archive;
+
+    @BeforeEach
+    void setUp() {
+        archive = new LedgerArchive(dir, 2);
+        archive.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        archive.shutdown();
+    }
+
+    @Test
+    void testHorizon_isEndOfNewestArchivedMonth() {
+        assertTrue(archive.horizon().isEmpty());
+
+        archiveMonth(YearMonth.of(2025, 1), List.of(row(ACCOUNT, 1, 5, 0)));
+        archiveMonth(YearMonth.of(2025, 2), List.of(row(ACCOUNT, 2, 5, 0)));
+
+        assertEquals(OffsetDateTime.parse("2025-03-01T00:00+08:00"), archive.horizon().orElseThrow());
+    }
+
+    @Test
+    void testLastRow_andScanAfter_crossSegments() {
+        ArchivedRow jan = row(ACCOUNT, 1, 20, 0);
+        ArchivedRow feb1 = row(ACCOUNT, 2, 3, 0);
+        ArchivedRow feb2 = row(ACCOUNT, 2, 10, 0);
+        archiveMonth(YearMonth.of(2025, 1), List.of(jan, row(OTHER, 1, 25, 0)));
+        archiveMonth(YearMonth.of(2025, 2), List.of(feb1, feb2));
+
+        assertEquals(Optional.of(feb1), archive.lastRow(ACCOUNT, feb1.createdAt()));
+        assertEquals(Optional.of(jan), archive.lastRow(ACCOUNT, feb1.createdAt().minusNanos(1_000)));
+        assertEquals(Optional.empty(), archive.lastRow(ACCOUNT, jan.createdAt().minusNanos(1_000)));
+
+        List<ArchivedRow> after = new ArrayList<>();
+        archive.scanAfter(ACCOUNT, jan.createdAt(), jan.id(), feb2.createdAt(), after::add);
+        assertEquals(List.of(feb1), after);
+    }
+
+    @Test
+    void testHistory_hotThenArchive_mergedNewestFirstAcrossPages() {
+        List<ArchivedRow> january = new ArrayList<>();
+        for (int day = 1; day <= 5; day++) january.add(row(ACCOUNT, 1, day, 0));
+        january.add(row(ACCOUNT, 1, 5, 0));   // same instant as the previous row, ordered by id
+        january.add(row(OTHER, 1, 3, 0));
+        archiveMonth(YearMonth.of(2025, 1), sorted(january));
+
+        List<ArchivedRow> february = List.of(row(ACCOUNT, 2, 14, 0), row(ACCOUNT, 2, 28, 0));
+        archiveMonth(YearMonth.of(2025, 2), february);
+
+        List<LedgerEntryResponse> hot = new ArrayList<>();
+        for (int day = 1; day <= 3; day++) hot.add(row(ACCOUNT, 3, day, 0).toEntry());
+        hot.sort(NEWEST_FIRST);
+
+        LedgerHistoryService history = historyService(hot);
+
+        List<LedgerEntryResponse> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            LedgerHistoryResponse page = history.history(USER, ACCOUNT, cursor, 2);
+            seen.addAll(page.getItems());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null && pages < 20);
+
+        List<LedgerEntryResponse> expected = new ArrayList<>(hot);
+        for (ArchivedRow row : february) expected.add(row.toEntry());
+        for (ArchivedRow row : january) if (row.accountId().equals(ACCOUNT)) expected.add(row.toEntry());
+        expected.sort(NEWEST_FIRST);
+
+        assertEquals(expected.stream().map(LedgerEntryResponse::getTransactionId).toList(),
+                seen.stream().map(LedgerEntryResponse::getTransactionId).toList());
+        assertEquals(6, pages);
+    }
+
+    private LedgerHistoryService historyService(List<LedgerEntryResponse> hot) {
+        AccountRepository accounts = mock(AccountRepository.class);
+        when(accounts.findById(ACCOUNT)).thenReturn(Optional.of(Account.builder().id(ACCOUNT).userId(USER).build()));
+
+        LedgerRepository ledger = mock(LedgerRepository.class);
+        when(ledger.findHistory(eq(ACCOUNT), any(Limit.class)))
+                .thenAnswer(call -> hot.stream().limit(call.<Limit>getArgument(1).max()).toList());
+        when(ledger.findHistoryBefore(eq(ACCOUNT), any(OffsetDateTime.class), any(UUID.class), any(Limit.class)))
+                .thenAnswer(call -> {
+                    LedgerEntryResponse position = new LedgerEntryResponse(call.getArgument(2), null, null, null,
+                            null, null, null, null, null, null, call.getArgument(1), null);
+                    return hot.stream()
+                            .filter(e -> NEWEST_FIRST.compare(e, position) > 0)
+                            .limit(call.<Limit>getArgument(3).max())
+                            .toList();
+                });
+
+        return new LedgerHistoryService(accounts, ledger, null, null, null, Optional.of(archive));
+    }
+
+    @Test
+    void testAnyBucketCredit_upToInstant() {
+        ArchivedRow main = row(ACCOUNT, 1, 5, 0);
+        ArchivedRow c = row(ACCOUNT, 1, 10, 0);
+        ArchivedRow credit = new ArchivedRow(c.id(), ACCOUNT, USER, 100, "SGD", "CREDIT", 1,
+                0, 100, 0, 0, "REF", null, "{\"bucket_credit\": true}", c.createdAt());
+        archiveMonth(YearMonth.of(2025, 1), List.of(main, credit, row(ACCOUNT, 1, 20, 0)));
+
+        assertFalse(archive.anyBucketCredit(ACCOUNT, credit.createdAt().minusNanos(1_000)));
+        assertTrue(archive.anyBucketCredit(ACCOUNT, credit.createdAt()));
+        assertFalse(archive.anyBucketCredit(OTHER, credit.createdAt()));
+    }
+
+    private void archiveMonth(YearMonth month, List<ArchivedRow> rows) {
+        archive.archive(month, rows.size(), sink -> rows.forEach(sink));
+    }
+
+    private static List<ArchivedRow> sorted(List<ArchivedRow> rows) {
+        List<ArchivedRow> sorted = new ArrayList<>(rows);
+        sorted.sort(Comparator.comparing(ArchivedRow::accountId, ArchiveSegment::compareIds)
+                .thenComparing(ArchivedRow::createdAt)
+                .thenComparing(ArchivedRow::id, ArchiveSegment::compareIds));
+        return sorted;
+    }
+
+    private static ArchivedRow row(UUID accountId, int month, int day, int hour) {
+        return new ArchivedRow(UUID.randomUUID(), accountId, USER, 100, "SGD", "CREDIT", 1,
+                0, 100, 0, 0, "REF", null, null,
+                OffsetDateTime.of(2025, month, day, 4 + hour, 0, 0, 0, ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,103 @@
+package com.ironledger.wallet.benchmark;
+
+import com.ironledger.wallet.engine.AccountState;
+import com.ironledger.wallet.engine.BalanceEngine;
+import com.ironledger.wallet.engine.EngineOperation;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Throughput of credits against a few hot accounts: row-lock style vs. the single-writer engine.
+ *
+ * Both variants pay the same simulated commit latency ({@code commitMicros}) per database transaction.
+ * The row-lock variant holds a per-account lock across one commit per posting, like
+ * {@code findByIdForUpdate} does today; the engine applies postings in memory and pays one commit per shard batch.
+ *
+ * Run with: {@code mvn test-compile} then execute {@link #main(String[])} from the test classpath.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class BalanceEngineBenchmark {
+
+    private static final int HOT_ACCOUNTS = 4;
+    private static final UUID USER_ID = UUID.randomUUID();
+
+    @Param({"200"})
+    public long commitMicros;
+
+    private UUID[] accountIds;
+    private Map<UUID, ReentrantLock> rowLocks;
+    private Map<UUID, long[]> rowBalances;
+    private BalanceEngine engine;
+
+    @Setup
+    public void setUp() {
+        accountIds = new UUID[HOT_ACCOUNTS];
+        rowLocks = new ConcurrentHashMap<>();
+        rowBalances = new ConcurrentHashMap<>();
+        for (int i = 0; i < HOT_ACCOUNTS; i++) {
+            accountIds[i] = UUID.randomUUID();
+            rowLocks.put(accountIds[i], new ReentrantLock());
+            rowBalances.put(accountIds[i], new long[1]);
+        }
+
+        engine = new BalanceEngine(HOT_ACCOUNTS, 256, 16_384, 1_000,
+                id -> new AccountState(id, USER_ID, "SGD", true, 0, 0, null),
+                (rows, keys, touched) -> commit());
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    @Benchmark
+    public long rowLockPerPosting() {
+        UUID accountId = pickAccount();
+        ReentrantLock lock = rowLocks.get(accountId);
+        lock.lock();
+        try {
+            long[] balance = rowBalances.get(accountId);
+            balance[0] += 100;
+            commit();
+            return balance[0];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Benchmark
+    public long singleWriterEngine() {
+        return engine.execute(EngineOperation.CREDIT, USER_ID, pickAccount(), 100, "SGD", "REF", null, null)
+                .getBalanceAfter();
+    }
+
+    private UUID pickAccount() {
+        return accountIds[ThreadLocalRandom.current().nextInt(HOT_ACCOUNTS)];
+    }
+
+    private void commit() {
+        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(commitMicros));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BalanceEngineBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
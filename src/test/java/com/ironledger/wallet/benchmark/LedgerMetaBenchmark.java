@@ -0,0 +1,94 @@
+package com.ironledger.wallet.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ironledger.wallet.entity.LedgerMeta;
+import com.ironledger.wallet.utils.LedgerMetaCodec;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation and time per posting spent on ledger metadata.
+ *
+ * {@code legacyMapAndJackson} reproduces the former per-row meta: a HashMap with a random trace ID,
+ * a timestamp string, the action and reference ID, serialized by Jackson. {@code ledgerMetaPerRequest}
+ * is the current path, where the request's {@link LedgerMeta} is shared by every row and only the
+ * compact JSON is built. {@code ledgerMetaPerRow} builds the record for every row as well.
+ *
+ * Run with: {@code mvn test-compile} then execute {@link #main(String[])} from the test classpath.
+ * The GC profiler reports allocation per posting as {@code gc.alloc.rate.norm} (bytes/op); the
+ * encoded size of a row's meta is reported next to each benchmark as {@code metaBytes}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LedgerMetaBenchmark {
+
+    private static final String IP = "203.0.113.42";
+    private static final String USER_AGENT =
+            "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/605.1.15 (KHTML, like Gecko) " +
+            "Version/17.4.1 Mobile/15E148 Safari/604.1 IronLedgerApp/4.12.0 (build 41200; iPhone15,3; iOS 17.4.1)";
+    private static final String REFERENCE_ID = "01JAB3K5Q8ZP6V4M2N7R9T0XYZ";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LedgerMeta requestMeta = LedgerMeta.of(IP, USER_AGENT);
+
+    // Encoded meta size of the last row; every encoding here is ASCII, so characters are bytes
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RowSize {
+        public long metaBytes;
+    }
+
+    @Benchmark
+    public String legacyMapAndJackson(RowSize size) throws JsonProcessingException {
+        String meta = objectMapper.writeValueAsString(legacyMeta("CREDIT"));
+        size.metaBytes = meta.length();
+        return meta;
+    }
+
+    @Benchmark
+    public String ledgerMetaPerRequest(RowSize size) {
+        String meta = LedgerMetaCodec.encode(requestMeta);
+        size.metaBytes = meta.length();
+        return meta;
+    }
+
+    @Benchmark
+    public String ledgerMetaPerRow(RowSize size) {
+        String meta = LedgerMetaCodec.encode(LedgerMeta.of(IP, USER_AGENT));
+        size.metaBytes = meta.length();
+        return meta;
+    }
+
+    private static Map<String, Object> legacyMeta(String action) {
+        Map<String, Object> meta = new HashMap<>();
+        meta.put("action", action);
+        meta.put("trace_id", UUID.randomUUID().toString());
+        meta.put("source", "WALLET_API");
+        meta.put("timestamp", OffsetDateTime.now().toString());
+        meta.put("ip_address", IP);
+        meta.put("user_agent", USER_AGENT);
+        meta.put("reference_id", REFERENCE_ID);
+        return meta;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LedgerMetaBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
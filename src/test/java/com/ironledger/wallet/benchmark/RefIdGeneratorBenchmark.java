@@ -0,0 +1,53 @@
+package com.ironledger.wallet.benchmark;
+
+import com.github.f4b6a3.ulid.Ulid;
+import com.github.f4b6a3.ulid.UlidCreator;
+import com.ironledger.wallet.utils.MonotonicUlidGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of reference ID generation under contention.
+ *
+ * Compares the node-aware {@link MonotonicUlidGenerator} against the previous
+ * {@code Ulid.fast()} call (which still needed a uniqueness SELECT per ID) and the
+ * library's synchronized monotonic factory.
+ *
+ * Run with: {@code mvn test-compile} then execute {@link #main(String[])} from the test classpath.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class RefIdGeneratorBenchmark {
+
+    private final MonotonicUlidGenerator generator = new MonotonicUlidGenerator(1);
+
+    @Benchmark
+    public String monotonicNodeAware() {
+        return generator.nextRefId();
+    }
+
+    @Benchmark
+    public String ulidFast() {
+        return Ulid.fast().toString();
+    }
+
+    @Benchmark
+    public String ulidCreatorMonotonic() {
+        return UlidCreator.getMonotonicUlid().toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RefIdGeneratorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,48 @@
+package com.ironledger.wallet.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountTest {
+
+    private static final OffsetDateTime NOW = OffsetDateTime.of(2025, 3, 14, 9, 26, 53, 589_793_238, ZoneOffset.ofHours(8));
+
+    @Test
+    void testNextPostedAt_firstPosting_isNowAtMicros() {
+        assertEquals(NOW.withNano(589_793_000), Account.nextPostedAt(null, NOW));
+    }
+
+    @Test
+    void testNextPostedAt_sameMicrosecond_movesPastPrevious() {
+        OffsetDateTime first = Account.nextPostedAt(null, NOW);
+        OffsetDateTime second = Account.nextPostedAt(first, NOW.plusNanos(500));
+
+        assertEquals(first.plusNanos(1_000), second);
+    }
+
+    @Test
+    void testNextPostedAt_clockStepBack_staysAfterPrevious() {
+        OffsetDateTime previous = NOW.plusSeconds(2).withOffsetSameInstant(ZoneOffset.UTC);
+
+        OffsetDateTime next = Account.nextPostedAt(previous, NOW);
+
+        assertTrue(next.isAfter(previous));
+        assertEquals(NOW.getOffset(), next.getOffset());
+    }
+
+    @Test
+    void testStampPosting_tightLoop_isStrictlyIncreasing() {
+        Account account = new Account();
+        OffsetDateTime previous = null;
+        for (int i = 0; i < 1000; i++) {
+            OffsetDateTime at = account.stampPosting(NOW);
+            if (previous != null) assertTrue(at.isAfter(previous));
+            previous = at;
+        }
+        assertEquals(previous, account.getLastPostedAt());
+    }
+}
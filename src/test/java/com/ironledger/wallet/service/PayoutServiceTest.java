@@ -0,0 +1,185 @@
+package com.ironledger.wallet.service;
+
+import com.ironledger.wallet.dto.Transfer.PayoutLeg;
+import com.ironledger.wallet.dto.Transfer.PayoutLegResult;
+import com.ironledger.wallet.dto.Transfer.PayoutRequest;
+import com.ironledger.wallet.dto.Transfer.PayoutResponse;
+import com.ironledger.wallet.entity.Account;
+import com.ironledger.wallet.entity.Payout;
+import com.ironledger.wallet.entity.PayoutChunk;
+import com.ironledger.wallet.exception.DuplicateResourceException;
+import com.ironledger.wallet.repository.AccountRepository;
+import com.ironledger.wallet.repository.LedgerBatchRepository;
+import com.ironledger.wallet.repository.PayoutChunkRepository;
+import com.ironledger.wallet.repository.PayoutRepository;
+import com.ironledger.wallet.repository.TransferBatchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class PayoutServiceTest {
+
+    private static final UUID USER = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final UUID SENDER = UUID.fromString("00000000-0000-0000-0000-00000000000a");
+    private static final UUID ALICE = UUID.fromString("00000000-0000-0000-0000-00000000000b");
+    private static final UUID BOB = UUID.fromString("00000000-0000-0000-0000-00000000000c");
+    private static final String KEY = "payroll-2025-03";
+    private static final int CHUNK_SIZE = 2;
+
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+    private final PayoutRepository payoutRepository = mock(PayoutRepository.class);
+    private final PayoutChunkRepository payoutChunkRepository = mock(PayoutChunkRepository.class);
+    private final TransferBatchRepository transferBatchRepository = mock(TransferBatchRepository.class);
+    private final LedgerBatchRepository ledgerBatchRepository = mock(LedgerBatchRepository.class);
+    private final LedgerService ledgerService = mock(LedgerService.class);
+    private final AccountStripingService accountStripingService = mock(AccountStripingService.class);
+    private final RetryingTransactionExecutor transactionExecutor = mock(RetryingTransactionExecutor.class);
+
+    // What the database holds: committed balances, the claimed payout and its settled chunks
+    private final Map<UUID, Long> balances = new HashMap<>();
+    private final Map<String, Payout> payouts = new HashMap<>();
+    private final Map<PayoutChunk.Key, PayoutChunk> chunks = new HashMap<>();
+
+    private PayoutService service;
+
+    @BeforeEach
+    void setUp() {
+        balances.put(SENDER, 1_000L);
+        balances.put(ALICE, 0L);
+        balances.put(BOB, 0L);
+
+        // Every transaction reads fresh rows, so a chunk that failed leaves nothing behind
+        when(transactionExecutor.execute(any())).thenAnswer(inv -> ((Supplier<?>) inv.getArgument(0)).get());
+        when(accountRepository.findById(SENDER)).thenAnswer(inv -> Optional.of(account(SENDER)));
+        when(accountRepository.findAllByIdForUpdate(anyCollection())).thenAnswer(inv -> {
+            Collection<UUID> ids = inv.getArgument(0);
+            return ids.stream().filter(balances::containsKey).map(this::account).toList();
+        });
+        when(ledgerService.generateReferenceId()).thenAnswer(inv -> UUID.randomUUID().toString());
+
+        when(payoutRepository.claim(any(), any(), anyString(), anyString(), any())).thenAnswer(inv -> {
+            Payout payout = new Payout(inv.getArgument(0), inv.getArgument(1), inv.getArgument(2),
+                    inv.getArgument(3), inv.getArgument(4));
+            return payouts.putIfAbsent(payout.getIdempotencyKey(), payout) == null ? 1 : 0;
+        });
+        when(payoutRepository.findByUserIdAndIdempotencyKey(any(), anyString()))
+                .thenAnswer(inv -> Optional.ofNullable(payouts.get(inv.<String>getArgument(1))));
+        when(payoutRepository.findByIdForUpdate(any())).thenAnswer(inv -> payouts.values().stream()
+                .filter(p -> p.getId().equals(inv.getArgument(0))).findFirst());
+
+        when(payoutChunkRepository.save(any())).thenAnswer(inv -> {
+            PayoutChunk chunk = inv.getArgument(0);
+            chunks.put(new PayoutChunk.Key(chunk.getPayoutId(), chunk.getFirstLeg()), chunk);
+            return chunk;
+        });
+        when(payoutChunkRepository.findById(any())).thenAnswer(inv -> Optional.ofNullable(chunks.get(inv.getArgument(0))));
+        when(payoutChunkRepository.findByPayoutIdOrderByFirstLegAsc(any())).thenAnswer(inv -> chunks.values().stream()
+                .filter(c -> c.getPayoutId().equals(inv.getArgument(0)))
+                .sorted(Comparator.comparing(PayoutChunk::getFirstLeg))
+                .toList());
+
+        service = new PayoutService(accountRepository, payoutRepository, payoutChunkRepository,
+                transferBatchRepository, ledgerBatchRepository, ledgerService, accountStripingService,
+                transactionExecutor, CHUNK_SIZE);
+    }
+
+    @Test
+    void testPayout_sameKeyDifferentLegs_throwsDuplicate() {
+        service.payout(USER, request(leg(ALICE, 100)), KEY);
+
+        assertThrows(DuplicateResourceException.class, () -> service.payout(USER, request(leg(ALICE, 101)), KEY));
+        verify(transferBatchRepository, times(1)).insertAll(any());
+    }
+
+    @Test
+    void testPayout_sameKeySameRequest_replaysWithoutPaying() {
+        PayoutResponse first = service.payout(USER, request(leg(ALICE, 100), leg(BOB, 200), leg(ALICE, 300)), KEY);
+        PayoutResponse second = service.payout(USER, request(leg(ALICE, 100), leg(BOB, 200), leg(ALICE, 300)), KEY);
+
+        assertEquals(first.getPayoutId(), second.getPayoutId());
+        assertEquals(first.getLegs(), second.getLegs());
+        assertEquals(600, second.getTotalPaid());
+        // Two chunks, each paid once
+        verify(transferBatchRepository, times(2)).insertAll(any());
+        verify(ledgerBatchRepository, times(2)).insertAll(any());
+    }
+
+    @Test
+    void testPayout_failedChunk_resumesOnRetry() {
+        PayoutRequest request = request(leg(ALICE, 100), leg(BOB, 200), leg(ALICE, 300), leg(BOB, 400));
+        doNothing().doThrow(new QueryTimeoutException("timeout")).doNothing().when(transferBatchRepository).insertAll(any());
+
+        PayoutResponse first = service.payout(USER, request, KEY);
+
+        assertEquals(2, first.getCompleted());
+        assertEquals(2, first.getNotProcessed());
+        assertEquals(List.of(PayoutLegResult.NOT_PROCESSED, PayoutLegResult.NOT_PROCESSED),
+                first.getLegs().subList(2, 4).stream().map(PayoutLegResult::getStatus).toList());
+
+        PayoutResponse retry = service.payout(USER, request, KEY);
+
+        assertEquals(4, retry.getCompleted());
+        assertEquals(0, retry.getNotProcessed());
+        assertEquals(1_000, retry.getTotalPaid());
+        // The first chunk is replayed with its original transfers, only the second one is paid
+        assertEquals(first.getLegs().subList(0, 2), retry.getLegs().subList(0, 2));
+        verify(ledgerBatchRepository, times(2)).insertAll(any());
+    }
+
+    @Test
+    void testPayout_chunkOverBalance_rejectsEveryLeg() {
+        balances.put(SENDER, 250L);
+
+        PayoutResponse response = service.payout(USER, request(leg(ALICE, 100), leg(BOB, 200)), KEY);
+
+        assertEquals(0, response.getCompleted());
+        assertEquals(2, response.getRejected());
+        assertTrue(response.getLegs().stream().allMatch(r -> "Insufficient funds".equals(r.getError())));
+        verifyNoInteractions(transferBatchRepository, ledgerBatchRepository);
+    }
+
+    @Test
+    void testPayout_legToSender_rejectedAlone() {
+        PayoutResponse response = service.payout(USER, request(leg(SENDER, 100), leg(ALICE, 200)), KEY);
+
+        PayoutLegResult self = response.getLegs().get(0);
+        assertEquals(PayoutLegResult.REJECTED, self.getStatus());
+        assertEquals("Cannot pay out to the sending account", self.getError());
+        assertEquals(PayoutLegResult.COMPLETED, response.getLegs().get(1).getStatus());
+        assertEquals(200, response.getTotalPaid());
+    }
+
+    private Account account(UUID id) {
+        return Account.builder()
+                .id(id)
+                .userId(id.equals(SENDER) ? USER : UUID.randomUUID())
+                .currency("SGD")
+                .status(Account.ACTIVE)
+                .balanceAvailable(balances.get(id))
+                .build();
+    }
+
+    private static PayoutLeg leg(UUID to, long amount) {
+        PayoutLeg leg = new PayoutLeg();
+        leg.setToAccount(to);
+        leg.setAmount(amount);
+        return leg;
+    }
+
+    private static PayoutRequest request(PayoutLeg... legs) {
+        PayoutRequest request = new PayoutRequest();
+        request.setFromAccount(SENDER);
+        request.setCurrency("SGD");
+        request.setLegs(List.of(legs));
+        return request;
+    }
+}
@@ -0,0 +1,37 @@
+package com.ironledger.wallet.utils;
+
+import com.ironledger.wallet.exception.InvalidRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerCursorTest {
+
+    @Test
+    void testEncodeDecode_roundTrips() {
+        LedgerCursor cursor = new LedgerCursor(
+                OffsetDateTime.of(2025, 3, 14, 9, 26, 53, 589_793_000, ZoneOffset.ofHours(8)),
+                UUID.randomUUID());
+
+        LedgerCursor decoded = LedgerCursor.decode(cursor.encode());
+
+        assertEquals(cursor, decoded);
+    }
+
+    @Test
+    void testEncode_isUrlSafe() {
+        String encoded = new LedgerCursor(OffsetDateTime.now(), UUID.randomUUID()).encode();
+
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"), "Cursor should be usable as a query parameter as-is");
+    }
+
+    @Test
+    void testDecode_garbage_throwsInvalidRequest() {
+        assertThrows(InvalidRequestException.class, () -> LedgerCursor.decode("not a cursor"));
+        assertThrows(InvalidRequestException.class, () -> LedgerCursor.decode("Zm9vfGJhcg"));
+    }
+}
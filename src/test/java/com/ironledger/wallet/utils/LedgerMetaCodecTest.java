@@ -0,0 +1,62 @@
+package com.ironledger.wallet.utils;
+
+import com.ironledger.wallet.entity.LedgerMeta;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerMetaCodecTest {
+
+    @Test
+    void testEncodeDecode_roundTrips() {
+        LedgerMeta meta = LedgerMeta.of("203.0.113.42", "Agent \"quoted\" \\ tab\t nl\n ctl\u0001 ünï");
+
+        assertEquals(meta, LedgerMetaCodec.decode(LedgerMetaCodec.encode(meta)));
+    }
+
+    @Test
+    void testEncode_isCompactAndOmitsAbsentFields() {
+        assertEquals("{\"ip\":\"10.0.0.1\"}", LedgerMetaCodec.encode(LedgerMeta.of("10.0.0.1", null)));
+        assertEquals("{\"ua\":\"curl/8\"}", LedgerMetaCodec.encode(LedgerMeta.of(null, "curl/8")));
+        assertNull(LedgerMetaCodec.encode(LedgerMeta.of(null, null)));
+        assertNull(LedgerMetaCodec.encode(null));
+    }
+
+    @Test
+    void testUserAgent_isTruncated() {
+        LedgerMeta meta = LedgerMeta.of(null, "x".repeat(1000));
+
+        assertEquals(LedgerMeta.MAX_USER_AGENT_LENGTH, meta.userAgent().length());
+    }
+
+    @Test
+    void testUserAgent_truncation_keepsSurrogatePairsWhole() {
+        // The 256th char is the high half of an emoji
+        LedgerMeta meta = LedgerMeta.of(null, "x".repeat(LedgerMeta.MAX_USER_AGENT_LENGTH - 1) + "\uD83D\uDE00tail");
+
+        assertEquals("x".repeat(LedgerMeta.MAX_USER_AGENT_LENGTH - 1), meta.userAgent());
+    }
+
+    @Test
+    void testDecode_legacyMap_keepsRequestFields() {
+        String legacy = "{\"action\": \"CREDIT\", \"source\": \"WALLET_API\", \"trace_id\": \"5f0c\", " +
+                "\"timestamp\": \"2025-01-01T00:00:00+08:00\", \"ip_address\": \"10.0.0.1\", " +
+                "\"user_agent\": \"curl/8\", \"bucket_credit\": true, \"nested\": {\"a\": [1, 2.5e3, null]}}";
+
+        assertEquals(new LedgerMeta("10.0.0.1", "curl/8"), LedgerMetaCodec.decode(legacy));
+    }
+
+    @Test
+    void testDecode_nothingToKeep_returnsNull() {
+        assertNull(LedgerMetaCodec.decode(null));
+        assertNull(LedgerMetaCodec.decode("{}"));
+        assertNull(LedgerMetaCodec.decode("{\"action\": \"DEBIT\"}"));
+    }
+
+    @Test
+    void testDecode_garbage_throwsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> LedgerMetaCodec.decode("not json"));
+        assertThrows(IllegalArgumentException.class, () -> LedgerMetaCodec.decode("{\"ip\": \"open"));
+        assertThrows(IllegalArgumentException.class, () -> LedgerMetaCodec.decode("{\"ip\": \"a\"} x"));
+    }
+}
@@ -0,0 +1,99 @@
+package com.ironledger.wallet.utils;
+
+import com.github.f4b6a3.ulid.Ulid;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MonotonicUlidGeneratorTest {
+
+    @Test
+    void testNext_isStrictlyIncreasing() {
+        MonotonicUlidGenerator generator = new MonotonicUlidGenerator(7);
+
+        Ulid previous = generator.next();
+        for (int i = 0; i < 100_000; i++) {
+            Ulid current = generator.next();
+            assertTrue(current.toString().compareTo(previous.toString()) > 0,
+                "IDs from one node must sort strictly after the previous one");
+            previous = current;
+        }
+    }
+
+    @Test
+    void testNext_encodesTimeAndNodeId() {
+        MonotonicUlidGenerator generator = new MonotonicUlidGenerator(0xBEEF, () -> 1_700_000_000_000L);
+
+        Ulid ulid = generator.next();
+
+        assertEquals(1_700_000_000_000L, ulid.getTime());
+        assertEquals(0xBEEF, ulid.getMostSignificantBits() & 0xFFFF);
+    }
+
+    @Test
+    void testNext_clockMovingBackwardsStaysMonotonic() {
+        AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+        MonotonicUlidGenerator generator = new MonotonicUlidGenerator(1, clock::get);
+
+        String first = generator.nextRefId();
+        clock.addAndGet(-5_000);
+        String second = generator.nextRefId();
+
+        assertTrue(second.compareTo(first) > 0);
+    }
+
+    @Test
+    void testNext_sequenceOverflowBorrowsNextMillisecond() {
+        MonotonicUlidGenerator generator = new MonotonicUlidGenerator(1, () -> 1_700_000_000_000L);
+
+        Ulid last = null;
+        for (int i = 0; i <= 0xFFFF + 1; i++) {
+            last = generator.next();
+        }
+
+        assertEquals(1_700_000_000_001L, last.getTime());
+    }
+
+    @Test
+    void testNext_uniqueAcrossThreads() throws Exception {
+        MonotonicUlidGenerator generator = new MonotonicUlidGenerator(3);
+        int threads = 8;
+        int perThread = 20_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+
+        List<Future<List<String>>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                List<String> ids = new ArrayList<>(perThread);
+                for (int i = 0; i < perThread; i++) ids.add(generator.nextRefId());
+                return ids;
+            }));
+        }
+
+        Set<String> all = ConcurrentHashMap.newKeySet();
+        for (Future<List<String>> future : futures) all.addAll(future.get());
+        pool.shutdown();
+
+        assertEquals(threads * perThread, all.size(), "No duplicate IDs across threads");
+    }
+
+    @Test
+    void testDifferentNodesNeverCollide() {
+        MonotonicUlidGenerator nodeA = new MonotonicUlidGenerator(1, () -> 1_700_000_000_000L);
+        MonotonicUlidGenerator nodeB = new MonotonicUlidGenerator(2, () -> 1_700_000_000_000L);
+
+        assertNotEquals(nodeA.next().getMostSignificantBits(), nodeB.next().getMostSignificantBits());
+    }
+
+    @Test
+    void testConstructor_rejectsOutOfRangeNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new MonotonicUlidGenerator(-1));
+        assertThrows(IllegalArgumentException.class, () -> new MonotonicUlidGenerator(0x10000));
+    }
+}
@@ -0,0 +1,105 @@
+package com.ironledger.wallet.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    @Test
+    void testAdvance_firesAtDeadlineNeverBefore() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 2, 0);
+        wheel.schedule("a", 35);
+        List<String> fired = new ArrayList<>();
+
+        wheel.advance(39, fired::add);
+        assertTrue(fired.isEmpty(), "35 ms rounds up to the 40 ms tick");
+
+        wheel.advance(40, fired::add);
+        assertEquals(List.of("a"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testAdvance_cascadesFromHigherLevels() {
+        // Level 0 spans 80 ms, level 1 640 ms
+        TimingWheel<Long> wheel = new TimingWheel<>(10, 8, 2, 0);
+        long[] deadlines = {90, 80, 630, 640, 5_000};
+        for (long deadline : deadlines) wheel.schedule(deadline, deadline);
+
+        Map<Long, Long> firedAt = new HashMap<>();
+        for (long now = 0; now <= 6_000; now += 10) {
+            long at = now;
+            wheel.advance(now, deadline -> firedAt.put(deadline, at));
+        }
+
+        for (long deadline : deadlines) {
+            assertEquals(deadline, firedAt.get(deadline), "deadline " + deadline);
+        }
+    }
+
+    @Test
+    void testAdvance_largeJump_firesEverythingDue() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(1, 16, 3, 1_000);
+        Random random = new Random(42);
+        int due = 0;
+        for (int i = 0; i < 10_000; i++) {
+            long deadline = 1_000 + random.nextInt(20_000);
+            if (deadline <= 12_345) due++;
+            wheel.schedule(i, deadline);
+        }
+
+        int[] fired = {0};
+        assertEquals(due, wheel.advance(12_345, i -> fired[0]++));
+        assertEquals(due, fired[0]);
+        assertEquals(10_000 - due, wheel.size());
+    }
+
+    @Test
+    void testSchedule_pastDeadline_firesOnNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 2, 1_000);
+        wheel.schedule("late", 500);
+        List<String> fired = new ArrayList<>();
+
+        wheel.advance(1_000, fired::add);
+
+        assertEquals(List.of("late"), fired);
+    }
+
+    @Test
+    void testSchedule_beyondTopLevel_isParkedAndFiresOnTime() {
+        // Two levels of 4 slots span only 16 ticks
+        TimingWheel<String> wheel = new TimingWheel<>(1, 4, 2, 0);
+        wheel.schedule("far", 100);
+        List<Long> firedAt = new ArrayList<>();
+
+        for (long now = 1; now <= 120; now++) {
+            long at = now;
+            wheel.advance(now, item -> firedAt.add(at));
+        }
+
+        assertEquals(List.of(100L), firedAt);
+    }
+
+    @Test
+    void testCancel_removesEntry() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 2, 0);
+        TimingWheel<String>.Timeout kept = wheel.schedule("kept", 500);
+        TimingWheel<String>.Timeout cancelled = wheel.schedule("cancelled", 500);
+
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+        assertEquals(1, wheel.size());
+
+        List<String> fired = new ArrayList<>();
+        wheel.advance(1_000, fired::add);
+        assertEquals(List.of("kept"), fired);
+        assertFalse(kept.cancel(), "Fired entries cannot be cancelled");
+    }
+}
@@ -0,0 +1,75 @@
+package com.ironledger.wallet.utils;
+
+import com.ironledger.wallet.utils.TransferNetting.Leg;
+import com.ironledger.wallet.utils.TransferNetting.Posting;
+import com.ironledger.wallet.utils.TransferNetting.Result;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransferNettingTest {
+
+    private static final UUID A = UUID.fromString("00000000-0000-0000-0000-00000000000a");
+    private static final UUID B = UUID.fromString("00000000-0000-0000-0000-00000000000b");
+    private static final UUID C = UUID.fromString("00000000-0000-0000-0000-00000000000c");
+
+    @Test
+    void testNet_backAndForth_leavesNoDelta() {
+        Result result = TransferNetting.net(Map.of(A, 1_000L, B, 500L), List.of(
+                new Leg(A, B, 300), new Leg(B, A, 100), new Leg(B, A, 200)));
+
+        assertTrue(result.deltas().isEmpty(), "Balances end where they started");
+        assertEquals(new Posting(1_000, 700, 500, 800), result.postings().get(0));
+        assertEquals(new Posting(800, 700, 700, 800), result.postings().get(1));
+        assertEquals(new Posting(700, 500, 800, 1_000), result.postings().get(2));
+    }
+
+    @Test
+    void testNet_deltasMatchRunningBalancesAndSumToZero() {
+        Result result = TransferNetting.net(Map.of(A, 1_000L, B, 0L, C, 0L), List.of(
+                new Leg(A, B, 400), new Leg(B, C, 150), new Leg(A, C, 50), new Leg(C, A, 25)));
+
+        assertEquals(Map.of(A, -425L, B, 250L, C, 175L), result.deltas());
+        assertEquals(0, result.deltas().values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void testNet_fundsFromEarlierLegOnly() {
+        Result result = TransferNetting.net(Map.of(A, 100L, B, 0L), List.of(
+                new Leg(B, A, 50),     // B is only credited by the next leg
+                new Leg(A, B, 100),
+                new Leg(B, A, 60)));
+
+        assertFalse(result.accepted(0));
+        assertTrue(result.accepted(1));
+        assertTrue(result.accepted(2));
+        assertEquals(Map.of(A, -40L, B, 40L), result.deltas());
+    }
+
+    @Test
+    void testNet_rejectedLegLeavesBalancesUntouched() {
+        Result result = TransferNetting.net(Map.of(A, 100L, B, 0L), List.of(
+                new Leg(A, B, 101), new Leg(A, B, 100)));
+
+        assertNull(result.postings().get(0));
+        assertEquals(new Posting(100, 0, 0, 100), result.postings().get(1));
+    }
+
+    @Test
+    void testNet_selfTransfer_netsToNothing() {
+        Result result = TransferNetting.net(Map.of(A, 100L), List.of(new Leg(A, A, 80)));
+
+        assertEquals(new Posting(100, 20, 20, 100), result.postings().get(0));
+        assertTrue(result.deltas().isEmpty());
+    }
+
+    @Test
+    void testNet_unknownAccount_throws() {
+        assertThrows(IllegalArgumentException.class,
+                () -> TransferNetting.net(Map.of(A, 100L), List.of(new Leg(A, B, 10))));
+    }
+}